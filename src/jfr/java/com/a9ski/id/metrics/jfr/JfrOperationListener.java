@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics.jfr;
+
+import com.a9ski.id.metrics.OperationListener;
+import com.a9ski.id.metrics.OperationMonitor;
+import com.a9ski.id.metrics.OperationType;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+/**
+ * Emits the completed operations as {@link OperationEvent}s
+ * <p>
+ * The listener is not registered automatically. {@link #install()} watches the flight recorder and keeps the listener in {@link OperationMonitor}
+ * only while a running recording has the event enabled, so the operations are not timed when nothing is recorded. Event settings changed on an
+ * already running recording are applied at the next recording state change.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public final class JfrOperationListener implements OperationListener {
+
+	private static final JfrOperationListener INSTANCE = new JfrOperationListener();
+
+	private static boolean installed;
+	private static boolean registered;
+
+	private JfrOperationListener() {
+		super();
+	}
+
+	/**
+	 * Starts watching the flight recorder. Calling the method more than once has no effect
+	 */
+	public static synchronized void install() {
+		if (!installed) {
+			installed = true;
+			FlightRecorder.addListener(new FlightRecorderListener() {
+				@Override
+				public void recordingStateChanged(final Recording recording) {
+					update();
+				}
+			});
+			update();
+		}
+	}
+
+	/**
+	 * Adds the listener to {@link OperationMonitor} when the event is recorded and removes it otherwise
+	 */
+	private static synchronized void update() {
+		final boolean enabled = EventType.getEventType(OperationEvent.class).isEnabled();
+		if (enabled && !registered) {
+			OperationMonitor.addListener(INSTANCE);
+		} else if (!enabled && registered) {
+			OperationMonitor.removeListener(INSTANCE);
+		}
+		registered = enabled;
+	}
+
+	@Override
+	public void operationCompleted(final OperationType type, final String strategy, final int inputSize, final int outputSize,
+			final long durationNanos) {
+		final OperationEvent event = new OperationEvent();
+		if (event.isEnabled()) {
+			event.operation = type.name();
+			event.strategy = strategy;
+			event.inputSize = inputSize;
+			event.outputSize = outputSize;
+			event.operationDuration = durationNanos;
+			event.commit();
+		}
+	}
+}
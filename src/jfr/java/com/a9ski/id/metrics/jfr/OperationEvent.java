@@ -0,0 +1,61 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a completed delta or bulk operation. The event is disabled by default; enable it in the recording settings with
+ * <tt>com.a9ski.id.Operation#enabled=true</tt>
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+@Name("com.a9ski.id.Operation")
+@Label("ID Operation")
+@Description("Delta or bulk operation over identifiable objects")
+@Category({ "a9ski", "id" })
+@Enabled(false)
+@StackTrace(false)
+class OperationEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Strategy")
+	String strategy;
+
+	@Label("Input Size")
+	int inputSize;
+
+	@Label("Output Size")
+	int outputSize;
+
+	@Label("Operation Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long operationDuration;
+}
@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.a9ski.id.Identifiable;
+
+/**
+ * Identifiable entity used by the benchmarks
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class BenchmarkEntity implements Identifiable {
+	private final long id;
+
+	/**
+	 * Creates a new entity
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 */
+	public BenchmarkEntity(final long id) {
+		super();
+		this.id = id;
+	}
+
+	@Override
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Creates entities with the given IDs
+	 *
+	 * @param ids
+	 *            the IDs
+	 * @return list of entities, in the order of the IDs
+	 */
+	public static List<BenchmarkEntity> of(final long[] ids) {
+		final List<BenchmarkEntity> entities = new ArrayList<>(ids.length);
+		for (final long id : ids) {
+			entities.add(new BenchmarkEntity(id));
+		}
+		return entities;
+	}
+
+	/**
+	 * Boxes the IDs
+	 *
+	 * @param ids
+	 *            the IDs
+	 * @return list of boxed IDs, in the same order
+	 */
+	public static List<Long> boxed(final long[] ids) {
+		final List<Long> boxed = new ArrayList<>(ids.length);
+		for (final long id : ids) {
+			boxed.add(id);
+		}
+		return boxed;
+	}
+}
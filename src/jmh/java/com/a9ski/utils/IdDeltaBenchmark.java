@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link IdDelta} and {@link IdentifiableDelta}. {@link IdDelta} calculates its results lazily, so {@link #idDelta(Blackhole)} reads
+ * all of them, while {@link #idDeltaSort()} measures only the construction (sorting of the IDs)
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IdDeltaBenchmark {
+
+	@Param({ "10", "1000", "100000", "10000000" })
+	private int size;
+
+	@Param({ "0.0", "0.5", "1.0" })
+	private double overlap;
+
+	@Param({ "SEQUENTIAL", "SPARSE", "CLUSTERED", "SHUFFLED" })
+	private IdDistribution distribution;
+
+	private List<Long> oldIds;
+	private List<Long> newIds;
+	private List<BenchmarkEntity> oldEntities;
+	private List<BenchmarkEntity> newEntities;
+
+	@Setup
+	public void setup() {
+		final long[][] ids = distribution.generate(size, overlap, new Random(size));
+		oldIds = BenchmarkEntity.boxed(ids[0]);
+		newIds = BenchmarkEntity.boxed(ids[1]);
+		oldEntities = BenchmarkEntity.of(ids[0]);
+		newEntities = BenchmarkEntity.of(ids[1]);
+	}
+
+	@Benchmark
+	public void idDelta(final Blackhole blackhole) {
+		final IdDelta delta = new IdDelta(oldIds, newIds);
+		blackhole.consume(delta.getRemovedIds());
+		blackhole.consume(delta.getAddedIds());
+		blackhole.consume(delta.getIntersectionIds());
+	}
+
+	@Benchmark
+	public IdDelta idDeltaSort() {
+		return new IdDelta(oldIds, newIds);
+	}
+
+	@Benchmark
+	public IdentifiableDelta<BenchmarkEntity, BenchmarkEntity> identifiableDelta() {
+		return new IdentifiableDelta<>(oldEntities, newEntities);
+	}
+}
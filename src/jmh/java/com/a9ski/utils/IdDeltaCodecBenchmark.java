@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.nio.ByteBuffer;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link IdDeltaCodec} against plain serialization of the removed, added and intersection IDs as <tt>long</tt> values. The encoded
+ * sizes are checked by <tt>IdDeltaCodecTest</tt>
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IdDeltaCodecBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	@Param({ "0.5" })
+	private double overlap;
+
+	@Param({ "SEQUENTIAL", "SPARSE", "CLUSTERED", "SHUFFLED" })
+	private IdDistribution distribution;
+
+	private IdDelta delta;
+	private long[] removed;
+	private long[] added;
+	private long[] intersection;
+	private ByteBuffer encoded;
+	private ByteBuffer plain;
+
+	@Setup
+	public void setup() {
+		final long[][] ids = distribution.generate(size, overlap, new Random(size));
+		delta = new IdDelta(BenchmarkEntity.boxed(ids[0]), BenchmarkEntity.boxed(ids[1]));
+		removed = delta.removedIdArray();
+		added = delta.addedIdArray();
+		intersection = delta.intersectionIdArray();
+		encoded = ByteBuffer.wrap(IdDeltaCodec.encode(delta));
+		plain = encodePlain();
+	}
+
+	@Benchmark
+	public byte[] encodeVarint() {
+		return IdDeltaCodec.encode(delta);
+	}
+
+	@Benchmark
+	public ByteBuffer encodePlain() {
+		final ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + (removed.length + added.length + intersection.length) * Long.BYTES);
+		for (final long[] section : new long[][] { removed, added, intersection }) {
+			buffer.putInt(section.length);
+			buffer.asLongBuffer().put(section);
+			buffer.position(buffer.position() + section.length * Long.BYTES);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	@Benchmark
+	public long iterateVarint() {
+		final EncodedIdDelta view = IdDeltaCodec.read(encoded.duplicate());
+		return sum(view.getRemovedIdIterator()) + sum(view.getAddedIdIterator()) + sum(view.getIntersectionIdIterator());
+	}
+
+	@Benchmark
+	public long iteratePlain() {
+		final ByteBuffer buffer = plain.duplicate();
+		long sum = 0;
+		for (int section = 0; section < 3; section++) {
+			for (int i = buffer.getInt(); i > 0; i--) {
+				sum += buffer.getLong();
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public IdDelta decodeVarint() {
+		return IdDeltaCodec.decode(encoded.duplicate());
+	}
+
+	private static long sum(final PrimitiveIterator.OfLong it) {
+		long sum = 0;
+		while (it.hasNext()) {
+			sum += it.nextLong();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.Random;
+
+/**
+ * Distributions of the IDs used by the benchmarks
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public enum IdDistribution {
+	/**
+	 * Consecutive ascending IDs
+	 */
+	SEQUENTIAL,
+	/**
+	 * Ascending IDs with random gaps of up to 1000
+	 */
+	SPARSE,
+	/**
+	 * Ascending runs of 64 consecutive IDs separated by random gaps of up to 1000000
+	 */
+	CLUSTERED,
+	/**
+	 * Consecutive IDs in random order
+	 */
+	SHUFFLED;
+
+	private static final int CLUSTER_SIZE = 64;
+
+	/**
+	 * Generates unique IDs
+	 *
+	 * @param count
+	 *            the number of IDs
+	 * @param rnd
+	 *            random generator
+	 * @return the generated IDs
+	 */
+	public long[] generate(final int count, final Random rnd) {
+		final long[] ids = new long[count];
+		long id = 0;
+		for (int i = 0; i < count; i++) {
+			switch (this) {
+			case SPARSE:
+				id += 1 + rnd.nextInt(1000);
+				break;
+			case CLUSTERED:
+				id += (i % CLUSTER_SIZE == 0 ? 1 + rnd.nextInt(1000000) : 1);
+				break;
+			default:
+				id++;
+				break;
+			}
+			ids[i] = id;
+		}
+		if (this == SHUFFLED) {
+			for (int i = count - 1; i > 0; i--) {
+				final int j = rnd.nextInt(i + 1);
+				final long tmp = ids[i];
+				ids[i] = ids[j];
+				ids[j] = tmp;
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Generates old and new IDs, sharing <tt>overlap * size</tt> IDs
+	 *
+	 * @param size
+	 *            the number of old and of new IDs
+	 * @param overlap
+	 *            the ratio of IDs present in both old and new IDs, between 0 and 1
+	 * @param rnd
+	 *            random generator
+	 * @return array with two elements: the old IDs and the new IDs
+	 */
+	public long[][] generate(final int size, final double overlap, final Random rnd) {
+		final int shared = (int) Math.round(size * overlap);
+		final long[] ids = generate(2 * size - shared, rnd);
+		final long[] oldIds = new long[size];
+		final long[] newIds = new long[size];
+		System.arraycopy(ids, 0, oldIds, 0, size);
+		System.arraycopy(ids, size - shared, newIds, 0, size);
+		return new long[][] { oldIds, newIds };
+	}
+}
@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the bulk operations of {@link IdentifiableUtils}. The looked up and removed IDs overlap with the IDs of the entities by the given
+ * ratio
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IdentifiableUtilsBenchmark {
+
+	@Param({ "10", "1000", "100000", "10000000" })
+	private int size;
+
+	@Param({ "0.0", "0.5", "1.0" })
+	private double overlap;
+
+	@Param({ "SEQUENTIAL", "SPARSE", "CLUSTERED", "SHUFFLED" })
+	private IdDistribution distribution;
+
+	private List<BenchmarkEntity> entities;
+	private List<BenchmarkEntity> sameEntities;
+	private List<Long> otherIds;
+	private long[] otherIdArray;
+	private List<Long> order;
+
+	/**
+	 * Fresh copy of the entities for the benchmarks modifying the collection
+	 */
+	@State(Scope.Thread)
+	public static class Copy {
+		private List<BenchmarkEntity> entities;
+
+		@Setup(Level.Invocation)
+		public void copy(final IdentifiableUtilsBenchmark benchmark) {
+			entities = new ArrayList<>(benchmark.entities);
+		}
+	}
+
+	@Setup
+	public void setup() {
+		final Random rnd = new Random(size);
+		final long[][] ids = distribution.generate(size, overlap, rnd);
+		entities = BenchmarkEntity.of(ids[0]);
+		sameEntities = BenchmarkEntity.of(ids[0]);
+		otherIds = BenchmarkEntity.boxed(ids[1]);
+		otherIdArray = ids[1];
+		// the sorting order is a permutation of the IDs of the entities
+		final long[] shuffled = ids[0].clone();
+		for (int i = shuffled.length - 1; i > 0; i--) {
+			final int j = rnd.nextInt(i + 1);
+			final long tmp = shuffled[i];
+			shuffled[i] = shuffled[j];
+			shuffled[j] = tmp;
+		}
+		order = BenchmarkEntity.boxed(shuffled);
+	}
+
+	@Benchmark
+	public List<BenchmarkEntity> getByIds() {
+		return IdentifiableUtils.getByIds(entities, otherIds);
+	}
+
+	@Benchmark
+	public List<BenchmarkEntity> removeByIds(final Copy copy) {
+		return IdentifiableUtils.removeByIds(copy.entities, otherIdArray);
+	}
+
+	@Benchmark
+	public SortedMap<Long, List<BenchmarkEntity>> mapByIds() {
+		return IdentifiableUtils.mapByIds(entities);
+	}
+
+	@Benchmark
+	public List<BenchmarkEntity> sortByOrderedComparator(final Copy copy) {
+		copy.entities.sort(IdentifiableUtils.createOrderedComparator(order));
+		return copy.entities;
+	}
+
+	@Benchmark
+	public boolean sameIds() {
+		return IdentifiableUtils.sameIds(entities, sameEntities);
+	}
+}
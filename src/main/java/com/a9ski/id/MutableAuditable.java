@@ -21,6 +21,8 @@ package com.a9ski.id;
 
 import java.util.Date;
 
+import com.a9ski.id.clock.AuditClock;
+
 /**
  * Interface representing auditable object. Mutable version.
  *
@@ -63,12 +65,43 @@ public interface MutableAuditable extends Auditable {
 
 	/**
 	 * Changes the last modification date and user id. Sets the creation date and creation user id if they are not already set
+	 * <p>
+	 * The current time is taken from {@link AuditClock}
 	 *
 	 * @param editorId
 	 *            the user id who performed last modification the object
 	 */
 	public default void touch(final long editorId) {
-		final Date now = new Date();
+		touch(editorId, AuditClock.millis());
+	}
+
+	/**
+	 * Changes the last modification date and user id. Sets the creation date and creation user id if they are not already set
+	 * <p>
+	 * The provided date is copied, so the object never shares a {@link Date} instance with the caller
+	 *
+	 * @param editorId
+	 *            the user id who performed last modification the object
+	 * @param now
+	 *            the modification time stamp
+	 */
+	public default void touch(final long editorId, final Date now) {
+		touch(editorId, now.getTime());
+	}
+
+	/**
+	 * Changes the last modification date and user id. Sets the creation date and creation user id if they are not already set
+	 * <p>
+	 * A single new {@link Date} instance is created per call. It is shared by the creation and modification dates of this object, but never with
+	 * other objects
+	 *
+	 * @param editorId
+	 *            the user id who performed last modification the object
+	 * @param millis
+	 *            the modification time stamp in milliseconds since the epoch
+	 */
+	public default void touch(final long editorId, final long millis) {
+		final Date now = new Date(millis);
 		if (getCreator() == null || getCreated() == null) {
 			setCreator(editorId);
 			setCreated(now);
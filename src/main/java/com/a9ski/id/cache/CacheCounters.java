@@ -0,0 +1,44 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics counters shared by the segments of {@link IdCache}. {@link LongAdder} keeps the counters cheap under contention
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class CacheCounters {
+	final LongAdder hits = new LongAdder();
+	final LongAdder misses = new LongAdder();
+	final LongAdder evictions = new LongAdder();
+	final LongAdder rejected = new LongAdder();
+
+	/**
+	 * Creates a snapshot of the counters
+	 *
+	 * @return snapshot of the counters
+	 */
+	IdCacheStats snapshot() {
+		return new IdCacheStats(hits.sum(), misses.sum(), evictions.sum(), rejected.sum());
+	}
+}
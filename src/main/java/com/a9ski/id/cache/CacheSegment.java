@@ -0,0 +1,489 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.Versioned;
+
+/**
+ * Part of {@link IdCache} with its own eviction policy
+ * <p>
+ * The entries are stored in a concurrent map, so cache hits never lock. The entries are also ordered in three access queues, following the
+ * W-TinyLFU policy: new entries enter a small LRU window (1% of the capacity). Entries leaving the window move to the probation queue and are
+ * promoted to the protected queue (80% of the main space) when accessed again. When the segment is full, the newest probation entry competes with
+ * the least recently used one and the entry with the lower estimated frequency is evicted.
+ * <p>
+ * The queues and the frequency sketch are guarded by the segment lock. Hits are recorded in a lossy read buffer, which is drained under the lock
+ * by writes, or by a reader when the buffer fills up and the lock is free.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <V>
+ *            the type of cached entities
+ */
+final class CacheSegment<V extends Identifiable> {
+
+	private static final int REMOVED = -1;
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	private static final int READ_BUFFER_SIZE = 64;
+	private static final int DRAIN_THRESHOLD = 32;
+	private static final int INITIAL_SKETCH_CAPACITY = 16;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ConcurrentMap<Long, Node<V>> map = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<Node<V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+	private final AtomicLong reads = new AtomicLong();
+	private final long maximumWeight;
+	private final long windowMaximum;
+	private final long protectedMaximum;
+	private final ToIntFunction<? super V> weigher;
+	private final CacheCounters counters;
+	private final FrequencySketch sketch;
+	private final AccessQueue<V> window = new AccessQueue<>();
+	private final AccessQueue<V> probation = new AccessQueue<>();
+	private final AccessQueue<V> protectedQueue = new AccessQueue<>();
+
+	private long weight;
+	private long windowWeight;
+	private long protectedWeight;
+
+	/**
+	 * Creates an empty segment
+	 *
+	 * @param maximumWeight
+	 *            the maximal total weight of the segment entries
+	 * @param weigher
+	 *            calculates the weight of an entity
+	 * @param counters
+	 *            the statistics counters of the cache
+	 */
+	CacheSegment(final long maximumWeight, final ToIntFunction<? super V> weigher, final CacheCounters counters) {
+		super();
+		this.maximumWeight = maximumWeight;
+		this.windowMaximum = Math.max(1, maximumWeight / 100);
+		this.protectedMaximum = (maximumWeight - windowMaximum) * 8 / 10;
+		this.weigher = weigher;
+		this.counters = counters;
+		// the number of entries of a weighted segment is unknown, the sketch grows with the entries
+		this.sketch = new FrequencySketch(Math.min(maximumWeight, INITIAL_SKETCH_CAPACITY));
+	}
+
+	/**
+	 * Gets the cached entity without locking the segment
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @return the cached entity, or null if the entity is not cached
+	 */
+	V get(final long id) {
+		final Node<V> node = map.get(id);
+		if (node == null) {
+			counters.misses.increment();
+			// the frequency of missing IDs matters for admission, but it is not worth waiting for
+			if (lock.tryLock()) {
+				try {
+					sketch.increment(id);
+				} finally {
+					lock.unlock();
+				}
+			}
+			return null;
+		}
+		counters.hits.increment();
+		recordRead(node);
+		return node.value;
+	}
+
+	/**
+	 * Gets the cached entity, loading and caching it if missing. The loader is called without holding the segment lock, at most once per missing
+	 * ID at a time. Concurrent callers asking for the same ID wait for the running load. If the ID is invalidated while it is loading, the loaded
+	 * entity is returned, but not cached
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @param loader
+	 *            loads the entity. It can return null, in which case nothing is cached
+	 * @return the cached or loaded entity
+	 */
+	V get(final long id, final LongFunction<? extends V> loader) {
+		final V cached = get(id);
+		if (cached != null) {
+			return cached;
+		}
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		final CompletableFuture<V> running = loading.putIfAbsent(id, future);
+		if (running != null) {
+			return await(running);
+		}
+		try {
+			// the entity could have been cached after the miss, but before the load was registered
+			final Node<V> node = map.get(id);
+			V value = node != null ? node.value : loader.apply(id);
+			if (node == null && value != null) {
+				value = putIfAbsent(id, value, future);
+			}
+			future.complete(value);
+			return value;
+		} catch (final RuntimeException | Error ex) {
+			future.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			loading.remove(id, future);
+		}
+	}
+
+	/**
+	 * Caches the entity, unless a newer version of it is already cached
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @param value
+	 *            the entity
+	 * @return true if the entity has been cached, false if a newer version is cached or the entity is heavier than the segment
+	 */
+	boolean put(final long id, final V value) {
+		final int newWeight = weigh(value);
+		lock.lock();
+		try {
+			drainReadBuffer();
+			sketch.increment(id);
+			final Node<V> node = map.get(id);
+			if (node != null && isNewer(node.value, value)) {
+				counters.rejected.increment();
+				return false;
+			} else if (newWeight > maximumWeight) {
+				// never fits, but the older version must not stay cached
+				if (node != null) {
+					remove(node);
+				}
+				return false;
+			} else if (node == null) {
+				insert(id, value, newWeight);
+				return true;
+			}
+			final int delta = newWeight - node.weight;
+			node.value = value;
+			node.weight = newWeight;
+			weight += delta;
+			if (node.queue == WINDOW) {
+				windowWeight += delta;
+			} else if (node.queue == PROTECTED) {
+				protectedWeight += delta;
+			}
+			onAccess(node);
+			evict();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the cached entity, unless the cached version is newer than <tt>entity</tt>
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @param entity
+	 *            the entity whose version is compared. Can be null, in which case the entity is removed unconditionally
+	 * @return true if an entity has been removed
+	 */
+	boolean invalidate(final long id, final Identifiable entity) {
+		lock.lock();
+		try {
+			drainReadBuffer();
+			// a running load may return the invalidated entity, so its result must not be cached
+			loading.remove(id);
+			final Node<V> node = map.get(id);
+			if (node == null || (entity != null && isNewer(node.value, entity))) {
+				return false;
+			}
+			remove(node);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	void clear() {
+		lock.lock();
+		try {
+			drainReadBuffer();
+			loading.clear();
+			for (final Node<V> node : map.values()) {
+				node.queue = REMOVED;
+			}
+			map.clear();
+			weight = 0;
+			windowWeight = 0;
+			protectedWeight = 0;
+			window.clear();
+			probation.clear();
+			protectedQueue.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return the number of entries
+	 */
+	int size() {
+		return map.size();
+	}
+
+	/**
+	 * Gets the total weight of the entries
+	 *
+	 * @return the total weight of the entries
+	 */
+	long weight() {
+		lock.lock();
+		try {
+			return weight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static boolean isNewer(final Identifiable cached, final Identifiable other) {
+		return cached instanceof Versioned && other instanceof Versioned && ((Versioned) cached).getVersion() > ((Versioned) other).getVersion();
+	}
+
+	private static <V> V await(final CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (final CompletionException ex) {
+			final Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw ex;
+		}
+	}
+
+	private int weigh(final V value) {
+		final int w = weigher.applyAsInt(value);
+		if (w < 0) {
+			throw new IllegalArgumentException("The weight of entity " + value.getId() + " is negative: " + w);
+		}
+		return w;
+	}
+
+	private V putIfAbsent(final long id, final V value, final CompletableFuture<V> load) {
+		final int newWeight = weigh(value);
+		lock.lock();
+		try {
+			drainReadBuffer();
+			sketch.increment(id);
+			final Node<V> node = map.get(id);
+			if (node != null) {
+				// put while loading, it is at least as recent as the loaded entity
+				return node.value;
+			} else if (loading.get(id) == load && newWeight <= maximumWeight) {
+				// not invalidated while loading
+				insert(id, value, newWeight);
+			}
+			return value;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void recordRead(final Node<V> node) {
+		final long index = reads.getAndIncrement();
+		// lossy: a slot that is not drained yet is overwritten
+		readBuffer.lazySet((int) index & (READ_BUFFER_SIZE - 1), node);
+		if ((index & (DRAIN_THRESHOLD - 1)) == DRAIN_THRESHOLD - 1 && lock.tryLock()) {
+			try {
+				drainReadBuffer();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void drainReadBuffer() {
+		for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+			final Node<V> node = readBuffer.getAndSet(i, null);
+			if (node != null && node.queue != REMOVED) {
+				sketch.increment(node.id);
+				onAccess(node);
+			}
+		}
+	}
+
+	private void insert(final long id, final V value, final int nodeWeight) {
+		final Node<V> node = new Node<>(id, value, nodeWeight);
+		node.queue = WINDOW;
+		map.put(id, node);
+		sketch.ensureCapacity(map.size());
+		weight += node.weight;
+		windowWeight += node.weight;
+		window.addLast(node);
+		evict();
+	}
+
+	private void onAccess(final Node<V> node) {
+		if (node.queue == WINDOW) {
+			window.moveToLast(node);
+		} else if (node.queue == PROTECTED) {
+			protectedQueue.moveToLast(node);
+		} else {
+			probation.remove(node);
+			node.queue = PROTECTED;
+			protectedQueue.addLast(node);
+			protectedWeight += node.weight;
+			while (protectedWeight > protectedMaximum && protectedQueue.first != node) {
+				final Node<V> demoted = protectedQueue.first;
+				protectedQueue.remove(demoted);
+				protectedWeight -= demoted.weight;
+				demoted.queue = PROBATION;
+				probation.addLast(demoted);
+			}
+		}
+	}
+
+	private void evict() {
+		while (windowWeight > windowMaximum) {
+			final Node<V> candidate = window.first;
+			window.remove(candidate);
+			windowWeight -= candidate.weight;
+			candidate.queue = PROBATION;
+			probation.addLast(candidate);
+		}
+		while (weight > maximumWeight) {
+			final Node<V> victim = probation.first;
+			final Node<V> candidate = probation.last;
+			if (victim == null) {
+				evict(protectedQueue.first != null ? protectedQueue.first : window.first);
+			} else if (victim != candidate && sketch.frequency(candidate.id) > sketch.frequency(victim.id)) {
+				evict(victim);
+			} else {
+				evict(candidate);
+			}
+		}
+	}
+
+	private void evict(final Node<V> node) {
+		remove(node);
+		counters.evictions.increment();
+	}
+
+	private void remove(final Node<V> node) {
+		if (node.queue == WINDOW) {
+			window.remove(node);
+			windowWeight -= node.weight;
+		} else if (node.queue == PROTECTED) {
+			protectedQueue.remove(node);
+			protectedWeight -= node.weight;
+		} else {
+			probation.remove(node);
+		}
+		weight -= node.weight;
+		node.queue = REMOVED;
+		map.remove(node.id, node);
+	}
+
+	/**
+	 * Cache entry, linked in one of the access queues. Only the value is read without holding the segment lock
+	 */
+	private static final class Node<V> {
+		private final long id;
+		private volatile V value;
+		private int weight;
+		private int queue;
+		private Node<V> previous;
+		private Node<V> next;
+
+		private Node(final long id, final V value, final int weight) {
+			super();
+			this.id = id;
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Doubly linked list of entries ordered from the least to the most recently used
+	 */
+	private static final class AccessQueue<V> {
+		private Node<V> first;
+		private Node<V> last;
+
+		private void addLast(final Node<V> node) {
+			node.previous = last;
+			node.next = null;
+			if (last == null) {
+				first = node;
+			} else {
+				last.next = node;
+			}
+			last = node;
+		}
+
+		private void remove(final Node<V> node) {
+			if (node.previous == null) {
+				first = node.next;
+			} else {
+				node.previous.next = node.next;
+			}
+			if (node.next == null) {
+				last = node.previous;
+			} else {
+				node.next.previous = node.previous;
+			}
+			node.previous = null;
+			node.next = null;
+		}
+
+		private void moveToLast(final Node<V> node) {
+			if (node != last) {
+				remove(node);
+				addLast(node);
+			}
+		}
+
+		private void clear() {
+			first = null;
+			last = null;
+		}
+	}
+}
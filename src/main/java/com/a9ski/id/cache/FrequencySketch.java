@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.cache;
+
+/**
+ * Count-min sketch estimating how often an ID has been accessed recently
+ * <p>
+ * Every ID is mapped to four 4-bit counters, and its frequency is the smallest of them. When the number of increments reaches ten times the
+ * capacity, all counters are halved, so the sketch forgets old accesses. The sketch is not thread safe.
+ * <p>
+ * The sketch starts small and grows with the number of cached entries (see {@link #ensureCapacity(long)}), so caches bounded by weight do not
+ * allocate counters for entries they never hold. Growing keeps the estimated frequencies.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAX_FREQUENCY = 15;
+	private static final int MAX_LENGTH = 1 << 26;
+
+	private long[] table;
+	private int mask;
+	private int sampleSize;
+	private int size;
+
+	/**
+	 * Creates a sketch for a cache with the given initial capacity
+	 *
+	 * @param capacity
+	 *            the expected number of entries in the cache
+	 */
+	FrequencySketch(final long capacity) {
+		super();
+		table = new long[length(capacity)];
+		mask = table.length - 1;
+		sampleSize = table.length * 10;
+	}
+
+	/**
+	 * Grows the sketch, so it has enough counters for a cache with the given number of entries. The counters are copied to both halves of the
+	 * grown table, so every ID keeps its estimated frequency
+	 *
+	 * @param capacity
+	 *            the number of entries in the cache
+	 */
+	void ensureCapacity(final long capacity) {
+		final int length = length(capacity);
+		if (length > table.length) {
+			final long[] grown = new long[length];
+			for (int offset = 0; offset < length; offset += table.length) {
+				System.arraycopy(table, 0, grown, offset, table.length);
+			}
+			table = grown;
+			mask = length - 1;
+			sampleSize = length * 10;
+		}
+	}
+
+	private static int length(final long capacity) {
+		return Integer.highestOneBit((int) Math.max(Math.min(capacity, MAX_LENGTH) - 1, 1)) << 1;
+	}
+
+	/**
+	 * Gets the estimated number of recent accesses of the ID, at most 15
+	 *
+	 * @param id
+	 *            the ID
+	 * @return the estimated number of recent accesses of the ID
+	 */
+	int frequency(final long id) {
+		int frequency = MAX_FREQUENCY;
+		for (int i = 0; i < SEEDS.length; i++) {
+			final long h = hash(id, i);
+			frequency = Math.min(frequency, (int) (table[index(h)] >>> offset(h)) & MAX_FREQUENCY);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Records an access of the ID
+	 *
+	 * @param id
+	 *            the ID
+	 */
+	void increment(final long id) {
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			final long h = hash(id, i);
+			final int index = index(h);
+			final int offset = offset(h);
+			if (((table[index] >>> offset) & MAX_FREQUENCY) != MAX_FREQUENCY) {
+				table[index] += 1L << offset;
+				added = true;
+			}
+		}
+		if (added && ++size >= sampleSize) {
+			reset();
+		}
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size >>>= 1;
+	}
+
+	private int index(final long h) {
+		return (int) (h >>> 32) & mask;
+	}
+
+	private static int offset(final long h) {
+		return ((int) h & 15) << 2;
+	}
+
+	private static long hash(final long id, final int i) {
+		final long h = (id + SEEDS[i]) * SEEDS[i];
+		return h ^ (h >>> 29);
+	}
+}
@@ -0,0 +1,236 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.cache;
+
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.Versioned;
+import com.a9ski.id.collections.LongHashing;
+
+/**
+ * Concurrent bounded cache of identifiable entities keyed by their primitive long ID
+ * <p>
+ * The cache is split into independently locked segments, so threads writing different IDs rarely wait for each other. Cache hits do not lock at
+ * all. When the cache is full, entities are evicted with a W-TinyLFU-like policy: recently added entities stay in a small window, and afterwards
+ * an entity is kept only if it is accessed more often than the entity it would replace. The access frequencies are estimated with a compact count-min sketch.
+ * <p>
+ * When both the cached and the new entity implement {@link Versioned}, {@link #put(Identifiable)} never replaces a cached entity with an older
+ * version, and {@link #invalidate(Identifiable)} never removes a newer version.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <V>
+ *            the type of cached entities
+ */
+public class IdCache<V extends Identifiable> {
+
+	private static final int MIN_SEGMENT_WEIGHT = 64;
+
+	private final CacheSegment<V>[] segments;
+	private final int segmentMask;
+	private final long maximumWeight;
+	private final CacheCounters counters = new CacheCounters();
+
+	/**
+	 * Creates a cache holding at most <tt>maximumSize</tt> entities
+	 *
+	 * @param maximumSize
+	 *            the maximal number of cached entities
+	 */
+	public IdCache(final long maximumSize) {
+		this(maximumSize, e -> 1);
+	}
+
+	/**
+	 * Creates a cache whose entities weigh at most <tt>maximumWeight</tt> in total
+	 *
+	 * @param maximumWeight
+	 *            the maximal total weight of the cached entities
+	 * @param weigher
+	 *            calculates the non-negative weight of an entity. It is called once when the entity is put in the cache. Entities heavier than a
+	 *            cache segment are not cached
+	 */
+	public IdCache(final long maximumWeight, final ToIntFunction<? super V> weigher) {
+		this(maximumWeight, weigher, Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * Creates a cache whose entities weigh at most <tt>maximumWeight</tt> in total
+	 * <p>
+	 * Every segment is bounded separately, so the eviction policy is applied per segment. Small caches use fewer segments than the concurrency
+	 * level
+	 *
+	 * @param maximumWeight
+	 *            the maximal total weight of the cached entities
+	 * @param weigher
+	 *            calculates the non-negative weight of an entity. It is called once when the entity is put in the cache. Entities heavier than a
+	 *            cache segment are not cached
+	 * @param concurrencyLevel
+	 *            the expected number of threads using the cache concurrently
+	 */
+	@SuppressWarnings("unchecked")
+	public IdCache(final long maximumWeight, final ToIntFunction<? super V> weigher, final int concurrencyLevel) {
+		super();
+		if (maximumWeight <= 0) {
+			throw new IllegalArgumentException("The maximum weight must be positive: " + maximumWeight);
+		} else if (concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("The concurrency level must be positive: " + concurrencyLevel);
+		} else if (weigher == null) {
+			throw new IllegalArgumentException("The weigher is required");
+		}
+		final int bySize = (int) Math.min(Math.max(maximumWeight / MIN_SEGMENT_WEIGHT, 1), 1 << 16);
+		final int count = Math.min(Integer.highestOneBit(bySize), Integer.highestOneBit(Math.min(concurrencyLevel, 1 << 16) * 2 - 1));
+		this.maximumWeight = maximumWeight;
+		this.segments = (CacheSegment<V>[]) new CacheSegment<?>[count];
+		this.segmentMask = count - 1;
+		for (int i = 0; i < count; i++) {
+			segments[i] = new CacheSegment<>(maximumWeight / count + (i < maximumWeight % count ? 1 : 0), weigher, counters);
+		}
+	}
+
+	/**
+	 * Gets the cached entity
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @return the cached entity, or null if the entity is not cached
+	 */
+	public V get(final long id) {
+		return segment(id).get(id);
+	}
+
+	/**
+	 * Gets the cached entity, loading and caching it if missing
+	 * <p>
+	 * The loader is called at most once per missing ID at a time, concurrent callers for the same ID wait for its result. The segment of the ID is
+	 * not locked while the loader runs, so it may access the cache, except for loading the same ID. If the ID is invalidated while it is loading,
+	 * the loaded entity is returned, but not cached
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @param loader
+	 *            loads the entity by ID. It can return null, in which case nothing is cached
+	 * @return the cached or loaded entity, or null if the loader returned null
+	 * @throws IllegalArgumentException
+	 *             if the weigher returns a negative weight
+	 */
+	public V get(final long id, final LongFunction<? extends V> loader) {
+		return segment(id).get(id, loader);
+	}
+
+	/**
+	 * Caches the entity under its ID. If a {@link Versioned} entity with a newer version is cached, the cache is not changed
+	 *
+	 * @param entity
+	 *            the entity to be cached
+	 * @return true if the entity has been cached, false if a newer version of it is cached or the entity is heavier than its cache segment
+	 * @throws IllegalArgumentException
+	 *             if the weigher returns a negative weight
+	 */
+	public boolean put(final V entity) {
+		final long id = entity.getId();
+		return segment(id).put(id, entity);
+	}
+
+	/**
+	 * Removes the cached entity with the given ID
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @return true if an entity has been removed
+	 */
+	public boolean invalidate(final long id) {
+		return segment(id).invalidate(id, null);
+	}
+
+	/**
+	 * Removes the cached entity with the ID of <tt>entity</tt>, unless the cached entity has a newer version
+	 *
+	 * @param entity
+	 *            the entity to be removed. Can be null
+	 * @return true if an entity has been removed
+	 */
+	public boolean invalidate(final Identifiable entity) {
+		if (entity == null) {
+			return false;
+		}
+		final long id = entity.getId();
+		return segment(id).invalidate(id, entity);
+	}
+
+	/**
+	 * Removes all cached entities
+	 */
+	public void invalidateAll() {
+		for (final CacheSegment<V> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of cached entities
+	 *
+	 * @return the number of cached entities
+	 */
+	public long size() {
+		long size = 0;
+		for (final CacheSegment<V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the total weight of the cached entities
+	 *
+	 * @return the total weight of the cached entities
+	 */
+	public long getWeight() {
+		long weight = 0;
+		for (final CacheSegment<V> segment : segments) {
+			weight += segment.weight();
+		}
+		return weight;
+	}
+
+	/**
+	 * Gets the maximal total weight of the cached entities
+	 *
+	 * @return the maximal total weight of the cached entities
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * Gets a snapshot of the hit, miss, eviction and rejected put counters
+	 *
+	 * @return snapshot of the cache statistics
+	 */
+	public IdCacheStats getStats() {
+		return counters.snapshot();
+	}
+
+	private CacheSegment<V> segment(final long id) {
+		return segments[(LongHashing.hash(id) >>> 16) & segmentMask];
+	}
+}
@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.cache;
+
+import java.io.Serializable;
+
+/**
+ * Immutable snapshot of the {@link IdCache} statistics
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class IdCacheStats implements Serializable {
+
+	private static final long serialVersionUID = -3064387457426315203L;
+
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long rejectedCount;
+
+	/**
+	 * Creates a new statistics snapshot
+	 *
+	 * @param hitCount
+	 *            number of lookups that found a cached entity
+	 * @param missCount
+	 *            number of lookups that did not find a cached entity
+	 * @param evictionCount
+	 *            number of entities evicted because the cache was full
+	 * @param rejectedCount
+	 *            number of puts rejected because a newer version was cached
+	 */
+	public IdCacheStats(final long hitCount, final long missCount, final long evictionCount, final long rejectedCount) {
+		super();
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.rejectedCount = rejectedCount;
+	}
+
+	/**
+	 * Gets the number of lookups that found a cached entity
+	 *
+	 * @return the number of lookups that found a cached entity
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the number of lookups that did not find a cached entity
+	 *
+	 * @return the number of lookups that did not find a cached entity
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the number of entities evicted because the cache was full
+	 *
+	 * @return the number of entities evicted because the cache was full
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Gets the number of puts rejected because a newer version of the entity was cached
+	 *
+	 * @return the number of puts rejected because a newer version of the entity was cached
+	 */
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	/**
+	 * Gets the ratio of lookups that found a cached entity. It is 1.0 when there were no lookups
+	 *
+	 * @return the ratio of lookups that found a cached entity
+	 */
+	public double getHitRate() {
+		final long requests = hitCount + missCount;
+		return (requests == 0 ? 1.0 : (double) hitCount / requests);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("IdCacheStats[hits=%d, misses=%d, evictions=%d, rejected=%d]", hitCount, missCount, evictionCount, rejectedCount);
+	}
+}
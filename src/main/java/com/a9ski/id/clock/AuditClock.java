@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.clock;
+
+import java.time.Clock;
+import java.util.Date;
+
+/**
+ * Holds the clock used for audit time stamps (e.g. by {@link com.a9ski.id.MutableAuditable#touch(long)})
+ * <p>
+ * The system UTC clock is used by default. Tests can install a fixed clock with {@link #setClock(Clock)}, and hot paths can install a
+ * {@link CachedClock}, which avoids reading the system clock on every call.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public final class AuditClock {
+
+	private static volatile Clock clock = Clock.systemUTC();
+
+	private AuditClock() {
+		super();
+	}
+
+	/**
+	 * Gets the clock used for audit time stamps
+	 *
+	 * @return the clock used for audit time stamps
+	 */
+	public static Clock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Sets the clock used for audit time stamps
+	 *
+	 * @param newClock
+	 *            the new clock. If null, the system UTC clock is used
+	 */
+	public static void setClock(final Clock newClock) {
+		clock = (newClock != null ? newClock : Clock.systemUTC());
+	}
+
+	/**
+	 * Gets the current time in milliseconds according to the audit clock
+	 *
+	 * @return the current time in milliseconds
+	 */
+	public static long millis() {
+		return clock.millis();
+	}
+
+	/**
+	 * Creates a date with the current time according to the audit clock
+	 *
+	 * @return new date with the current time
+	 */
+	public static Date now() {
+		return new Date(clock.millis());
+	}
+}
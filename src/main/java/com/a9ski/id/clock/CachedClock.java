@@ -0,0 +1,137 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.clock;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coarse-grained clock whose time is refreshed by a background daemon thread
+ * <p>
+ * Reading the time costs a single volatile read instead of a system call, at the price of precision: the time lags behind the source clock by at
+ * most the tick interval. The clock never goes back, even if the source does. {@link #close()} stops the background thread; afterwards the time
+ * is not refreshed anymore.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class CachedClock extends Clock implements Closeable {
+
+	private final Clock source;
+	private final ScheduledExecutorService ticker;
+	private volatile long millis;
+
+	/**
+	 * Creates a clock caching the system UTC clock
+	 *
+	 * @param tickMillis
+	 *            the refresh interval in milliseconds
+	 */
+	public CachedClock(final long tickMillis) {
+		this(Clock.systemUTC(), tickMillis);
+	}
+
+	/**
+	 * Creates a clock caching the source clock
+	 *
+	 * @param source
+	 *            the source clock
+	 * @param tickMillis
+	 *            the refresh interval in milliseconds
+	 */
+	public CachedClock(final Clock source, final long tickMillis) {
+		super();
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("The tick interval must be positive: " + tickMillis);
+		}
+		this.source = source;
+		this.millis = source.millis();
+		this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread thread = new Thread(r, "cached-clock");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void tick() {
+		final long now = source.millis();
+		if (now > millis) {
+			millis = now;
+		}
+	}
+
+	@Override
+	public long millis() {
+		return millis;
+	}
+
+	@Override
+	public Instant instant() {
+		return Instant.ofEpochMilli(millis);
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return source.getZone();
+	}
+
+	@Override
+	public Clock withZone(final ZoneId zone) {
+		if (zone.equals(getZone())) {
+			return this;
+		}
+		final CachedClock cached = this;
+		return new Clock() {
+			@Override
+			public ZoneId getZone() {
+				return zone;
+			}
+
+			@Override
+			public Clock withZone(final ZoneId otherZone) {
+				return cached.withZone(otherZone);
+			}
+
+			@Override
+			public long millis() {
+				return cached.millis();
+			}
+
+			@Override
+			public Instant instant() {
+				return cached.instant();
+			}
+		};
+	}
+
+	/**
+	 * Stops the background thread refreshing the time
+	 */
+	@Override
+	public void close() {
+		ticker.shutdownNow();
+	}
+}
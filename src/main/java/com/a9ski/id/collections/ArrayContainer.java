@@ -0,0 +1,222 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Sorted array of up to {@link Container#MAX_ARRAY_SIZE} 16 bit values. Every value costs 2 bytes
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class ArrayContainer extends Container {
+
+	private char[] values;
+	private int cardinality;
+
+	/**
+	 * Creates an empty container
+	 */
+	ArrayContainer() {
+		this(new char[4], 0);
+	}
+
+	/**
+	 * Creates a container with the first <tt>cardinality</tt> values of the sorted array. The array is not copied
+	 *
+	 * @param values
+	 *            sorted array without duplicates
+	 * @param cardinality
+	 *            number of used values
+	 */
+	ArrayContainer(final char[] values, final int cardinality) {
+		super();
+		this.values = values;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	boolean contains(final int low) {
+		return Arrays.binarySearch(values, 0, cardinality, (char) low) >= 0;
+	}
+
+	@Override
+	Container add(final int low) {
+		final int index = Arrays.binarySearch(values, 0, cardinality, (char) low);
+		if (index >= 0) {
+			return this;
+		} else if (cardinality >= MAX_ARRAY_SIZE) {
+			return toBitmap().add(low);
+		}
+		final int insert = -index - 1;
+		if (cardinality == values.length) {
+			values = Arrays.copyOf(values, Math.min(cardinality * 2, MAX_ARRAY_SIZE));
+		}
+		System.arraycopy(values, insert, values, insert + 1, cardinality - insert);
+		values[insert] = (char) low;
+		cardinality++;
+		return this;
+	}
+
+	@Override
+	Container remove(final int low) {
+		final int index = Arrays.binarySearch(values, 0, cardinality, (char) low);
+		if (index >= 0) {
+			System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+			cardinality--;
+		}
+		return this;
+	}
+
+	@Override
+	Container copy() {
+		return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+	}
+
+	@Override
+	BitmapContainer toBitmap() {
+		final BitmapContainer bitmap = new BitmapContainer();
+		for (int i = 0; i < cardinality; i++) {
+			bitmap.set(values[i]);
+		}
+		return bitmap;
+	}
+
+	@Override
+	Container runOptimize() {
+		final int runs = numberOfRuns();
+		if (RunContainer.sizeInBytes(runs) < sizeInBytes()) {
+			return RunContainer.of(iterator(), runs);
+		}
+		return this;
+	}
+
+	@Override
+	int sizeInBytes() {
+		return cardinality * 2;
+	}
+
+	@Override
+	PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < cardinality;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return values[index++];
+			}
+		};
+	}
+
+	@Override
+	void forEach(final long high, final LongConsumer action) {
+		for (int i = 0; i < cardinality; i++) {
+			action.accept(high | values[i]);
+		}
+	}
+
+	/**
+	 * Keeps the values that are present (or missing) in the other container
+	 *
+	 * @param other
+	 *            the other container
+	 * @param present
+	 *            if true keeps the values present in <tt>other</tt>, otherwise keeps the values missing in <tt>other</tt>
+	 * @return new array container with the filtered values
+	 */
+	ArrayContainer filter(final Container other, final boolean present) {
+		final char[] result = new char[Math.max(cardinality, 1)];
+		int n = 0;
+		for (int i = 0; i < cardinality; i++) {
+			if (other.contains(values[i]) == present) {
+				result[n++] = values[i];
+			}
+		}
+		return new ArrayContainer(result, n);
+	}
+
+	/**
+	 * Merges the values of both arrays
+	 *
+	 * @param other
+	 *            the other array container
+	 * @return new container with the values of both arrays
+	 */
+	Container union(final ArrayContainer other) {
+		if (cardinality + other.cardinality > MAX_ARRAY_SIZE) {
+			final BitmapContainer bitmap = toBitmap();
+			bitmap.orInPlace(other);
+			return bitmap.normalize();
+		}
+		final char[] result = new char[Math.max(cardinality + other.cardinality, 1)];
+		int i = 0;
+		int j = 0;
+		int n = 0;
+		while (i < cardinality && j < other.cardinality) {
+			final char a = values[i];
+			final char b = other.values[j];
+			if (a < b) {
+				result[n++] = a;
+				i++;
+			} else if (a > b) {
+				result[n++] = b;
+				j++;
+			} else {
+				result[n++] = a;
+				i++;
+				j++;
+			}
+		}
+		while (i < cardinality) {
+			result[n++] = values[i++];
+		}
+		while (j < other.cardinality) {
+			result[n++] = other.values[j++];
+		}
+		return new ArrayContainer(result, n);
+	}
+
+	private int numberOfRuns() {
+		int runs = Math.min(cardinality, 1);
+		for (int i = 1; i < cardinality; i++) {
+			if (values[i] != values[i - 1] + 1) {
+				runs++;
+			}
+		}
+		return runs;
+	}
+}
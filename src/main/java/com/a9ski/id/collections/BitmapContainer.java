@@ -0,0 +1,278 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Bitmap of 65536 bits used for dense containers. It always costs 8 KB, so it is used for more than {@link Container#MAX_ARRAY_SIZE} values
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class BitmapContainer extends Container {
+
+	private static final int WORDS = 1024;
+
+	private final long[] words;
+	private int cardinality;
+
+	/**
+	 * Creates an empty bitmap
+	 */
+	BitmapContainer() {
+		this(new long[WORDS], 0);
+	}
+
+	private BitmapContainer(final long[] words, final int cardinality) {
+		super();
+		this.words = words;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	boolean contains(final int low) {
+		return (words[low >>> 6] & (1L << low)) != 0;
+	}
+
+	@Override
+	Container add(final int low) {
+		set(low);
+		return this;
+	}
+
+	@Override
+	Container remove(final int low) {
+		final long word = words[low >>> 6];
+		final long updated = word & ~(1L << low);
+		if (updated != word) {
+			words[low >>> 6] = updated;
+			cardinality--;
+		}
+		return normalize();
+	}
+
+	@Override
+	Container copy() {
+		return new BitmapContainer(words.clone(), cardinality);
+	}
+
+	@Override
+	BitmapContainer toBitmap() {
+		return this;
+	}
+
+	@Override
+	Container runOptimize() {
+		final int runs = numberOfRuns();
+		if (RunContainer.sizeInBytes(runs) < sizeInBytes()) {
+			return RunContainer.of(iterator(), runs);
+		}
+		return this;
+	}
+
+	@Override
+	int sizeInBytes() {
+		return WORDS * 8;
+	}
+
+	@Override
+	PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int index = 0;
+			private long word = words[0];
+
+			@Override
+			public boolean hasNext() {
+				while (word == 0 && index < WORDS - 1) {
+					word = words[++index];
+				}
+				return word != 0;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final int low = (index << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				return low;
+			}
+		};
+	}
+
+	@Override
+	void forEach(final long high, final LongConsumer action) {
+		for (int i = 0; i < WORDS; i++) {
+			long word = words[i];
+			while (word != 0) {
+				action.accept(high | ((i << 6) + Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Sets a bit without converting the container
+	 *
+	 * @param low
+	 *            value between 0 and 65535
+	 */
+	void set(final int low) {
+		final long word = words[low >>> 6];
+		final long updated = word | (1L << low);
+		if (updated != word) {
+			words[low >>> 6] = updated;
+			cardinality++;
+		}
+	}
+
+	/**
+	 * Sets all bits between <tt>from</tt> and <tt>to</tt>
+	 *
+	 * @param from
+	 *            first value (inclusive)
+	 * @param to
+	 *            last value (inclusive)
+	 */
+	void setRange(final int from, final int to) {
+		final int first = from >>> 6;
+		final int last = to >>> 6;
+		for (int i = first; i <= last; i++) {
+			long mask = -1L;
+			if (i == first) {
+				mask &= -1L << from;
+			}
+			if (i == last) {
+				mask &= -1L >>> (63 - (to & 63));
+			}
+			cardinality += Long.bitCount(mask & ~words[i]);
+			words[i] |= mask;
+		}
+	}
+
+	/**
+	 * Calculates the bits set in both bitmaps
+	 *
+	 * @param other
+	 *            the other bitmap
+	 * @return new bitmap with the bits set in both bitmaps
+	 */
+	BitmapContainer and(final BitmapContainer other) {
+		final long[] result = new long[WORDS];
+		int count = 0;
+		for (int i = 0; i < WORDS; i++) {
+			result[i] = words[i] & other.words[i];
+			count += Long.bitCount(result[i]);
+		}
+		return new BitmapContainer(result, count);
+	}
+
+	/**
+	 * Sets the bits of all values from the other container
+	 *
+	 * @param other
+	 *            the other container
+	 */
+	void orInPlace(final Container other) {
+		if (other instanceof ArrayContainer) {
+			final PrimitiveIterator.OfInt it = other.iterator();
+			while (it.hasNext()) {
+				set(it.nextInt());
+			}
+		} else {
+			final long[] otherWords = other.toBitmap().words;
+			int count = 0;
+			for (int i = 0; i < WORDS; i++) {
+				words[i] |= otherWords[i];
+				count += Long.bitCount(words[i]);
+			}
+			cardinality = count;
+		}
+	}
+
+	/**
+	 * Clears the bits of all values from the other container
+	 *
+	 * @param other
+	 *            the other container
+	 */
+	void andNotInPlace(final Container other) {
+		if (other instanceof ArrayContainer) {
+			final PrimitiveIterator.OfInt it = other.iterator();
+			while (it.hasNext()) {
+				final int low = it.nextInt();
+				if (contains(low)) {
+					words[low >>> 6] &= ~(1L << low);
+					cardinality--;
+				}
+			}
+		} else {
+			final long[] otherWords = other.toBitmap().words;
+			int count = 0;
+			for (int i = 0; i < WORDS; i++) {
+				words[i] &= ~otherWords[i];
+				count += Long.bitCount(words[i]);
+			}
+			cardinality = count;
+		}
+	}
+
+	/**
+	 * Converts the bitmap to array container if it is small enough
+	 *
+	 * @return array container if the bitmap has at most {@link Container#MAX_ARRAY_SIZE} values, otherwise this bitmap
+	 */
+	Container normalize() {
+		if (cardinality > MAX_ARRAY_SIZE) {
+			return this;
+		}
+		final char[] values = new char[Math.max(cardinality, 1)];
+		int n = 0;
+		for (int i = 0; i < WORDS; i++) {
+			long word = words[i];
+			while (word != 0) {
+				values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return new ArrayContainer(values, n);
+	}
+
+	private int numberOfRuns() {
+		int runs = 0;
+		long word = words[0];
+		for (int i = 0; i < WORDS - 1; i++) {
+			final long next = words[i + 1];
+			// a run ends where a set bit is followed by a clear bit
+			runs += Long.bitCount(~word & (word << 1)) + (int) ((word >>> 63) & ~next);
+			word = next;
+		}
+		return runs + Long.bitCount(~word & (word << 1)) + (int) (word >>> 63);
+	}
+}
@@ -0,0 +1,201 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Container of the lower 16 bits of the IDs that share the same upper bits in {@link IdBitmap}
+ * <p>
+ * Containers are either sorted arrays (up to {@link #MAX_ARRAY_SIZE} values), bitmaps of 65536 bits or sorted lists of runs. Mutating operations
+ * return the container that holds the result, which may be a new container of another kind
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+abstract class Container {
+
+	/**
+	 * Maximal number of values kept in an array container. Above this size a bitmap container is smaller
+	 */
+	static final int MAX_ARRAY_SIZE = 4096;
+
+	/**
+	 * Gets the number of values in the container
+	 *
+	 * @return the number of values in the container
+	 */
+	abstract int cardinality();
+
+	/**
+	 * Checks if the container contains the value
+	 *
+	 * @param low
+	 *            value between 0 and 65535
+	 * @return true if the container contains the value
+	 */
+	abstract boolean contains(int low);
+
+	/**
+	 * Adds a value to the container
+	 *
+	 * @param low
+	 *            value between 0 and 65535
+	 * @return the container holding the result
+	 */
+	abstract Container add(int low);
+
+	/**
+	 * Removes a value from the container
+	 *
+	 * @param low
+	 *            value between 0 and 65535
+	 * @return the container holding the result
+	 */
+	abstract Container remove(int low);
+
+	/**
+	 * Creates a copy of the container that can be modified independently
+	 *
+	 * @return copy of the container
+	 */
+	abstract Container copy();
+
+	/**
+	 * Gets the container as bitmap. Bitmap containers return themselves
+	 *
+	 * @return bitmap with the same values
+	 */
+	abstract BitmapContainer toBitmap();
+
+	/**
+	 * Converts the container to the smallest of the array, bitmap or run representations
+	 *
+	 * @return the smallest container holding the same values
+	 */
+	abstract Container runOptimize();
+
+	/**
+	 * Gets the approximate memory used by the container values in bytes
+	 *
+	 * @return the approximate memory used by the container values in bytes
+	 */
+	abstract int sizeInBytes();
+
+	/**
+	 * Returns iterator over the values in ascending order
+	 *
+	 * @return iterator over the values in ascending order
+	 */
+	abstract PrimitiveIterator.OfInt iterator();
+
+	/**
+	 * Performs the action for each ID of the container in ascending order
+	 *
+	 * @param high
+	 *            the upper bits of the IDs, already shifted
+	 * @param action
+	 *            the action to be performed
+	 */
+	abstract void forEach(long high, LongConsumer action);
+
+	/**
+	 * Calculates the values present in both containers
+	 *
+	 * @param a
+	 *            first container
+	 * @param b
+	 *            second container
+	 * @return new container with the values present in both containers
+	 */
+	static Container and(final Container a, final Container b) {
+		if (a instanceof ArrayContainer) {
+			return ((ArrayContainer) a).filter(b, true);
+		} else if (b instanceof ArrayContainer) {
+			return ((ArrayContainer) b).filter(a, true);
+		}
+		return a.toBitmap().and(b.toBitmap()).normalize();
+	}
+
+	/**
+	 * Calculates the values present in any of the containers
+	 *
+	 * @param a
+	 *            first container
+	 * @param b
+	 *            second container
+	 * @return new container with the values present in any of the containers
+	 */
+	static Container or(final Container a, final Container b) {
+		if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+			return ((ArrayContainer) a).union((ArrayContainer) b);
+		}
+		final boolean aIsBase = !(a instanceof ArrayContainer);
+		final BitmapContainer result = mutableBitmap(aIsBase ? a : b);
+		result.orInPlace(aIsBase ? b : a);
+		return result.normalize();
+	}
+
+	/**
+	 * Calculates the values present in <tt>a</tt> but missing in <tt>b</tt>
+	 *
+	 * @param a
+	 *            first container
+	 * @param b
+	 *            second container
+	 * @return new container with the values present in <tt>a</tt> but missing in <tt>b</tt>
+	 */
+	static Container andNot(final Container a, final Container b) {
+		if (a instanceof ArrayContainer) {
+			return ((ArrayContainer) a).filter(b, false);
+		}
+		final BitmapContainer result = mutableBitmap(a);
+		result.andNotInPlace(b);
+		return result.normalize();
+	}
+
+	/**
+	 * Checks if both containers hold the same values, regardless of their representation
+	 *
+	 * @param a
+	 *            first container
+	 * @param b
+	 *            second container
+	 * @return true if both containers hold the same values
+	 */
+	static boolean sameValues(final Container a, final Container b) {
+		if (a.cardinality() != b.cardinality()) {
+			return false;
+		}
+		final PrimitiveIterator.OfInt itA = a.iterator();
+		final PrimitiveIterator.OfInt itB = b.iterator();
+		while (itA.hasNext()) {
+			if (itA.nextInt() != itB.nextInt()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static BitmapContainer mutableBitmap(final Container c) {
+		return (c instanceof BitmapContainer ? (BitmapContainer) c.copy() : c.toBitmap());
+	}
+}
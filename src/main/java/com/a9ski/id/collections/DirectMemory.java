@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocation and explicit release of direct (off-heap) buffers
+ * <p>
+ * Direct buffers are normally released when they are garbage collected. {@link #free(ByteBuffer)} releases the memory immediately using
+ * <tt>sun.misc.Unsafe.invokeCleaner</tt> (Java 9+) or the buffer cleaner (Java 8). If neither is available the memory is released by the garbage
+ * collector.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class DirectMemory {
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (final ReflectiveOperationException | RuntimeException e) { // NOSONAR
+			// Java 8, the cleaner of the buffer is used
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private DirectMemory() {
+		super();
+	}
+
+	/**
+	 * Allocates direct buffer in the native byte order
+	 *
+	 * @param bytes
+	 *            the size of the buffer in bytes
+	 * @return direct buffer
+	 */
+	static ByteBuffer allocate(final int bytes) {
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Releases the memory of direct buffer. The buffer must not be used afterwards
+	 *
+	 * @param buffer
+	 *            the buffer to be released. Can be null
+	 */
+	static void free(final ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) {
+			return;
+		}
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (final ReflectiveOperationException | RuntimeException e) { // NOSONAR
+			// the memory will be released by the garbage collector
+		}
+	}
+}
@@ -0,0 +1,455 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Compressed bitmap of primitive long IDs, suitable for dense ID sequences (e.g. auto-increment IDs)
+ * <p>
+ * The IDs are grouped by their upper 48 bits. The lower 16 bits of every group are stored in a container, which is a sorted array for sparse
+ * groups (2 bytes per ID), a bitmap for dense groups (8 KB per 65536 IDs) or a list of runs for consecutive IDs (4 bytes per run). Runs are created
+ * by {@link #runOptimize()}. {@link #and(IdBitmap, IdBitmap)}, {@link #or(IdBitmap, IdBitmap)} and {@link #andNot(IdBitmap, IdBitmap)} skip the
+ * groups that are missing on one side and combine bitmap groups 64 IDs at a time.
+ * <p>
+ * The IDs are iterated in ascending order. The bitmap is not thread safe.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class IdBitmap extends AbstractSet<Long> implements SortedLongIdCollection {
+
+	private static final int LOW_BITS = 16;
+	private static final int LOW_MASK = 0xFFFF;
+
+	private long[] keys;
+	private Container[] containers;
+	private int count;
+
+	/**
+	 * Creates an empty bitmap
+	 */
+	public IdBitmap() {
+		this(4);
+	}
+
+	/**
+	 * Creates a copy of the bitmap
+	 *
+	 * @param bitmap
+	 *            the bitmap to be copied
+	 */
+	public IdBitmap(final IdBitmap bitmap) {
+		this(bitmap.count);
+		for (int i = 0; i < bitmap.count; i++) {
+			append(bitmap.keys[i], bitmap.containers[i].copy());
+		}
+	}
+
+	private IdBitmap(final int capacity) {
+		super();
+		keys = new long[Math.max(capacity, 1)];
+		containers = new Container[keys.length];
+	}
+
+	/**
+	 * Creates a bitmap containing the IDs
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return bitmap containing the IDs
+	 */
+	public static IdBitmap of(final long... ids) {
+		final IdBitmap bitmap = new IdBitmap();
+		if (ids != null) {
+			for (final long id : ids) {
+				bitmap.add(id);
+			}
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Creates a bitmap containing the non-null IDs from the collection
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return bitmap containing the non-null IDs
+	 */
+	public static IdBitmap of(final Collection<Long> ids) {
+		if (ids instanceof IdBitmap) {
+			return new IdBitmap((IdBitmap) ids);
+		}
+		final IdBitmap bitmap = new IdBitmap();
+		if (ids instanceof LongIdCollection) {
+			((LongIdCollection) ids).forEachId(bitmap::add);
+		} else if (ids != null) {
+			for (final Long id : ids) {
+				if (id != null) {
+					bitmap.add(id.longValue());
+				}
+			}
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Calculates the IDs present in both bitmaps
+	 *
+	 * @param a
+	 *            first bitmap
+	 * @param b
+	 *            second bitmap
+	 * @return new bitmap with the IDs present in both bitmaps
+	 */
+	public static IdBitmap and(final IdBitmap a, final IdBitmap b) {
+		final IdBitmap result = new IdBitmap(Math.min(a.count, b.count));
+		int i = 0;
+		int j = 0;
+		while (i < a.count && j < b.count) {
+			final long keyA = a.keys[i];
+			final long keyB = b.keys[j];
+			if (keyA < keyB) {
+				i++;
+			} else if (keyA > keyB) {
+				j++;
+			} else {
+				result.append(keyA, Container.and(a.containers[i++], b.containers[j++]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the IDs present in any of the bitmaps
+	 *
+	 * @param a
+	 *            first bitmap
+	 * @param b
+	 *            second bitmap
+	 * @return new bitmap with the IDs present in any of the bitmaps
+	 */
+	public static IdBitmap or(final IdBitmap a, final IdBitmap b) {
+		final IdBitmap result = new IdBitmap(a.count + b.count);
+		int i = 0;
+		int j = 0;
+		while (i < a.count && j < b.count) {
+			final long keyA = a.keys[i];
+			final long keyB = b.keys[j];
+			if (keyA < keyB) {
+				result.append(keyA, a.containers[i++].copy());
+			} else if (keyA > keyB) {
+				result.append(keyB, b.containers[j++].copy());
+			} else {
+				result.append(keyA, Container.or(a.containers[i++], b.containers[j++]));
+			}
+		}
+		for (; i < a.count; i++) {
+			result.append(a.keys[i], a.containers[i].copy());
+		}
+		for (; j < b.count; j++) {
+			result.append(b.keys[j], b.containers[j].copy());
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the IDs present in <tt>a</tt> but missing in <tt>b</tt>
+	 *
+	 * @param a
+	 *            first bitmap
+	 * @param b
+	 *            second bitmap
+	 * @return new bitmap with the IDs present in <tt>a</tt> but missing in <tt>b</tt>
+	 */
+	public static IdBitmap andNot(final IdBitmap a, final IdBitmap b) {
+		final IdBitmap result = new IdBitmap(a.count);
+		int j = 0;
+		for (int i = 0; i < a.count; i++) {
+			final long key = a.keys[i];
+			while (j < b.count && b.keys[j] < key) {
+				j++;
+			}
+			if (j < b.count && b.keys[j] == key) {
+				result.append(key, Container.andNot(a.containers[i], b.containers[j]));
+			} else {
+				result.append(key, a.containers[i].copy());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of IDs in the bitmap. Unlike {@link #size()} it does not overflow for more than {@link Integer#MAX_VALUE} IDs
+	 *
+	 * @return the number of IDs in the bitmap
+	 */
+	public long getCardinality() {
+		long cardinality = 0;
+		for (int i = 0; i < count; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.min(getCardinality(), Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean contains(final long id) {
+		final int index = indexOf(id >> LOW_BITS);
+		return index >= 0 && containers[index].contains((int) id & LOW_MASK);
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return o instanceof Long && contains(((Long) o).longValue());
+	}
+
+	@Override
+	public boolean add(final long id) {
+		final long key = id >> LOW_BITS;
+		final int low = (int) id & LOW_MASK;
+		final int index = indexOf(key);
+		if (index < 0) {
+			final Container container = new ArrayContainer().add(low);
+			insert(-index - 1, key, container);
+			return true;
+		}
+		final Container container = containers[index];
+		final int cardinality = container.cardinality();
+		containers[index] = container.add(low);
+		return containers[index].cardinality() != cardinality;
+	}
+
+	@Override
+	public boolean add(final Long id) {
+		return add(id.longValue());
+	}
+
+	/**
+	 * Removes an ID from the bitmap
+	 *
+	 * @param id
+	 *            the ID to be removed
+	 * @return true if the bitmap contained the ID
+	 */
+	public boolean remove(final long id) {
+		final int index = indexOf(id >> LOW_BITS);
+		if (index < 0) {
+			return false;
+		}
+		final Container container = containers[index];
+		final int cardinality = container.cardinality();
+		final Container updated = container.remove((int) id & LOW_MASK);
+		if (updated.cardinality() == 0) {
+			System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+			System.arraycopy(containers, index + 1, containers, index, count - index - 1);
+			containers[--count] = null;
+		} else {
+			containers[index] = updated;
+		}
+		return updated.cardinality() != cardinality;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		return o instanceof Long && remove(((Long) o).longValue());
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		if (c instanceof IdBitmap) {
+			return replaceWith(andNot(this, (IdBitmap) c));
+		}
+		boolean changed = false;
+		for (final Object o : c) {
+			changed |= remove(o);
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		if (c instanceof IdBitmap) {
+			return replaceWith(and(this, (IdBitmap) c));
+		}
+		return removeIf(id -> !c.contains(id));
+	}
+
+	@Override
+	public boolean removeIf(final Predicate<? super Long> filter) {
+		boolean changed = false;
+		for (final long id : toLongArray()) {
+			if (filter.test(id)) {
+				changed |= remove(id);
+			}
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(containers, 0, count, null);
+		count = 0;
+	}
+
+	/**
+	 * Converts every container to its smallest representation. Long sequences of consecutive IDs are stored as runs. Call it after the bitmap is
+	 * populated
+	 *
+	 * @return true if any container has been converted
+	 */
+	public boolean runOptimize() {
+		boolean changed = false;
+		for (int i = 0; i < count; i++) {
+			final Container optimized = containers[i].runOptimize();
+			changed |= (optimized != containers[i]);
+			containers[i] = optimized;
+		}
+		return changed;
+	}
+
+	/**
+	 * Gets the approximate memory used by the bitmap in bytes
+	 *
+	 * @return the approximate memory used by the bitmap in bytes
+	 */
+	public long getSizeInBytes() {
+		long bytes = keys.length * 12L;
+		for (int i = 0; i < count; i++) {
+			bytes += containers[i].sizeInBytes();
+		}
+		return bytes;
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+			private int index = -1;
+			private long high;
+			private PrimitiveIterator.OfInt values = null;
+
+			@Override
+			public boolean hasNext() {
+				while ((values == null || !values.hasNext()) && index + 1 < count) {
+					index++;
+					high = keys[index] << LOW_BITS;
+					values = containers[index].iterator();
+				}
+				return values != null && values.hasNext();
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return high | values.nextInt();
+			}
+		};
+	}
+
+	@Override
+	public void forEachId(final LongConsumer action) {
+		for (int i = 0; i < count; i++) {
+			containers[i].forEach(keys[i] << LOW_BITS, action);
+		}
+	}
+
+	@Override
+	public long[] toLongArray() {
+		final long[] array = new long[size()];
+		final int[] n = new int[1];
+		forEachId(id -> array[n[0]++] = id);
+		return array;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (!(o instanceof IdBitmap)) {
+			return super.equals(o);
+		}
+		final IdBitmap other = (IdBitmap) o;
+		if (count != other.count) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (keys[i] != other.keys[i] || !Container.sameValues(containers[i], other.containers[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		final int[] hash = new int[1];
+		forEachId(id -> hash[0] += Long.hashCode(id));
+		return hash[0];
+	}
+
+	private int indexOf(final long key) {
+		if (count > 0 && keys[count - 1] == key) {
+			// IDs are usually added in ascending order
+			return count - 1;
+		}
+		return Arrays.binarySearch(keys, 0, count, key);
+	}
+
+	private void append(final long key, final Container container) {
+		if (container.cardinality() > 0) {
+			insert(count, key, container);
+		}
+	}
+
+	private void insert(final int index, final long key, final Container container) {
+		if (count == keys.length) {
+			keys = Arrays.copyOf(keys, count * 2);
+			containers = Arrays.copyOf(containers, count * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, count - index);
+		System.arraycopy(containers, index, containers, index + 1, count - index);
+		keys[index] = key;
+		containers[index] = container;
+		count++;
+	}
+
+	private boolean replaceWith(final IdBitmap result) {
+		final boolean changed = (result.getCardinality() != getCardinality());
+		keys = result.keys;
+		containers = result.containers;
+		count = result.count;
+		return changed;
+	}
+}
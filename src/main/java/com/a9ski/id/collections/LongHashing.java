@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+/**
+ * Hashing of primitive IDs shared by the open addressing structures (e.g. {@link LongIdSet})
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public final class LongHashing {
+
+	private LongHashing() {
+		super();
+	}
+
+	/**
+	 * Spreads the bits of the ID, so sequential IDs are not clustered in the hash table
+	 *
+	 * @param id
+	 *            the ID
+	 * @return hash of the ID
+	 */
+	public static int hash(final long id) {
+		final long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Gets the maximal number of elements stored in a table with the given capacity, so the load factor stays at most 0.5
+	 *
+	 * @param capacity
+	 *            the table capacity
+	 * @return the maximal number of elements
+	 */
+	public static int maxSize(final int capacity) {
+		return capacity >>> 1;
+	}
+
+	/**
+	 * Calculates the table capacity (power of two) needed to store <tt>expectedSize</tt> elements with load factor of at most 0.5 (see
+	 * {@link #maxSize(int)})
+	 *
+	 * @param expectedSize
+	 *            the expected number of elements
+	 * @return the table capacity
+	 */
+	public static int capacity(final int expectedSize) {
+		final int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) - 1) << 2;
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Too many elements: " + expectedSize);
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,201 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+
+/**
+ * Immutable sorted array of unique primitive long IDs
+ * <p>
+ * Every ID costs 8 bytes. Lookups use binary search. Because the IDs are sorted and unique, two arrays can be compared or merged in linear time
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class LongIdArray extends AbstractList<Long> implements SortedLongIdCollection, RandomAccess {
+
+	private static final LongIdArray EMPTY = new LongIdArray(new long[0]);
+
+	private final long[] ids;
+
+	private LongIdArray(final long[] ids) {
+		super();
+		this.ids = ids;
+	}
+
+	/**
+	 * Creates a sorted array of the unique IDs. The provided array is not modified
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return sorted array of the unique IDs
+	 */
+	public static LongIdArray of(final long... ids) {
+		if (ids == null || ids.length == 0) {
+			return EMPTY;
+		}
+		return new LongIdArray(sortedUnique(ids.clone(), ids.length));
+	}
+
+	/**
+	 * Creates a sorted array of the unique non-null IDs from the collection
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return sorted array of the unique IDs
+	 */
+	public static LongIdArray of(final Collection<Long> ids) {
+		if (ids instanceof LongIdArray) {
+			return (LongIdArray) ids;
+		} else if (ids instanceof LongIdCollection) {
+			final long[] array = ((LongIdCollection) ids).toLongArray();
+			return new LongIdArray(sortedUnique(array, array.length));
+		} else if (ids == null || ids.isEmpty()) {
+			return EMPTY;
+		}
+		final long[] array = new long[ids.size()];
+		int n = 0;
+		for (final Long id : ids) {
+			if (id != null) {
+				array[n++] = id.longValue();
+			}
+		}
+		return new LongIdArray(sortedUnique(array, n));
+	}
+
+	/**
+	 * Sorts the first <tt>length</tt> elements of the array in place and removes the duplicates
+	 *
+	 * @param ids
+	 *            the array to be sorted. It is modified
+	 * @param length
+	 *            number of elements to be sorted
+	 * @return the sorted unique values. Either <tt>ids</tt> or a trimmed copy of it
+	 */
+	public static long[] sortedUnique(final long[] ids, final int length) {
+		Arrays.sort(ids, 0, length);
+		return unique(ids, length);
+	}
+
+	/**
+	 * Removes the duplicates from the first <tt>length</tt> elements of a sorted array in place
+	 *
+	 * @param ids
+	 *            the sorted array. It is modified
+	 * @param length
+	 *            number of elements to be checked
+	 * @return the unique values. Either <tt>ids</tt> or a trimmed copy of it
+	 */
+	public static long[] unique(final long[] ids, final int length) {
+		int n = Math.min(length, 1);
+		for (int i = 1; i < length; i++) {
+			if (ids[i] != ids[n - 1]) {
+				ids[n++] = ids[i];
+			}
+		}
+		return (n == ids.length ? ids : Arrays.copyOf(ids, n));
+	}
+
+	@Override
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Gets the ID at given position
+	 *
+	 * @param index
+	 *            the position
+	 * @return the ID at given position
+	 */
+	public long getLong(final int index) {
+		return ids[index];
+	}
+
+	@Override
+	public Long get(final int index) {
+		return ids[index];
+	}
+
+	@Override
+	public boolean contains(final long id) {
+		return Arrays.binarySearch(ids, id) >= 0;
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return o instanceof Long && contains(((Long) o).longValue());
+	}
+
+	/**
+	 * Gets the position of the ID
+	 *
+	 * @param id
+	 *            the ID to search for
+	 * @return the position of the ID, or -1 if the array does not contain the ID
+	 */
+	public int indexOf(final long id) {
+		return Math.max(-1, Arrays.binarySearch(ids, id));
+	}
+
+	/**
+	 * The array is immutable
+	 *
+	 * @param id
+	 *            ignored
+	 * @return never returns
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public boolean add(final long id) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return ids.clone();
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < ids.length;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return ids[index++];
+			}
+		};
+	}
+}
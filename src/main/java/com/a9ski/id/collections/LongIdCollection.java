@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.Collection;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Collection of primitive long IDs. It can be used wherever a <tt>Collection&lt;Long&gt;</tt> of IDs is expected, but the primitive methods avoid
+ * boxing. Primitive collections never contain <tt>null</tt>
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public interface LongIdCollection extends Collection<Long> {
+
+	/**
+	 * Checks if the collection contains the ID
+	 *
+	 * @param id
+	 *            the ID to search for
+	 * @return true if the collection contains the ID
+	 */
+	public boolean contains(long id);
+
+	/**
+	 * Adds an ID to the collection
+	 *
+	 * @param id
+	 *            the ID to be added
+	 * @return true if the collection has been changed
+	 */
+	public boolean add(long id);
+
+	/**
+	 * Returns iterator over the primitive IDs
+	 *
+	 * @return iterator over the primitive IDs
+	 */
+	@Override
+	public PrimitiveIterator.OfLong iterator();
+
+	/**
+	 * Returns the IDs as a new array of primitive longs
+	 *
+	 * @return new array with the IDs
+	 */
+	public default long[] toLongArray() {
+		final long[] array = new long[size()];
+		final PrimitiveIterator.OfLong it = iterator();
+		for (int i = 0; i < array.length; i++) {
+			array[i] = it.nextLong();
+		}
+		return array;
+	}
+
+	/**
+	 * Returns stream of the primitive IDs
+	 *
+	 * @return stream of the primitive IDs
+	 */
+	public default LongStream longStream() {
+		return StreamSupport.longStream(Spliterators.spliterator(iterator(), size(), Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Performs the action for each ID without boxing
+	 *
+	 * @param action
+	 *            the action to be performed
+	 */
+	public default void forEachId(final LongConsumer action) {
+		iterator().forEachRemaining(action);
+	}
+}
@@ -0,0 +1,295 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Growable list of primitive long IDs backed by a <tt>long[]</tt>. The list is not thread safe.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class LongIdList extends AbstractList<Long> implements LongIdCollection, RandomAccess {
+
+	private long[] ids;
+	private int size;
+
+	/**
+	 * Creates an empty list
+	 */
+	public LongIdList() {
+		this(10);
+	}
+
+	/**
+	 * Creates an empty list with given initial capacity
+	 *
+	 * @param capacity
+	 *            the initial capacity
+	 */
+	public LongIdList(final int capacity) {
+		super();
+		ids = new long[capacity];
+	}
+
+	/**
+	 * Creates a list containing the IDs
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return list containing the IDs
+	 */
+	public static LongIdList of(final long... ids) {
+		final LongIdList list = new LongIdList(0);
+		if (ids != null) {
+			list.ids = ids.clone();
+			list.size = ids.length;
+		}
+		return list;
+	}
+
+	/**
+	 * Creates a list containing the non-null IDs from the collection
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return list containing the non-null IDs
+	 */
+	public static LongIdList of(final Collection<Long> ids) {
+		final LongIdList list = new LongIdList(ids != null ? ids.size() : 0);
+		if (ids instanceof LongIdCollection) {
+			((LongIdCollection) ids).forEachId(list::add);
+		} else if (ids != null) {
+			for (final Long id : ids) {
+				if (id != null) {
+					list.add(id.longValue());
+				}
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the ID at given position
+	 *
+	 * @param index
+	 *            the position
+	 * @return the ID at given position
+	 */
+	public long getLong(final int index) {
+		checkIndex(index, size);
+		return ids[index];
+	}
+
+	@Override
+	public Long get(final int index) {
+		return getLong(index);
+	}
+
+	/**
+	 * Replaces the ID at given position
+	 *
+	 * @param index
+	 *            the position
+	 * @param id
+	 *            the new ID
+	 * @return the previous ID
+	 */
+	public long setLong(final int index, final long id) {
+		checkIndex(index, size);
+		final long old = ids[index];
+		ids[index] = id;
+		return old;
+	}
+
+	@Override
+	public Long set(final int index, final Long id) {
+		return setLong(index, id.longValue());
+	}
+
+	@Override
+	public boolean add(final long id) {
+		ensureCapacity(size + 1);
+		ids[size++] = id;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean add(final Long id) {
+		return add(id.longValue());
+	}
+
+	@Override
+	public void add(final int index, final Long id) {
+		checkIndex(index, size + 1);
+		ensureCapacity(size + 1);
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		ids[index] = id.longValue();
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Removes the ID at given position
+	 *
+	 * @param index
+	 *            the position
+	 * @return the removed ID
+	 */
+	public long removeLong(final int index) {
+		checkIndex(index, size);
+		final long old = ids[index];
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		size--;
+		modCount++;
+		return old;
+	}
+
+	@Override
+	public Long remove(final int index) {
+		return removeLong(index);
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		final int index = (o instanceof Long ? indexOf(((Long) o).longValue()) : -1);
+		if (index >= 0) {
+			removeLong(index);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		return removeIf(c::contains);
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		return removeIf(id -> !c.contains(id));
+	}
+
+	@Override
+	public boolean removeIf(final Predicate<? super Long> filter) {
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			if (!filter.test(ids[i])) {
+				ids[n++] = ids[i];
+			}
+		}
+		final boolean changed = n != size;
+		if (changed) {
+			size = n;
+			modCount++;
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		modCount++;
+	}
+
+	@Override
+	public boolean contains(final long id) {
+		return indexOf(id) >= 0;
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return o instanceof Long && contains(((Long) o).longValue());
+	}
+
+	/**
+	 * Gets the first position of the ID
+	 *
+	 * @param id
+	 *            the ID to search for
+	 * @return the first position of the ID, or -1 if the list does not contain the ID
+	 */
+	public int indexOf(final long id) {
+		for (int i = 0; i < size; i++) {
+			if (ids[i] == id) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Sorts the IDs in ascending order
+	 */
+	public void sort() {
+		Arrays.sort(ids, 0, size);
+		modCount++;
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return Arrays.copyOf(ids, size);
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return ids[index++];
+			}
+		};
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > ids.length) {
+			ids = Arrays.copyOf(ids, Math.max(capacity, ids.length + (ids.length >> 1) + 1));
+		}
+	}
+
+	private static void checkIndex(final int index, final int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Immutable sorted set of unique primitive long IDs stored outside of the Java heap
+ * <p>
+ * The IDs are kept in direct buffers (chunks), so hundreds of millions of IDs do not put pressure on the garbage collector. The set is sorted and
+ * deduplicated in place when it is created, so it needs no additional off-heap memory and only a heap buffer of one chunk. The memory must be
+ * released explicitly with {@link #close()}; any access to a closed set throws {@link IllegalStateException}.
+ * <p>
+ * The set is not thread safe while it is being closed, otherwise it can be read concurrently.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class OffHeapLongIdSet extends AbstractSet<Long> implements SortedLongIdCollection, Closeable {
+
+	/**
+	 * Default chunk size in number of IDs (8 MB per chunk)
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	private final int chunkShift;
+	private final int chunkMask;
+	private ByteBuffer[] chunks;
+	private int size;
+
+	/**
+	 * Creates an off-heap set containing all IDs returned by the iterator. The iterator is fully consumed
+	 *
+	 * @param ids
+	 *            iterator over the IDs in any order, possibly with duplicates. Can be null
+	 */
+	public OffHeapLongIdSet(final PrimitiveIterator.OfLong ids) {
+		this(ids, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates an off-heap set containing all IDs returned by the iterator. The iterator is fully consumed
+	 *
+	 * @param ids
+	 *            iterator over the IDs in any order, possibly with duplicates. Can be null
+	 * @param chunkSize
+	 *            the number of IDs per chunk. Must be a power of two
+	 */
+	OffHeapLongIdSet(final PrimitiveIterator.OfLong ids, final int chunkSize) {
+		super();
+		if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1 || chunkSize > (1 << 27)) {
+			throw new IllegalArgumentException("Chunk size must be a power of two not greater than 2^27: " + chunkSize);
+		}
+		chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+		chunkMask = chunkSize - 1;
+		final List<ByteBuffer> allocated = new ArrayList<>();
+		long count = 0;
+		try {
+			if (ids != null) {
+				while (ids.hasNext()) {
+					if (count == Integer.MAX_VALUE) {
+						throw new IllegalArgumentException("Too many IDs, the maximum is " + Integer.MAX_VALUE);
+					}
+					if ((count & chunkMask) == 0) {
+						allocated.add(DirectMemory.allocate(chunkSize << 3));
+					}
+					allocated.get(allocated.size() - 1).putLong((int) (count & chunkMask) << 3, ids.nextLong());
+					count++;
+				}
+			}
+			chunks = allocated.toArray(new ByteBuffer[allocated.size()]);
+			size = (int) count;
+			sort(0, size);
+			size = unique();
+			trim();
+		} catch (final RuntimeException | Error e) {
+			allocated.forEach(DirectMemory::free);
+			chunks = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates an off-heap set containing all IDs from the array
+	 *
+	 * @param ids
+	 *            the IDs in any order, possibly with duplicates. Can be null
+	 * @return off-heap set containing the IDs
+	 */
+	public static OffHeapLongIdSet of(final long... ids) {
+		return new OffHeapLongIdSet(ids != null ? Arrays.stream(ids).iterator() : null);
+	}
+
+	@Override
+	public int size() {
+		checkOpen();
+		return size;
+	}
+
+	/**
+	 * Gets the ID at given position in ascending order
+	 *
+	 * @param index
+	 *            the position
+	 * @return the ID at given position
+	 */
+	public long getLong(final int index) {
+		checkOpen();
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return get(index);
+	}
+
+	@Override
+	public boolean contains(final long id) {
+		checkOpen();
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			final long value = get(mid);
+			if (value < id) {
+				lo = mid + 1;
+			} else if (value > id) {
+				hi = mid - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return o instanceof Long && contains(((Long) o).longValue());
+	}
+
+	/**
+	 * The set is immutable
+	 *
+	 * @param id
+	 *            ignored
+	 * @return never returns
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public boolean add(final long id) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		checkOpen();
+		return new PrimitiveIterator.OfLong() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				checkOpen();
+				return get(index++);
+			}
+		};
+	}
+
+	/**
+	 * Gets the number of off-heap bytes used by the set
+	 *
+	 * @return the number of off-heap bytes used by the set
+	 */
+	public long getOffHeapBytes() {
+		checkOpen();
+		return (long) chunks.length << (chunkShift + 3);
+	}
+
+	/**
+	 * Checks if the off-heap memory has been released
+	 *
+	 * @return true if the set has been closed
+	 */
+	public boolean isClosed() {
+		return chunks == null;
+	}
+
+	/**
+	 * Releases the off-heap memory. Closing already closed set has no effect
+	 */
+	@Override
+	public void close() {
+		final ByteBuffer[] toFree = chunks;
+		chunks = null;
+		if (toFree != null) {
+			for (final ByteBuffer chunk : toFree) {
+				DirectMemory.free(chunk);
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (chunks == null) {
+			throw new IllegalStateException("The off-heap ID set is closed");
+		}
+	}
+
+	private long get(final int index) {
+		return chunks[index >>> chunkShift].getLong((index & chunkMask) << 3);
+	}
+
+	private void set(final int index, final long value) {
+		chunks[index >>> chunkShift].putLong((index & chunkMask) << 3, value);
+	}
+
+	private void swap(final int i, final int j) {
+		final long tmp = get(i);
+		set(i, get(j));
+		set(j, tmp);
+	}
+
+	/**
+	 * Sorts the range [from, to) in place. Ranges bigger than a chunk are partitioned with quick sort (falling back to heap sort on bad pivots),
+	 * ranges up to one chunk are copied and sorted on heap
+	 */
+	private void sort(final int from, final int to) {
+		final long[] buffer = new long[Math.min(to - from, chunkMask + 1)];
+		sort(from, to, buffer, 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, to - from))));
+	}
+
+	private void sort(final int from, final int to, final long[] buffer, final int depth) {
+		int lo = from;
+		int hi = to;
+		int remainingDepth = depth;
+		while (hi - lo > buffer.length) {
+			if (remainingDepth-- == 0) {
+				heapSort(lo, hi);
+				return;
+			}
+			final int p = partition(lo, hi);
+			// recurse into the smaller part, loop over the bigger one
+			if (p + 1 - lo < hi - p - 1) {
+				sort(lo, p + 1, buffer, remainingDepth);
+				lo = p + 1;
+			} else {
+				sort(p + 1, hi, buffer, remainingDepth);
+				hi = p + 1;
+			}
+		}
+		final int length = hi - lo;
+		for (int i = 0; i < length; i++) {
+			buffer[i] = get(lo + i);
+		}
+		Arrays.sort(buffer, 0, length);
+		for (int i = 0; i < length; i++) {
+			set(lo + i, buffer[i]);
+		}
+	}
+
+	/**
+	 * Hoare partition of [lo, hi) around the median of the first, middle and last element
+	 *
+	 * @return index p such that all elements in [lo, p] are less or equal to all elements in [p + 1, hi)
+	 */
+	private int partition(final int lo, final int hi) {
+		final int mid = (lo + hi - 1) >>> 1;
+		if (get(mid) < get(lo)) {
+			swap(mid, lo);
+		}
+		if (get(hi - 1) < get(lo)) {
+			swap(hi - 1, lo);
+		}
+		if (get(hi - 1) < get(mid)) {
+			swap(hi - 1, mid);
+		}
+		final long pivot = get(mid);
+		int i = lo - 1;
+		int j = hi;
+		while (true) {
+			do {
+				i++;
+			} while (get(i) < pivot);
+			do {
+				j--;
+			} while (get(j) > pivot);
+			if (i >= j) {
+				return j;
+			}
+			swap(i, j);
+		}
+	}
+
+	private void heapSort(final int lo, final int hi) {
+		final int n = hi - lo;
+		for (int i = n / 2 - 1; i >= 0; i--) {
+			siftDown(lo, i, n);
+		}
+		for (int end = n - 1; end > 0; end--) {
+			swap(lo, lo + end);
+			siftDown(lo, 0, end);
+		}
+	}
+
+	private void siftDown(final int lo, final int start, final int n) {
+		int root = start;
+		while (2 * root + 1 < n) {
+			int child = 2 * root + 1;
+			if (child + 1 < n && get(lo + child) < get(lo + child + 1)) {
+				child++;
+			}
+			if (get(lo + root) >= get(lo + child)) {
+				return;
+			}
+			swap(lo + root, lo + child);
+			root = child;
+		}
+	}
+
+	/**
+	 * Removes the duplicates of the sorted IDs in place
+	 *
+	 * @return the number of unique IDs
+	 */
+	private int unique() {
+		if (size < 2) {
+			return size;
+		}
+		int n = 1;
+		long last = get(0);
+		for (int i = 1; i < size; i++) {
+			final long value = get(i);
+			if (value != last) {
+				set(n++, value);
+				last = value;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Releases the chunks that are not needed after removing duplicates
+	 */
+	private void trim() {
+		final int needed = (int) (((long) size + chunkMask) >>> chunkShift);
+		if (needed < chunks.length) {
+			for (int i = needed; i < chunks.length; i++) {
+				DirectMemory.free(chunks[i]);
+			}
+			chunks = Arrays.copyOf(chunks, needed);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable sorted list of runs of consecutive 16 bit values. Every run costs 4 bytes, so long sequences of auto-increment IDs are very compact
+ * <p>
+ * Runs are created by {@link IdBitmap#runOptimize()}. Adding or removing a value converts the container to array or bitmap
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class RunContainer extends Container {
+
+	/**
+	 * Pairs of the first value of the run and the run length minus one
+	 */
+	private final char[] runs;
+	private final int cardinality;
+
+	private RunContainer(final char[] runs, final int cardinality) {
+		super();
+		this.runs = runs;
+		this.cardinality = cardinality;
+	}
+
+	/**
+	 * Creates a run container from ascending values
+	 *
+	 * @param values
+	 *            iterator over ascending values without duplicates
+	 * @param numberOfRuns
+	 *            the number of runs formed by the values
+	 * @return run container with the values
+	 */
+	static RunContainer of(final PrimitiveIterator.OfInt values, final int numberOfRuns) {
+		final char[] runs = new char[numberOfRuns * 2];
+		int n = -2;
+		int previous = -2;
+		int cardinality = 0;
+		while (values.hasNext()) {
+			final int value = values.nextInt();
+			if (value == previous + 1) {
+				runs[n + 1]++;
+			} else {
+				n += 2;
+				runs[n] = (char) value;
+			}
+			previous = value;
+			cardinality++;
+		}
+		return new RunContainer(runs, cardinality);
+	}
+
+	/**
+	 * Gets the memory needed for a run container in bytes
+	 *
+	 * @param numberOfRuns
+	 *            the number of runs
+	 * @return the memory needed for a run container in bytes
+	 */
+	static int sizeInBytes(final int numberOfRuns) {
+		return 2 + numberOfRuns * 4;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	boolean contains(final int low) {
+		int from = 0;
+		int to = runs.length / 2 - 1;
+		while (from <= to) {
+			final int mid = (from + to) >>> 1;
+			final int start = runs[mid * 2];
+			if (low < start) {
+				to = mid - 1;
+			} else if (low > start + runs[mid * 2 + 1]) {
+				from = mid + 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	Container add(final int low) {
+		return (contains(low) ? this : toMutable().add(low));
+	}
+
+	@Override
+	Container remove(final int low) {
+		return (contains(low) ? toMutable().remove(low) : this);
+	}
+
+	@Override
+	Container copy() {
+		return this;
+	}
+
+	@Override
+	BitmapContainer toBitmap() {
+		final BitmapContainer bitmap = new BitmapContainer();
+		for (int i = 0; i < runs.length; i += 2) {
+			bitmap.setRange(runs[i], runs[i] + runs[i + 1]);
+		}
+		return bitmap;
+	}
+
+	@Override
+	Container runOptimize() {
+		if (cardinality * 2 < sizeInBytes()) {
+			return toMutable();
+		}
+		return this;
+	}
+
+	@Override
+	int sizeInBytes() {
+		return sizeInBytes(runs.length / 2);
+	}
+
+	@Override
+	PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int run = 0;
+			private int offset = 0;
+
+			@Override
+			public boolean hasNext() {
+				return run < runs.length;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final int value = runs[run] + offset;
+				if (offset++ == runs[run + 1]) {
+					run += 2;
+					offset = 0;
+				}
+				return value;
+			}
+		};
+	}
+
+	@Override
+	void forEach(final long high, final LongConsumer action) {
+		for (int i = 0; i < runs.length; i += 2) {
+			final int last = runs[i] + runs[i + 1];
+			for (int low = runs[i]; low <= last; low++) {
+				action.accept(high | low);
+			}
+		}
+	}
+
+	private Container toMutable() {
+		if (cardinality > MAX_ARRAY_SIZE) {
+			return toBitmap();
+		}
+		final char[] values = new char[Math.max(cardinality, 1)];
+		int n = 0;
+		for (int i = 0; i < runs.length; i += 2) {
+			final int last = runs[i] + runs[i + 1];
+			for (int low = runs[i]; low <= last; low++) {
+				values[n++] = (char) low;
+			}
+		}
+		return new ArrayContainer(values, n);
+	}
+}
@@ -0,0 +1,158 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hi/lo ID generator handing out IDs from blocks allocated by a {@link BlockSource}
+ * <p>
+ * IDs are taken from the current block with a single atomic increment, without locking. Only the block switch is serialized: the caller that
+ * exhausts a block switches to the next one under a lock, and callers arriving meanwhile wait for the switch. When a quarter of the block is left,
+ * the next block is allocated asynchronously, so the switch usually does not wait for the block source.
+ * <p>
+ * IDs from unused blocks (e.g. after a restart) are lost, so the generated IDs are unique and increasing within a block, but not gapless.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class BlockIdGenerator implements IdGenerator {
+
+	private static final Block EMPTY = new Block(0, 0, 0);
+
+	private final BlockSource source;
+	private final int blockSize;
+	private final Executor prefetchExecutor;
+	private volatile Block current = EMPTY;
+	private CompletableFuture<Long> prefetched;
+
+	/**
+	 * Creates a generator prefetching blocks on a single daemon thread shared by all generators
+	 *
+	 * @param source
+	 *            the source of the ID blocks
+	 * @param blockSize
+	 *            the number of IDs in a block
+	 */
+	public BlockIdGenerator(final BlockSource source, final int blockSize) {
+		this(source, blockSize, PrefetchExecutor.INSTANCE);
+	}
+
+	/**
+	 * Creates a generator
+	 *
+	 * @param source
+	 *            the source of the ID blocks
+	 * @param blockSize
+	 *            the number of IDs in a block
+	 * @param prefetchExecutor
+	 *            executor allocating the next block in background
+	 */
+	public BlockIdGenerator(final BlockSource source, final int blockSize, final Executor prefetchExecutor) {
+		super();
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("The block size must be positive: " + blockSize);
+		}
+		this.source = source;
+		this.blockSize = blockSize;
+		this.prefetchExecutor = prefetchExecutor;
+	}
+
+	@Override
+	public long nextId() {
+		while (true) {
+			final Block block = current;
+			final long id = block.next.getAndIncrement();
+			if (id < block.end) {
+				if (id == block.prefetchAt) {
+					prefetch();
+				}
+				return id;
+			}
+			nextBlock(block);
+		}
+	}
+
+	/**
+	 * Gets the block size
+	 *
+	 * @return the block size
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	private synchronized void prefetch() {
+		if (prefetched == null) {
+			prefetched = CompletableFuture.supplyAsync(() -> source.allocate(blockSize), prefetchExecutor);
+		}
+	}
+
+	private synchronized void nextBlock(final Block exhausted) {
+		if (current != exhausted) {
+			// another thread has already switched the block
+			return;
+		}
+		long first;
+		final CompletableFuture<Long> future = prefetched;
+		prefetched = null;
+		try {
+			first = (future != null ? future.join() : source.allocate(blockSize));
+		} catch (final CompletionException ex) {
+			// the prefetch failed, try again synchronously
+			first = source.allocate(blockSize);
+		}
+		if (first <= 0) {
+			throw new IllegalStateException("The block source returned non-positive ID: " + first);
+		}
+		current = new Block(first, first + blockSize, first + blockSize - Math.max(1, blockSize / 4));
+	}
+
+	/**
+	 * Lazily started daemon thread prefetching the blocks of all generators created without an explicit executor
+	 */
+	private static final class PrefetchExecutor {
+		private static final Executor INSTANCE = Executors.newSingleThreadExecutor(r -> {
+			final Thread thread = new Thread(r, "id-block-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Block of IDs from <tt>first</tt> (inclusive) to <tt>end</tt> (exclusive)
+	 */
+	private static final class Block {
+		private final long end;
+		private final long prefetchAt;
+		private final AtomicLong next;
+
+		private Block(final long first, final long end, final long prefetchAt) {
+			super();
+			this.end = end;
+			this.prefetchAt = prefetchAt;
+			this.next = new AtomicLong(first);
+		}
+	}
+}
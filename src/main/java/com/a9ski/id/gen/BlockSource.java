@@ -0,0 +1,41 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+/**
+ * Source of ID blocks for {@link BlockIdGenerator}, usually backed by a database sequence or a counter table
+ * <p>
+ * With a hi/lo sequence, the implementation reads the next <tt>hi</tt> value and returns <tt>hi * size + 1</tt>. Implementations must be thread
+ * safe and must never return overlapping blocks.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public interface BlockSource {
+
+	/**
+	 * Allocates a block of consecutive IDs
+	 *
+	 * @param size
+	 *            the number of IDs in the block
+	 * @return the first ID of the block. The block contains the IDs from the first ID up to <tt>first + size - 1</tt>. It must be positive
+	 */
+	public long allocate(int size);
+}
@@ -0,0 +1,62 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+import java.util.Collection;
+
+import com.a9ski.id.MutableIdentifiable;
+
+/**
+ * Generator of unique positive IDs. Implementations are thread safe and never return 0, which marks new objects (see
+ * {@link com.a9ski.id.Identifiable#isNew()})
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public interface IdGenerator {
+
+	/**
+	 * Generates a new unique ID
+	 *
+	 * @return new unique ID
+	 */
+	public long nextId();
+
+	/**
+	 * Assigns new IDs to the new objects (objects whose {@link MutableIdentifiable#isNew()} returns true). Existing objects and null elements are
+	 * not changed
+	 *
+	 * @param objects
+	 *            the objects. Can be null
+	 * @return the number of objects that got a new ID
+	 */
+	public default int assignIds(final Collection<? extends MutableIdentifiable> objects) {
+		int assigned = 0;
+		if (objects != null) {
+			for (final MutableIdentifiable o : objects) {
+				if (o != null && o.isNew()) {
+					o.setId(nextId());
+					assigned++;
+				}
+			}
+		}
+		return assigned;
+	}
+}
@@ -0,0 +1,71 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Block source keeping the next free ID in memory. Useful in tests and for single process applications
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class InMemoryBlockSource implements BlockSource {
+
+	private final AtomicLong next;
+	private final AtomicInteger allocations = new AtomicInteger();
+
+	/**
+	 * Creates a block source starting at ID 1
+	 */
+	public InMemoryBlockSource() {
+		this(1);
+	}
+
+	/**
+	 * Creates a block source starting at the given ID
+	 *
+	 * @param first
+	 *            the first ID
+	 */
+	public InMemoryBlockSource(final long first) {
+		super();
+		if (first <= 0) {
+			throw new IllegalArgumentException("The first ID must be positive: " + first);
+		}
+		this.next = new AtomicLong(first);
+	}
+
+	@Override
+	public long allocate(final int size) {
+		allocations.incrementAndGet();
+		return next.getAndAdd(size);
+	}
+
+	/**
+	 * Gets the number of allocated blocks
+	 *
+	 * @return the number of allocated blocks
+	 */
+	public int getAllocationCount() {
+		return allocations.get();
+	}
+}
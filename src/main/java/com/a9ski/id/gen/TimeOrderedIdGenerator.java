@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.a9ski.id.clock.AuditClock;
+
+/**
+ * Snowflake-style generator of time ordered IDs, unique across nodes without coordination
+ * <p>
+ * Every ID consists of a timestamp, the node ID and a sequence number (see {@link TimeOrderedIdLayout}). The IDs of a node are strictly increasing
+ * and the IDs of all nodes are roughly ordered by time, so database index inserts stay append-friendly. The generator is lock-free: the last ID is
+ * kept in a single {@link AtomicLong} and the next one is published with compare-and-set.
+ * <p>
+ * If the clock goes back, the generator keeps using the last timestamp (a logical clock) until the clock catches up. When the sequence of a
+ * millisecond is exhausted, the generator borrows the next millisecond instead of waiting. The generated IDs are always positive, so 0 is never
+ * returned.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+	private final TimeOrderedIdLayout layout;
+	private final long nodeId;
+	private final Clock clock;
+	private final AtomicLong last = new AtomicLong();
+
+	/**
+	 * Creates a generator with the default layout, using the {@link AuditClock} clock
+	 *
+	 * @param nodeId
+	 *            the ID of this node, unique among the nodes generating IDs
+	 */
+	public TimeOrderedIdGenerator(final long nodeId) {
+		this(nodeId, TimeOrderedIdLayout.DEFAULT, AuditClock.getClock());
+	}
+
+	/**
+	 * Creates a generator
+	 *
+	 * @param nodeId
+	 *            the ID of this node, unique among the nodes generating IDs
+	 * @param layout
+	 *            the bit layout of the IDs
+	 * @param clock
+	 *            the clock providing the timestamps
+	 */
+	public TimeOrderedIdGenerator(final long nodeId, final TimeOrderedIdLayout layout, final Clock clock) {
+		super();
+		if (nodeId < 0 || nodeId > layout.getMaxNodeId()) {
+			throw new IllegalArgumentException(String.format("The node ID must be between 0 and %d: %d", layout.getMaxNodeId(), nodeId));
+		}
+		this.layout = layout;
+		this.nodeId = nodeId;
+		this.clock = clock;
+	}
+
+	@Override
+	public long nextId() {
+		while (true) {
+			final long previous = last.get();
+			final long previousTime = previous >>> (layout.getNodeBits() + layout.getSequenceBits());
+			final long now = clock.millis() - layout.getEpoch();
+			long time;
+			long sequence;
+			if (now > previousTime) {
+				time = now;
+				sequence = 0;
+			} else {
+				// same millisecond or the clock went back
+				time = previousTime;
+				sequence = layout.getSequence(previous) + 1;
+				if (sequence > layout.getMaxSequence()) {
+					time++;
+					sequence = 0;
+				}
+			}
+			if (time > layout.getMaxTimestamp()) {
+				throw new IllegalStateException("The timestamp bits of the layout are exhausted");
+			}
+			long id = layout.compose(time, nodeId, sequence);
+			if (id == 0) {
+				// 0 marks new objects
+				id = layout.compose(time, nodeId, 1);
+			}
+			if (last.compareAndSet(previous, id)) {
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * Gets the layout of the generated IDs. It can be used to decode the IDs
+	 *
+	 * @return the layout of the generated IDs
+	 */
+	public TimeOrderedIdLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Gets the ID of this node
+	 *
+	 * @return the ID of this node
+	 */
+	public long getNodeId() {
+		return nodeId;
+	}
+}
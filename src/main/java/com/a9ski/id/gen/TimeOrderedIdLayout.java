@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+/**
+ * Bit layout of the IDs generated by {@link TimeOrderedIdGenerator}: <tt>timestamp | node ID | sequence</tt>
+ * <p>
+ * The timestamp is the number of milliseconds since a custom epoch. The sign bit is never used, so the IDs are positive. The layout also decodes
+ * the IDs, e.g. {@link #minIdAt(long)} and {@link #maxIdAt(long)} turn a time range into an ID range for range queries.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class TimeOrderedIdLayout {
+
+	/**
+	 * The default epoch: 2017-01-01T00:00:00Z
+	 */
+	public static final long DEFAULT_EPOCH = 1483228800000L;
+
+	/**
+	 * The default layout: 41 timestamp bits (about 69 years), 10 node ID bits (1024 nodes) and 12 sequence bits (4096 IDs per millisecond)
+	 */
+	public static final TimeOrderedIdLayout DEFAULT = new TimeOrderedIdLayout(DEFAULT_EPOCH, 41, 10, 12);
+
+	private final long epoch;
+	private final int timestampBits;
+	private final int nodeBits;
+	private final int sequenceBits;
+
+	/**
+	 * Creates a new layout
+	 *
+	 * @param epoch
+	 *            the epoch in milliseconds since 1970-01-01T00:00:00Z
+	 * @param timestampBits
+	 *            number of timestamp bits
+	 * @param nodeBits
+	 *            number of node ID bits
+	 * @param sequenceBits
+	 *            number of sequence bits
+	 */
+	public TimeOrderedIdLayout(final long epoch, final int timestampBits, final int nodeBits, final int sequenceBits) {
+		super();
+		if (timestampBits <= 0 || nodeBits < 0 || sequenceBits <= 0 || timestampBits + nodeBits + sequenceBits > 63) {
+			throw new IllegalArgumentException(String.format("Invalid layout: %d timestamp bits, %d node bits, %d sequence bits (at most 63 in total)",
+					timestampBits, nodeBits, sequenceBits));
+		}
+		this.epoch = epoch;
+		this.timestampBits = timestampBits;
+		this.nodeBits = nodeBits;
+		this.sequenceBits = sequenceBits;
+	}
+
+	/**
+	 * Gets the epoch in milliseconds since 1970-01-01T00:00:00Z
+	 *
+	 * @return the epoch in milliseconds since 1970-01-01T00:00:00Z
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Gets the number of timestamp bits
+	 *
+	 * @return the number of timestamp bits
+	 */
+	public int getTimestampBits() {
+		return timestampBits;
+	}
+
+	/**
+	 * Gets the number of node ID bits
+	 *
+	 * @return the number of node ID bits
+	 */
+	public int getNodeBits() {
+		return nodeBits;
+	}
+
+	/**
+	 * Gets the number of sequence bits
+	 *
+	 * @return the number of sequence bits
+	 */
+	public int getSequenceBits() {
+		return sequenceBits;
+	}
+
+	/**
+	 * Gets the maximal node ID
+	 *
+	 * @return the maximal node ID
+	 */
+	public long getMaxNodeId() {
+		return (1L << nodeBits) - 1;
+	}
+
+	/**
+	 * Gets the maximal sequence number within a millisecond
+	 *
+	 * @return the maximal sequence number within a millisecond
+	 */
+	public long getMaxSequence() {
+		return (1L << sequenceBits) - 1;
+	}
+
+	/**
+	 * Gets the maximal timestamp, relative to the epoch
+	 *
+	 * @return the maximal timestamp, relative to the epoch
+	 */
+	public long getMaxTimestamp() {
+		return (1L << timestampBits) - 1;
+	}
+
+	/**
+	 * Composes an ID
+	 *
+	 * @param timestamp
+	 *            milliseconds since the epoch
+	 * @param nodeId
+	 *            the node ID
+	 * @param sequence
+	 *            the sequence number
+	 * @return the ID
+	 */
+	long compose(final long timestamp, final long nodeId, final long sequence) {
+		return (timestamp << (nodeBits + sequenceBits)) | (nodeId << sequenceBits) | sequence;
+	}
+
+	/**
+	 * Gets the generation time of the ID
+	 *
+	 * @param id
+	 *            the ID
+	 * @return the generation time in milliseconds since 1970-01-01T00:00:00Z
+	 */
+	public long getTimestamp(final long id) {
+		return (id >>> (nodeBits + sequenceBits)) + epoch;
+	}
+
+	/**
+	 * Gets the ID of the node that generated the ID
+	 *
+	 * @param id
+	 *            the ID
+	 * @return the node ID
+	 */
+	public long getNodeId(final long id) {
+		return (id >>> sequenceBits) & getMaxNodeId();
+	}
+
+	/**
+	 * Gets the sequence number of the ID
+	 *
+	 * @param id
+	 *            the ID
+	 * @return the sequence number
+	 */
+	public long getSequence(final long id) {
+		return id & getMaxSequence();
+	}
+
+	/**
+	 * Gets the smallest ID that can be generated at the given time
+	 *
+	 * @param time
+	 *            milliseconds since 1970-01-01T00:00:00Z
+	 * @return the smallest ID that can be generated at the given time
+	 */
+	public long minIdAt(final long time) {
+		return compose(Math.max(time - epoch, 0), 0, 0);
+	}
+
+	/**
+	 * Gets the biggest ID that can be generated at the given time
+	 *
+	 * @param time
+	 *            milliseconds since 1970-01-01T00:00:00Z
+	 * @return the biggest ID that can be generated at the given time
+	 */
+	public long maxIdAt(final long time) {
+		return compose(Math.max(time - epoch, 0), getMaxNodeId(), getMaxSequence());
+	}
+}
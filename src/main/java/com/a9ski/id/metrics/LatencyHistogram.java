@@ -0,0 +1,144 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe histogram of latencies in nanoseconds
+ * <p>
+ * The latencies are counted in buckets by powers of two, so recording is a few atomic increments and the percentiles are accurate within a factor
+ * of two. Bucket <tt>i</tt> counts the latencies in the range [2<sup>i-1</sup>, 2<sup>i</sup>), bucket 0 counts the zero latencies.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of buckets
+	 */
+	public static final int BUCKET_COUNT = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds. Negative latencies are recorded as 0
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(0L, nanos);
+		buckets.incrementAndGet(bucket(value));
+		count.increment();
+		total.add(value);
+		if (value > max.get()) {
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	private static int bucket(final long nanos) {
+		return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/**
+	 * Gets the number of recorded latencies
+	 *
+	 * @return the number of recorded latencies
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Gets the sum of the recorded latencies in nanoseconds
+	 *
+	 * @return the sum of the recorded latencies in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return total.sum();
+	}
+
+	/**
+	 * Gets the maximal recorded latency in nanoseconds
+	 *
+	 * @return the maximal recorded latency in nanoseconds, or 0 if no latency has been recorded
+	 */
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of the recorded latencies in nanoseconds
+	 *
+	 * @return the mean of the recorded latencies in nanoseconds, or 0 if no latency has been recorded
+	 */
+	public double getMeanNanos() {
+		final long n = getCount();
+		return (n > 0 ? (double) getTotalNanos() / n : 0);
+	}
+
+	/**
+	 * Gets the upper bound of the bucket containing the given percentile
+	 *
+	 * @param percentile
+	 *            the percentile, between 0 and 100
+	 * @return the upper bound of the percentile in nanoseconds (at most the maximal latency), or 0 if no latency has been recorded
+	 */
+	public long getPercentileNanos(final double percentile) {
+		final long[] counts = getBucketCounts();
+		long n = 0;
+		for (final long c : counts) {
+			n += c;
+		}
+		if (n == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				final long upper = (i == 0 ? 0 : (i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1));
+				return Math.min(upper, getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Gets a copy of the bucket counts (see {@link LatencyHistogram})
+	 *
+	 * @return a copy of the bucket counts
+	 */
+	public long[] getBucketCounts() {
+		final long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return counts;
+	}
+}
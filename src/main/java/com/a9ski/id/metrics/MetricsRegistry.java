@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics of the monitored operations: counters of operations, input and output elements and strategies, and latency histograms
+ * <p>
+ * The registry is an {@link OperationListener}; it starts collecting when added to the {@link OperationMonitor}, e.g.
+ * <code>OperationMonitor.addListener(new MetricsRegistry())</code>. The getters can be called at any time, e.g. by an exporter.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class MetricsRegistry implements OperationListener {
+
+	private final Map<OperationType, OperationMetrics> metrics = new EnumMap<>(OperationType.class);
+
+	/**
+	 * Creates an empty registry
+	 */
+	public MetricsRegistry() {
+		super();
+		for (final OperationType type : OperationType.values()) {
+			metrics.put(type, new OperationMetrics());
+		}
+	}
+
+	@Override
+	public void operationCompleted(final OperationType type, final String strategy, final int inputSize, final int outputSize,
+			final long durationNanos) {
+		final OperationMetrics m = metrics.get(type);
+		m.inputs.add(inputSize);
+		m.outputs.add(outputSize);
+		m.latency.record(durationNanos);
+		if (strategy != null) {
+			m.strategies.computeIfAbsent(strategy, s -> new LongAdder()).increment();
+		}
+	}
+
+	/**
+	 * Gets the number of completed operations of the given type
+	 *
+	 * @param type
+	 *            the type of operations
+	 * @return the number of completed operations
+	 */
+	public long getCount(final OperationType type) {
+		return metrics.get(type).latency.getCount();
+	}
+
+	/**
+	 * Gets the total number of input elements of the operations of the given type
+	 *
+	 * @param type
+	 *            the type of operations
+	 * @return the total number of input elements
+	 */
+	public long getInputCount(final OperationType type) {
+		return metrics.get(type).inputs.sum();
+	}
+
+	/**
+	 * Gets the total number of output elements of the operations of the given type
+	 *
+	 * @param type
+	 *            the type of operations
+	 * @return the total number of output elements
+	 */
+	public long getOutputCount(final OperationType type) {
+		return metrics.get(type).outputs.sum();
+	}
+
+	/**
+	 * Gets the latency histogram of the operations of the given type
+	 *
+	 * @param type
+	 *            the type of operations
+	 * @return the latency histogram
+	 */
+	public LatencyHistogram getLatency(final OperationType type) {
+		return metrics.get(type).latency;
+	}
+
+	/**
+	 * Gets how many times each strategy has been chosen by the operations of the given type
+	 *
+	 * @param type
+	 *            the type of operations
+	 * @return sorted map from strategy to the number of operations that have chosen it
+	 */
+	public Map<String, Long> getStrategyCounts(final OperationType type) {
+		final Map<String, Long> counts = new TreeMap<>();
+		metrics.get(type).strategies.forEach((strategy, count) -> counts.put(strategy, count.sum()));
+		return Collections.unmodifiableMap(counts);
+	}
+
+	private static class OperationMetrics {
+		private final LongAdder inputs = new LongAdder();
+		private final LongAdder outputs = new LongAdder();
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final Map<String, LongAdder> strategies = new ConcurrentHashMap<>();
+	}
+}
@@ -0,0 +1,50 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+/**
+ * Receives the completed operations from {@link OperationMonitor}
+ * <p>
+ * Listeners are either added with {@link OperationMonitor#addListener(OperationListener)}, or discovered with {@link java.util.ServiceLoader}
+ * when {@link OperationMonitor} is initialized. Listeners are called on the thread performing the operation, so they must be fast and thread
+ * safe.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+@FunctionalInterface
+public interface OperationListener {
+
+	/**
+	 * Called when an operation is completed
+	 *
+	 * @param type
+	 *            the type of the operation
+	 * @param strategy
+	 *            the strategy chosen by the operation (e.g. <tt>linear</tt> or <tt>hash</tt> lookup)
+	 * @param inputSize
+	 *            the total number of elements (objects and IDs) of the inputs
+	 * @param outputSize
+	 *            the number of elements of the result
+	 * @param durationNanos
+	 *            the duration of the operation in nanoseconds
+	 */
+	void operationCompleted(OperationType type, String strategy, int inputSize, int outputSize, long durationNanos);
+}
@@ -0,0 +1,148 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Reports the delta and bulk operations to the registered {@link OperationListener}s
+ * <p>
+ * The instrumented operations call {@link #start()} before and {@link #completed(OperationType, long, String, int, int)} after their work. When no
+ * listener is registered, both calls only read a volatile field, so the monitoring is practically free. Listeners registered as services of
+ * {@link OperationListener} are added when the class is initialized; services that cannot be loaded (e.g. they need a newer JVM) are skipped.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public final class OperationMonitor {
+
+	private static final OperationListener[] NO_LISTENERS = new OperationListener[0];
+
+	private static volatile OperationListener[] listeners = loadListeners();
+
+	private OperationMonitor() {
+		super();
+	}
+
+	private static OperationListener[] loadListeners() {
+		OperationListener[] loaded = NO_LISTENERS;
+		final Iterator<OperationListener> it = ServiceLoader.load(OperationListener.class, OperationMonitor.class.getClassLoader()).iterator();
+		while (true) {
+			try {
+				if (!it.hasNext()) {
+					break;
+				}
+				loaded = append(loaded, it.next());
+			} catch (final ServiceConfigurationError | LinkageError ex) { // NOSONAR
+				// the listener is not supported by this JVM
+			}
+		}
+		return loaded;
+	}
+
+	private static OperationListener[] append(final OperationListener[] array, final OperationListener listener) {
+		final OperationListener[] result = Arrays.copyOf(array, array.length + 1);
+		result[array.length] = listener;
+		return result;
+	}
+
+	/**
+	 * Adds a listener
+	 *
+	 * @param listener
+	 *            the listener
+	 */
+	public static synchronized void addListener(final OperationListener listener) {
+		if (listener != null) {
+			listeners = append(listeners, listener);
+		}
+	}
+
+	/**
+	 * Removes a listener
+	 *
+	 * @param listener
+	 *            the listener
+	 * @return true if the listener has been removed
+	 */
+	public static synchronized boolean removeListener(final OperationListener listener) {
+		final OperationListener[] current = listeners;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == listener) {
+				final OperationListener[] result = new OperationListener[current.length - 1];
+				System.arraycopy(current, 0, result, 0, i);
+				System.arraycopy(current, i + 1, result, i, result.length - i);
+				listeners = result;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if there are registered listeners
+	 *
+	 * @return true if there are registered listeners
+	 */
+	public static boolean isEnabled() {
+		return listeners.length > 0;
+	}
+
+	/**
+	 * Marks the start of an operation
+	 *
+	 * @return the start time in nanoseconds, or 0 if there are no registered listeners
+	 */
+	public static long start() {
+		return (listeners.length > 0 ? System.nanoTime() : 0L);
+	}
+
+	/**
+	 * Reports a completed operation to the listeners. Exceptions thrown by the listeners are ignored, so they cannot break the operation
+	 *
+	 * @param type
+	 *            the type of the operation
+	 * @param start
+	 *            the start time returned by {@link #start()}. If 0, the operation is not reported
+	 * @param strategy
+	 *            the strategy chosen by the operation
+	 * @param inputSize
+	 *            the total number of elements of the inputs
+	 * @param outputSize
+	 *            the number of elements of the result
+	 */
+	public static void completed(final OperationType type, final long start, final String strategy, final int inputSize, final int outputSize) {
+		final OperationListener[] current = listeners;
+		if (start == 0L || current.length == 0) {
+			return;
+		}
+		final long duration = System.nanoTime() - start;
+		for (final OperationListener listener : current) {
+			try {
+				listener.operationCompleted(type, strategy, inputSize, outputSize, duration);
+			} catch (final RuntimeException ex) { // NOSONAR
+				// monitoring must not break the operation
+			}
+		}
+	}
+}
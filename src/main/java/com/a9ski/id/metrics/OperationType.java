@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+/**
+ * Types of the monitored operations (see {@link OperationMonitor})
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public enum OperationType {
+	/**
+	 * Construction of {@link com.a9ski.utils.IdDelta} from collections of IDs: the IDs are sorted and duplicates are removed. The output size is
+	 * the number of unique IDs. The delta itself is calculated on first access and reported as {@link #ID_DELTA_RESULT}
+	 */
+	ID_DELTA,
+	/**
+	 * Calculation of the removed, added or intersection IDs of {@link com.a9ski.utils.IdDelta}, reported every time a result is calculated. The
+	 * input size is the number of unique old and new IDs, the output size is the number of IDs of the result
+	 */
+	ID_DELTA_RESULT,
+	/**
+	 * Construction of {@link com.a9ski.utils.IdentifiableDelta}, including the pairing of the objects
+	 */
+	IDENTIFIABLE_DELTA,
+	/**
+	 * {@link com.a9ski.utils.IdentifiableUtils#getByIds(java.util.Collection, java.util.Collection)}
+	 */
+	GET_BY_IDS,
+	/**
+	 * {@link com.a9ski.utils.IdentifiableUtils#removeByIds(java.util.Collection, java.util.Collection)} and
+	 * {@link com.a9ski.utils.IdentifiableUtils#removeByIds(java.util.Collection, long...)}
+	 */
+	REMOVE_BY_IDS,
+	/**
+	 * {@link com.a9ski.utils.IdentifiableUtils#mapByIds(java.util.Collection)}
+	 */
+	MAP_BY_IDS,
+	/**
+	 * {@link com.a9ski.utils.IdentifiableUtils#reorderByIds(java.util.Collection, long[])}
+	 */
+	REORDER_BY_IDS
+}
@@ -0,0 +1,82 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.Collection;
+import java.util.Date;
+
+import com.a9ski.id.MutableAuditable;
+import com.a9ski.id.clock.AuditClock;
+
+/**
+ * Utility methods for auditable objects
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class AuditableUtils {
+
+	protected AuditableUtils() {
+		super();
+	}
+
+	/**
+	 * Touches all objects with a single time stamp read once from {@link AuditClock}. See {@link MutableAuditable#touch(long, long)}
+	 * <p>
+	 * The whole batch has a consistent time stamp, but every object gets its own {@link Date} instance
+	 *
+	 * @param objects
+	 *            the objects to be touched. Can be null. Null objects are skipped
+	 * @param editorId
+	 *            the user id who performed last modification of the objects
+	 * @return the time stamp set to the objects
+	 */
+	public static Date touchAll(final Collection<? extends MutableAuditable> objects, final long editorId) {
+		final long millis = AuditClock.millis();
+		touchAll(objects, editorId, millis);
+		return new Date(millis);
+	}
+
+	/**
+	 * Touches all objects with the provided time stamp. See {@link MutableAuditable#touch(long, long)}
+	 * <p>
+	 * The time stamp is copied, every object gets its own {@link Date} instance
+	 *
+	 * @param objects
+	 *            the objects to be touched. Can be null. Null objects are skipped
+	 * @param editorId
+	 *            the user id who performed last modification of the objects
+	 * @param now
+	 *            the modification time stamp
+	 */
+	public static void touchAll(final Collection<? extends MutableAuditable> objects, final long editorId, final Date now) {
+		touchAll(objects, editorId, now.getTime());
+	}
+
+	private static void touchAll(final Collection<? extends MutableAuditable> objects, final long editorId, final long millis) {
+		if (objects != null) {
+			for (final MutableAuditable o : objects) {
+				if (o != null) {
+					o.touch(editorId, millis);
+				}
+			}
+		}
+	}
+}
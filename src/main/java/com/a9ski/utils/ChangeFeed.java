@@ -0,0 +1,188 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import com.a9ski.id.Auditable;
+import com.a9ski.id.Deletable;
+import com.a9ski.id.Identifiable;
+
+/**
+ * Incremental change feed over auditable entities
+ * <p>
+ * The feed keeps a watermark, which is the change time stamp and the ID of the newest entity emitted so far. The change time stamp of an entity
+ * is {@link Auditable#getEdited()}, or {@link Auditable#getCreated()} if the entity has never been edited. Entities are ordered by change time
+ * stamp and ties are broken by ID, so entities changed in the same millisecond are neither lost nor emitted twice. {@link #poll(Collection)} emits
+ * only the entities after the watermark and then advances it, so the callers process only the changes since the previous poll.
+ * <p>
+ * Entities without time stamps cannot be ordered and are ignored. The feed is thread safe.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <E>
+ *            the type of entities
+ */
+public class ChangeFeed<E extends Identifiable & Auditable> {
+
+	private long watermarkTime;
+	private long watermarkId;
+
+	/**
+	 * Creates a new feed that emits all entities on the first poll
+	 */
+	public ChangeFeed() {
+		this(Long.MIN_VALUE, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Creates a new feed resuming from a stored watermark
+	 *
+	 * @param watermarkTime
+	 *            the change time stamp (in milliseconds) of the newest entity already processed
+	 * @param watermarkId
+	 *            the ID of the newest entity already processed
+	 */
+	public ChangeFeed(final long watermarkTime, final long watermarkId) {
+		super();
+		this.watermarkTime = watermarkTime;
+		this.watermarkId = watermarkId;
+	}
+
+	/**
+	 * Emits the entities from the batch that have changed after the watermark and advances the watermark to the newest of them
+	 *
+	 * @param batch
+	 *            the current entities (or only the recently changed ones). Can be null
+	 * @return the created, updated and deleted entities, ordered by change time stamp and ID
+	 */
+	public synchronized Changes<E> poll(final Collection<? extends E> batch) {
+		final List<E> changed = new ArrayList<>();
+		if (batch != null) {
+			for (final E e : batch) {
+				if (e != null && isAfter(changeTime(e), e.getId(), watermarkTime, watermarkId)) {
+					changed.add(e);
+				}
+			}
+		}
+		changed.sort(Comparator.<E> comparingLong(ChangeFeed::changeTime).thenComparingLong(Identifiable::getId));
+
+		final Changes<E> changes = new Changes<>();
+		for (final E e : changed) {
+			final Date created = e.getCreated();
+			if (e instanceof Deletable && ((Deletable) e).isDeleted()) {
+				changes.deleted.add(e);
+			} else if (created != null && isAfter(created.getTime(), e.getId(), watermarkTime, watermarkId)) {
+				changes.created.add(e);
+			} else {
+				changes.updated.add(e);
+			}
+		}
+		if (!changed.isEmpty()) {
+			final E newest = changed.get(changed.size() - 1);
+			watermarkTime = changeTime(newest);
+			watermarkId = newest.getId();
+		}
+		return changes;
+	}
+
+	/**
+	 * Gets the change time stamp (in milliseconds) of the newest entity emitted so far
+	 *
+	 * @return the change time stamp of the newest entity emitted so far, or {@link Long#MIN_VALUE} if nothing has been emitted
+	 */
+	public synchronized long getWatermarkTime() {
+		return watermarkTime;
+	}
+
+	/**
+	 * Gets the ID of the newest entity emitted so far
+	 *
+	 * @return the ID of the newest entity emitted so far, or {@link Long#MIN_VALUE} if nothing has been emitted
+	 */
+	public synchronized long getWatermarkId() {
+		return watermarkId;
+	}
+
+	private static long changeTime(final Auditable e) {
+		final Date edited = e.getEdited();
+		if (edited != null) {
+			return edited.getTime();
+		}
+		final Date created = e.getCreated();
+		return (created != null ? created.getTime() : Long.MIN_VALUE);
+	}
+
+	private static boolean isAfter(final long time, final long id, final long otherTime, final long otherId) {
+		return time > otherTime || (time == otherTime && id > otherId && time != Long.MIN_VALUE);
+	}
+
+	/**
+	 * Changes emitted by a single poll of {@link ChangeFeed}
+	 *
+	 * @param <E>
+	 *            the type of entities
+	 */
+	public static class Changes<E> {
+		private final List<E> created = new ArrayList<>();
+		private final List<E> updated = new ArrayList<>();
+		private final List<E> deleted = new ArrayList<>();
+
+		/**
+		 * Gets the entities created after the previous poll
+		 *
+		 * @return the entities created after the previous poll
+		 */
+		public List<E> getCreated() {
+			return ExtCollectionUtils.unmodifiableList(created);
+		}
+
+		/**
+		 * Gets the entities created before, but edited after the previous poll
+		 *
+		 * @return the entities created before, but edited after the previous poll
+		 */
+		public List<E> getUpdated() {
+			return ExtCollectionUtils.unmodifiableList(updated);
+		}
+
+		/**
+		 * Gets the {@link Deletable} entities marked as deleted after the previous poll
+		 *
+		 * @return the entities marked as deleted after the previous poll
+		 */
+		public List<E> getDeleted() {
+			return ExtCollectionUtils.unmodifiableList(deleted);
+		}
+
+		/**
+		 * Checks if there are no changes
+		 *
+		 * @return true if there are no changes
+		 */
+		public boolean isEmpty() {
+			return created.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+		}
+	}
+}
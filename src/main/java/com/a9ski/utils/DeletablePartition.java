@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.BitSet;
+import java.util.List;
+
+import com.a9ski.id.Deletable;
+
+/**
+ * Result of {@link DeletableUtils#partition(java.util.Collection)}: the live and the soft deleted objects of a collection, and the positions of
+ * the deleted ones
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <D>
+ *            the type of objects
+ */
+public class DeletablePartition<D extends Deletable> {
+	private final List<D> live;
+	private final List<D> deleted;
+	private final BitSet deletedPositions;
+
+	/**
+	 * Creates a new partition
+	 *
+	 * @param live
+	 *            the objects that are not deleted
+	 * @param deleted
+	 *            the soft deleted objects
+	 * @param deletedPositions
+	 *            the positions of the soft deleted objects in the partitioned collection
+	 */
+	public DeletablePartition(final List<D> live, final List<D> deleted, final BitSet deletedPositions) {
+		super();
+		this.live = live;
+		this.deleted = deleted;
+		this.deletedPositions = deletedPositions;
+	}
+
+	/**
+	 * Gets the objects that are not deleted, in collection order
+	 *
+	 * @return the objects that are not deleted
+	 */
+	public List<D> getLive() {
+		return ExtCollectionUtils.unmodifiableList(live);
+	}
+
+	/**
+	 * Gets the soft deleted objects, in collection order
+	 *
+	 * @return the soft deleted objects
+	 */
+	public List<D> getDeleted() {
+		return ExtCollectionUtils.unmodifiableList(deleted);
+	}
+
+	/**
+	 * Gets the positions of the soft deleted objects in the partitioned collection
+	 *
+	 * @return new bit set with the positions of the soft deleted objects
+	 */
+	public BitSet getDeletedPositions() {
+		return (BitSet) deletedPositions.clone();
+	}
+}
@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import com.a9ski.id.Deletable;
+
+/**
+ * Utility methods for soft deletable objects
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class DeletableUtils {
+
+	protected DeletableUtils() {
+		super();
+	}
+
+	/**
+	 * Splits the collection into live and soft deleted objects in a single pass. Null elements are skipped, but still occupy a position
+	 *
+	 * @param objects
+	 *            the objects. Can be null
+	 * @param <D>
+	 *            the type of objects
+	 * @return the live and soft deleted objects, and the positions of the deleted objects in the collection
+	 */
+	public static <D extends Deletable> DeletablePartition<D> partition(final Collection<? extends D> objects) {
+		final List<D> live = new ArrayList<>();
+		final List<D> deleted = new ArrayList<>();
+		final BitSet deletedPositions = new BitSet();
+		if (objects != null) {
+			int position = 0;
+			for (final D o : objects) {
+				if (o != null) {
+					if (o.isDeleted()) {
+						deleted.add(o);
+						deletedPositions.set(position);
+					} else {
+						live.add(o);
+					}
+				}
+				position++;
+			}
+		}
+		return new DeletablePartition<>(live, deleted, deletedPositions);
+	}
+
+	/**
+	 * Gets the positions of the soft deleted objects in the collection
+	 *
+	 * @param objects
+	 *            the objects. Can be null
+	 * @return new bit set with the positions of the soft deleted objects
+	 */
+	public static BitSet getDeletedPositions(final Collection<? extends Deletable> objects) {
+		final BitSet deletedPositions = new BitSet();
+		if (objects != null) {
+			int position = 0;
+			for (final Deletable o : objects) {
+				if (o != null && o.isDeleted()) {
+					deletedPositions.set(position);
+				}
+				position++;
+			}
+		}
+		return deletedPositions;
+	}
+}
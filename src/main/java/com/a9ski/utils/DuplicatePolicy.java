@@ -0,0 +1,41 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+/**
+ * Defines which object is indexed when several objects share a key (an ID, a login, a name)
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public enum DuplicatePolicy {
+	/**
+	 * The first object with the key is indexed
+	 */
+	FIRST,
+	/**
+	 * The last object with the key is indexed
+	 */
+	LAST,
+	/**
+	 * Duplicate keys are rejected with {@link IllegalArgumentException}
+	 */
+	FAIL
+}
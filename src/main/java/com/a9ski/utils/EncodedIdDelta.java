@@ -0,0 +1,186 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Read-only view over a delta encoded by {@link IdDeltaCodec}
+ * <p>
+ * The view shares the bytes of the buffer it has been read from and decodes the IDs while iterating, so no <tt>List&lt;Long&gt;</tt> is built.
+ * The view and its iterators do not change the position of the buffer, so several iterators can be used at the same time.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class EncodedIdDelta {
+
+	private final ByteBuffer buffer;
+	private final Section removed;
+	private final Section added;
+	private final Section intersection;
+
+	EncodedIdDelta(final ByteBuffer buffer, final Section removed, final Section added, final Section intersection) {
+		super();
+		this.buffer = buffer;
+		this.removed = removed;
+		this.added = added;
+		this.intersection = intersection;
+	}
+
+	/**
+	 * Gets the number of removed IDs
+	 *
+	 * @return the number of removed IDs
+	 */
+	public int getRemovedCount() {
+		return removed.count;
+	}
+
+	/**
+	 * Gets the number of added IDs
+	 *
+	 * @return the number of added IDs
+	 */
+	public int getAddedCount() {
+		return added.count;
+	}
+
+	/**
+	 * Gets the number of IDs present in both old and new IDs
+	 *
+	 * @return the number of IDs present in both old and new IDs
+	 */
+	public int getIntersectionCount() {
+		return intersection.count;
+	}
+
+	/**
+	 * Checks if there is a delta (any newly added ID, or any removed ID)
+	 *
+	 * @return true, if there is a delta (any newly added ID, or any removed ID)
+	 */
+	public boolean hasDelta() {
+		return removed.count > 0 || added.count > 0;
+	}
+
+	/**
+	 * Gets iterator over the removed IDs in ascending order
+	 *
+	 * @return iterator over the removed IDs
+	 */
+	public PrimitiveIterator.OfLong getRemovedIdIterator() {
+		return new IdIterator(buffer, removed);
+	}
+
+	/**
+	 * Gets iterator over the added IDs in ascending order
+	 *
+	 * @return iterator over the added IDs
+	 */
+	public PrimitiveIterator.OfLong getAddedIdIterator() {
+		return new IdIterator(buffer, added);
+	}
+
+	/**
+	 * Gets iterator over the IDs present in both old and new IDs in ascending order
+	 *
+	 * @return iterator over the IDs present in both old and new IDs
+	 */
+	public PrimitiveIterator.OfLong getIntersectionIdIterator() {
+		return new IdIterator(buffer, intersection);
+	}
+
+	/**
+	 * Decodes the delta
+	 *
+	 * @return new delta with the decoded IDs
+	 */
+	public IdDelta toIdDelta() {
+		return new IdDelta(new LongIdDelta(toArray(removed), toArray(added), toArray(intersection)));
+	}
+
+	private long[] toArray(final Section section) {
+		final long[] ids = new long[section.count];
+		final IdIterator it = new IdIterator(buffer, section);
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = it.nextLong();
+		}
+		return ids;
+	}
+
+	static final class Section {
+		final int count;
+		final int start;
+		final int end;
+
+		Section(final int count, final int start, final int end) {
+			super();
+			this.count = count;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	private static final class IdIterator implements PrimitiveIterator.OfLong {
+		private final ByteBuffer buffer;
+		private final Section section;
+		private final int[] pos;
+		private int index;
+		private long previous;
+
+		private IdIterator(final ByteBuffer buffer, final Section section) {
+			super();
+			this.buffer = buffer;
+			this.section = section;
+			this.pos = new int[] { section.start };
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < section.count;
+		}
+
+		@Override
+		public long nextLong() {
+			if (index >= section.count) {
+				throw new NoSuchElementException();
+			}
+			final long value = IdDeltaCodec.readVarint(buffer, pos);
+			if (pos[0] > section.end) {
+				throw new IllegalArgumentException("Corrupted section at position " + section.start);
+			}
+			if (index == 0) {
+				previous = IdDeltaCodec.unzigzag(value);
+			} else {
+				final long next = previous + value;
+				// the IDs are strictly increasing, a zero gap or an overflow means corrupted input
+				if (next <= previous) {
+					throw new IllegalArgumentException("Corrupted section at position " + section.start);
+				}
+				previous = next;
+			}
+			index++;
+			return previous;
+		}
+	}
+}
@@ -0,0 +1,389 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Sorts and deduplicates more IDs than fit in memory using external merge sort
+ * <p>
+ * The IDs are collected in a primitive buffer, which starts small and grows geometrically up to the memory budget, so sorting a few IDs does not
+ * allocate the whole budget (while the buffer grows, the old and the new array briefly coexist). When the buffer is full it is sorted and spilled
+ * to a temporary file (run). {@link #iterator()} merges the runs (in several passes if there are more than {@value #MAX_FAN_IN} of them) and
+ * returns the unique IDs in ascending order. If all IDs fit in the buffer nothing is written to disk. Every open run additionally uses an I/O
+ * buffer of {@value #IO_BUFFER_SIZE} bytes.
+ * <p>
+ * The temporary files are deleted by {@link #close()}. The sorter is not thread safe.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class ExternalIdSorter implements Closeable {
+
+	/**
+	 * Maximal number of runs merged at once
+	 */
+	static final int MAX_FAN_IN = 64;
+
+	/**
+	 * Size of the I/O buffer used for every run
+	 */
+	static final int IO_BUFFER_SIZE = 64 * 1024;
+
+	private static final int MIN_BUFFER_LENGTH = 1024;
+
+	private final Path tempDirectory;
+	private final List<Path> runs = new ArrayList<>();
+	private final List<RunReader> readers = new ArrayList<>();
+	private final int maxBufferLength;
+	private long[] buffer;
+	private int length;
+	private boolean finished;
+
+	/**
+	 * Creates a new sorter
+	 *
+	 * @param memoryBudget
+	 *            the maximal number of bytes used to buffer IDs in memory
+	 * @param tempDirectory
+	 *            the directory for the temporary files. If null the default temporary directory is used
+	 */
+	public ExternalIdSorter(final long memoryBudget, final Path tempDirectory) {
+		super();
+		this.tempDirectory = tempDirectory;
+		this.maxBufferLength = (int) Math.max(MIN_BUFFER_LENGTH, Math.min(Integer.MAX_VALUE - 8, memoryBudget / Long.BYTES));
+		this.buffer = new long[MIN_BUFFER_LENGTH];
+	}
+
+	/**
+	 * Calculates delta of two unsorted sources of IDs that may not fit in memory and reports the IDs to the sink in ascending order.
+	 * <p>
+	 * Each source is sorted with its own sorter using half of the memory budget. The results are the same as the results of {@link IdDelta}
+	 *
+	 * @param oldIds
+	 *            iterator of old IDs in any order. Can be null
+	 * @param newIds
+	 *            iterator of new IDs in any order. Can be null
+	 * @param sink
+	 *            the sink receiving the IDs. Can be null, in which case only the counts are calculated
+	 * @param memoryBudget
+	 *            the maximal number of bytes used to buffer IDs in memory
+	 * @param tempDirectory
+	 *            the directory for the temporary files. If null the default temporary directory is used
+	 * @return the delta counts
+	 * @throws IOException
+	 *             if the temporary files cannot be written or read
+	 */
+	public static StreamingIdDelta delta(final PrimitiveIterator.OfLong oldIds, final PrimitiveIterator.OfLong newIds, final IdDeltaSink sink,
+			final long memoryBudget, final Path tempDirectory) throws IOException {
+		try (final ExternalIdSorter oldSorter = new ExternalIdSorter(memoryBudget / 2, tempDirectory);
+				final ExternalIdSorter newSorter = new ExternalIdSorter(memoryBudget / 2, tempDirectory)) {
+			oldSorter.addAll(oldIds);
+			newSorter.addAll(newIds);
+			try {
+				return new StreamingIdDelta(oldSorter.iterator(), newSorter.iterator(), sink);
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Adds an ID. The buffer is spilled to disk if it is full
+	 *
+	 * @param id
+	 *            the ID to be added
+	 * @throws IOException
+	 *             if the buffer cannot be spilled
+	 */
+	public void add(final long id) throws IOException {
+		if (finished) {
+			throw new IllegalStateException("The IDs have already been sorted");
+		}
+		if (length == buffer.length) {
+			if (length < maxBufferLength) {
+				buffer = Arrays.copyOf(buffer, (int) Math.min(maxBufferLength, 2L * length));
+			} else {
+				spill();
+			}
+		}
+		buffer[length++] = id;
+	}
+
+	/**
+	 * Adds all IDs returned by the iterator
+	 *
+	 * @param ids
+	 *            the IDs to be added. Can be null
+	 * @throws IOException
+	 *             if the buffer cannot be spilled
+	 */
+	public void addAll(final PrimitiveIterator.OfLong ids) throws IOException {
+		if (ids != null) {
+			while (ids.hasNext()) {
+				add(ids.nextLong());
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of runs spilled to disk so far
+	 *
+	 * @return the number of runs spilled to disk
+	 */
+	public int getRunCount() {
+		return runs.size();
+	}
+
+	/**
+	 * Finishes adding IDs and returns the unique IDs in ascending order. I/O errors while iterating are reported as {@link UncheckedIOException}
+	 *
+	 * @return iterator of the unique IDs in ascending order
+	 * @throws IOException
+	 *             if the runs cannot be merged
+	 */
+	public PrimitiveIterator.OfLong iterator() throws IOException {
+		if (finished) {
+			throw new IllegalStateException("The IDs have already been sorted");
+		}
+		finished = true;
+		if (runs.isEmpty()) {
+			Arrays.sort(buffer, 0, length);
+			return new StreamingIdDelta.AscendingIterator(Arrays.stream(buffer, 0, length).iterator(), "sorted");
+		}
+		if (length > 0) {
+			spill();
+		}
+		buffer = null;
+		while (runs.size() > MAX_FAN_IN) {
+			mergePass();
+		}
+		return merge(new ArrayList<>(runs));
+	}
+
+	/**
+	 * Deletes the temporary files
+	 *
+	 * @throws IOException
+	 *             if a temporary file cannot be deleted
+	 */
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		buffer = null;
+		IOException error = null;
+		for (final RunReader reader : readers) {
+			try {
+				reader.close();
+			} catch (final IOException e) {
+				error = e;
+			}
+		}
+		readers.clear();
+		for (final Path run : runs) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (final IOException e) {
+				error = e;
+			}
+		}
+		runs.clear();
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	private void spill() throws IOException {
+		Arrays.sort(buffer, 0, length);
+		final Path run = createRun();
+		try (final DataOutputStream out = openRun(run)) {
+			for (int i = 0; i < length; i++) {
+				if (i == 0 || buffer[i] != buffer[i - 1]) {
+					out.writeLong(buffer[i]);
+				}
+			}
+		}
+		length = 0;
+	}
+
+	/**
+	 * Merges the runs in groups of {@value #MAX_FAN_IN}. A run stays in {@link #runs} until it is merged and deleted, so {@link #close()} deletes
+	 * all remaining files if the pass fails
+	 */
+	private void mergePass() throws IOException {
+		final List<Path> current = new ArrayList<>(runs);
+		for (int from = 0; from < current.size(); from += MAX_FAN_IN) {
+			final List<Path> group = current.subList(from, Math.min(current.size(), from + MAX_FAN_IN));
+			final Path run = createRun();
+			try (final DataOutputStream out = openRun(run)) {
+				final PrimitiveIterator.OfLong merged = merge(group);
+				while (merged.hasNext()) {
+					out.writeLong(merged.nextLong());
+				}
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			} finally {
+				for (final RunReader reader : readers) {
+					reader.close();
+				}
+				readers.clear();
+			}
+			for (final Path p : group) {
+				Files.deleteIfExists(p);
+				runs.remove(p);
+			}
+		}
+	}
+
+	private Path createRun() throws IOException {
+		final Path run = (tempDirectory != null ? Files.createTempFile(tempDirectory, "ids", ".run") : Files.createTempFile("ids", ".run"));
+		runs.add(run);
+		return run;
+	}
+
+	private static DataOutputStream openRun(final Path run) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_SIZE));
+	}
+
+	private PrimitiveIterator.OfLong merge(final List<Path> group) throws IOException {
+		final RunReader[] heap = new RunReader[group.size()];
+		int size = 0;
+		for (final Path run : group) {
+			final RunReader reader = new RunReader(run);
+			readers.add(reader);
+			if (reader.advance()) {
+				heap[size++] = reader;
+			}
+		}
+		return new MergeIterator(heap, size);
+	}
+
+	/**
+	 * Sequential reader of a run
+	 */
+	private static final class RunReader implements Closeable {
+		private final DataInputStream in;
+		private long current;
+
+		private RunReader(final Path run) throws IOException {
+			super();
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), IO_BUFFER_SIZE));
+		}
+
+		private boolean advance() throws IOException {
+			try {
+				current = in.readLong();
+				return true;
+			} catch (final EOFException e) { // NOSONAR
+				return false;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * K-way merge of runs using binary min-heap ordered by the current ID of every run
+	 */
+	private static final class MergeIterator implements PrimitiveIterator.OfLong {
+		private final RunReader[] heap;
+		private int size;
+		private boolean hasLast;
+		private long last;
+
+		private MergeIterator(final RunReader[] heap, final int size) {
+			super();
+			this.heap = heap;
+			this.size = size;
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+			skipDuplicates();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return size > 0;
+		}
+
+		@Override
+		public long nextLong() {
+			if (size == 0) {
+				throw new NoSuchElementException();
+			}
+			last = heap[0].current;
+			hasLast = true;
+			skipDuplicates();
+			return last;
+		}
+
+		private void skipDuplicates() {
+			while (size > 0 && hasLast && heap[0].current == last) {
+				pop();
+			}
+		}
+
+		private void pop() {
+			try {
+				if (!heap[0].advance()) {
+					heap[0] = heap[--size];
+					heap[size] = null;
+				}
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			siftDown(0);
+		}
+
+		private void siftDown(final int start) {
+			int root = start;
+			while (2 * root + 1 < size) {
+				int child = 2 * root + 1;
+				if (child + 1 < size && heap[child + 1].current < heap[child].current) {
+					child++;
+				}
+				if (heap[root].current <= heap[child].current) {
+					return;
+				}
+				final RunReader tmp = heap[root];
+				heap[root] = heap[child];
+				heap[child] = tmp;
+				root = child;
+			}
+		}
+	}
+}
@@ -19,27 +19,48 @@
  */
 package com.a9ski.utils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+
+import org.apache.commons.collections4.CollectionUtils;
+
+import com.a9ski.id.collections.IdBitmap;
+import com.a9ski.id.collections.LongIdCollection;
+import com.a9ski.id.collections.SortedLongIdCollection;
+import com.a9ski.id.metrics.OperationMonitor;
+import com.a9ski.id.metrics.OperationType;
 
 /**
  * Calculates delta between two collection of IDs (old and new ones)
  * <p>
  * Usually this class is used to identified which object have been created, modified or deleted
+ * <p>
+ * The IDs are sorted once when the delta is created. The removed, added and intersection IDs are calculated independently on first access, and
+ * {@link #hasDelta()} stops at the first differing ID, so callers that only check for changes do not pay for the lists.
  *
  * @author Kiril Arabadzhiyski
  *
  */
 public class IdDelta {
 
-	private final List<Long> removedIds;
-	private final List<Long> addedIds;
-	private final List<Long> intersectionIds;
+	private final long[] oldIds;
+	private final long[] newIds;
+	private final LongIdDelta delta;
+	private final IdBitmap oldBitmap;
+	private final IdBitmap newBitmap;
+	private volatile List<Long> removedIds;
+	private volatile List<Long> addedIds;
+	private volatile List<Long> intersectionIds;
+	private volatile long[] removedIdArray;
+	private volatile long[] addedIdArray;
+	private volatile long[] intersectionIdArray;
 
 	/**
 	 * Calculates a new delta of two collection of IDs
+	 * <p>
+	 * {@link com.a9ski.id.collections.LongIdCollection} inputs (e.g. {@link IdentifiableUtils#getIdArray(Collection)}) are read without boxing
 	 *
 	 * @param oldIds
 	 *            collection representing old IDs
@@ -47,12 +68,65 @@ public class IdDelta {
 	 *            collection representing new IDs
 	 */
 	public IdDelta(final Collection<Long> oldIds, final Collection<Long> newIds) {
-		final Set<Long> existingIds = (oldIds != null ? new TreeSet<Long>(oldIds) : new TreeSet<Long>());
-		final Set<Long> memoryIds = (newIds != null ? new TreeSet<Long>(newIds) : new TreeSet<Long>());
+		final long start = OperationMonitor.start();
+		this.oldIds = LongIdDelta.sortedUnique(oldIds);
+		this.newIds = LongIdDelta.sortedUnique(newIds);
+		this.delta = null;
+		this.oldBitmap = null;
+		this.newBitmap = null;
+		final String strategy = (oldIds instanceof SortedLongIdCollection && newIds instanceof SortedLongIdCollection ? "presorted" : "sort");
+		OperationMonitor.completed(OperationType.ID_DELTA, start, strategy, CollectionUtils.size(oldIds) + CollectionUtils.size(newIds),
+				this.oldIds.length + this.newIds.length);
+	}
+
+	/**
+	 * Creates a new delta of two sorted arrays without duplicates. The arrays are not copied
+	 *
+	 * @param oldIds
+	 *            sorted array of old IDs without duplicates
+	 * @param newIds
+	 *            sorted array of new IDs without duplicates
+	 * @param sorted
+	 *            marker parameter distinguishing this constructor
+	 */
+	IdDelta(final long[] oldIds, final long[] newIds, final boolean sorted) {
+		this.oldIds = oldIds;
+		this.newIds = newIds;
+		this.delta = null;
+		this.oldBitmap = null;
+		this.newBitmap = null;
+	}
 
-		removedIds = ExtCollectionUtils.subtract(existingIds, memoryIds);
-		addedIds = ExtCollectionUtils.subtract(memoryIds, existingIds);
-		intersectionIds = ExtCollectionUtils.subtract(existingIds, removedIds);
+	/**
+	 * Creates a new delta from already calculated primitive delta
+	 *
+	 * @param delta
+	 *            the primitive delta
+	 */
+	public IdDelta(final LongIdDelta delta) {
+		this.oldIds = null;
+		this.newIds = null;
+		this.delta = delta;
+		this.oldBitmap = null;
+		this.newBitmap = null;
+	}
+
+	/**
+	 * Creates a new delta of two compressed bitmaps of IDs (e.g. {@link IdentifiableUtils#getIdBitmap(Collection)}). The delta is calculated with
+	 * bitmap operations and is also available as bitmaps (see {@link #getRemovedIdBitmap()}). The bitmaps are not copied and must not be modified
+	 * while the delta is in use
+	 *
+	 * @param oldIds
+	 *            bitmap of old IDs. Null is treated as empty bitmap
+	 * @param newIds
+	 *            bitmap of new IDs. Null is treated as empty bitmap
+	 */
+	public IdDelta(final IdBitmap oldIds, final IdBitmap newIds) {
+		this.oldIds = null;
+		this.newIds = null;
+		this.delta = null;
+		this.oldBitmap = (oldIds != null ? oldIds : new IdBitmap());
+		this.newBitmap = (newIds != null ? newIds : new IdBitmap());
 	}
 
 	/**
@@ -61,7 +135,12 @@ public class IdDelta {
 	 * @return the IDs of the object that have been removed (are present in <tt>oldIds</tt> but missing in the <tt>newIds</tt>
 	 */
 	public List<Long> getRemovedIds() {
-		return ExtCollectionUtils.unmodifiableList(removedIds);
+		List<Long> ids = removedIds;
+		if (ids == null) {
+			ids = (oldBitmap != null ? toList(getRemovedIdBitmap()) : toList(removedIdArray()));
+			removedIds = ids;
+		}
+		return ExtCollectionUtils.unmodifiableList(ids);
 	}
 
 	/**
@@ -70,7 +149,12 @@ public class IdDelta {
 	 * @return the IDs of the object that have been added (are present in <tt>newIds</tt> but missing in the <tt>oldIds</tt>
 	 */
 	public List<Long> getAddedIds() {
-		return ExtCollectionUtils.unmodifiableList(addedIds);
+		List<Long> ids = addedIds;
+		if (ids == null) {
+			ids = (oldBitmap != null ? toList(getAddedIdBitmap()) : toList(addedIdArray()));
+			addedIds = ids;
+		}
+		return ExtCollectionUtils.unmodifiableList(ids);
 	}
 
 	/**
@@ -79,7 +163,12 @@ public class IdDelta {
 	 * @return the IDs of the object that have not been changed (are present in <tt>newIds</tt> and in the <tt>oldIds</tt>
 	 */
 	public List<Long> getIntersectionIds() {
-		return ExtCollectionUtils.unmodifiableList(intersectionIds);
+		List<Long> ids = intersectionIds;
+		if (ids == null) {
+			ids = (oldBitmap != null ? toList(getIntersectionIdBitmap()) : toList(intersectionIdArray()));
+			intersectionIds = ids;
+		}
+		return ExtCollectionUtils.unmodifiableList(ids);
 	}
 
 	/**
@@ -88,6 +177,138 @@ public class IdDelta {
 	 * @return true, if there is a delta (any newly added ID, or any removed ID)
 	 */
 	public boolean hasDelta() {
-		return !removedIds.isEmpty() || !addedIds.isEmpty();
+		if (oldBitmap != null) {
+			return !oldBitmap.equals(newBitmap);
+		}
+		return (delta != null ? delta.hasDelta() : !Arrays.equals(oldIds, newIds));
+	}
+
+	/**
+	 * Gets new bitmap with the IDs of the object that have been removed (are present in <tt>oldIds</tt> but missing in the <tt>newIds</tt>
+	 *
+	 * @return new bitmap with the IDs of the object that have been removed (are present in <tt>oldIds</tt> but missing in the <tt>newIds</tt>
+	 */
+	public IdBitmap getRemovedIdBitmap() {
+		if (oldBitmap != null) {
+			final long start = OperationMonitor.start();
+			return completed(start, "bitmap-and-not", IdBitmap.andNot(oldBitmap, newBitmap));
+		}
+		return IdBitmap.of(removedIdArray());
+	}
+
+	/**
+	 * Gets new bitmap with the IDs of the object that have been added (are present in <tt>newIds</tt> but missing in the <tt>oldIds</tt>
+	 *
+	 * @return new bitmap with the IDs of the object that have been added (are present in <tt>newIds</tt> but missing in the <tt>oldIds</tt>
+	 */
+	public IdBitmap getAddedIdBitmap() {
+		if (oldBitmap != null) {
+			final long start = OperationMonitor.start();
+			return completed(start, "bitmap-and-not", IdBitmap.andNot(newBitmap, oldBitmap));
+		}
+		return IdBitmap.of(addedIdArray());
+	}
+
+	/**
+	 * Gets new bitmap with the IDs of the object that have not been changed (are present in <tt>newIds</tt> and in the <tt>oldIds</tt>
+	 *
+	 * @return new bitmap with the IDs of the object that have not been changed (are present in <tt>newIds</tt> and in the <tt>oldIds</tt>
+	 */
+	public IdBitmap getIntersectionIdBitmap() {
+		if (oldBitmap != null) {
+			final long start = OperationMonitor.start();
+			return completed(start, "bitmap-and", IdBitmap.and(oldBitmap, newBitmap));
+		}
+		return IdBitmap.of(intersectionIdArray());
+	}
+
+	/**
+	 * Gets the removed IDs as sorted array without boxing. The array is calculated on first access
+	 *
+	 * @return shared sorted array of the removed IDs. It must not be modified
+	 */
+	long[] removedIdArray() {
+		long[] ids = removedIdArray;
+		if (ids == null) {
+			if (oldBitmap != null) {
+				ids = getRemovedIdBitmap().toLongArray();
+			} else if (delta != null) {
+				ids = delta.removedIds;
+			} else {
+				final long start = OperationMonitor.start();
+				ids = completed(start, "subtract", LongIdDelta.subtract(oldIds, newIds));
+			}
+			removedIdArray = ids;
+		}
+		return ids;
+	}
+
+	/**
+	 * Gets the added IDs as sorted array without boxing. The array is calculated on first access
+	 *
+	 * @return shared sorted array of the added IDs. It must not be modified
+	 */
+	long[] addedIdArray() {
+		long[] ids = addedIdArray;
+		if (ids == null) {
+			if (oldBitmap != null) {
+				ids = getAddedIdBitmap().toLongArray();
+			} else if (delta != null) {
+				ids = delta.addedIds;
+			} else {
+				final long start = OperationMonitor.start();
+				ids = completed(start, "subtract", LongIdDelta.subtract(newIds, oldIds));
+			}
+			addedIdArray = ids;
+		}
+		return ids;
+	}
+
+	/**
+	 * Gets the intersection IDs as sorted array without boxing. The array is calculated on first access
+	 *
+	 * @return shared sorted array of the intersection IDs. It must not be modified
+	 */
+	long[] intersectionIdArray() {
+		long[] ids = intersectionIdArray;
+		if (ids == null) {
+			if (oldBitmap != null) {
+				ids = getIntersectionIdBitmap().toLongArray();
+			} else if (delta != null) {
+				ids = delta.intersectionIds;
+			} else {
+				final long start = OperationMonitor.start();
+				ids = completed(start, "intersect", LongIdDelta.intersect(oldIds, newIds));
+			}
+			intersectionIdArray = ids;
+		}
+		return ids;
+	}
+
+	/**
+	 * Reports the calculation of removed, added or intersection IDs (see {@link OperationType#ID_DELTA_RESULT})
+	 */
+	private long[] completed(final long start, final String strategy, final long[] result) {
+		OperationMonitor.completed(OperationType.ID_DELTA_RESULT, start, strategy, oldIds.length + newIds.length, result.length);
+		return result;
+	}
+
+	private IdBitmap completed(final long start, final String strategy, final IdBitmap result) {
+		OperationMonitor.completed(OperationType.ID_DELTA_RESULT, start, strategy, oldBitmap.size() + newBitmap.size(), result.size());
+		return result;
+	}
+
+	private static List<Long> toList(final long[] ids) {
+		final List<Long> list = new ArrayList<>(ids.length);
+		for (final long id : ids) {
+			list.add(id);
+		}
+		return list;
+	}
+
+	private static List<Long> toList(final LongIdCollection ids) {
+		final List<Long> list = new ArrayList<>(ids.size());
+		ids.forEachId(list::add);
+		return list;
 	}
 }
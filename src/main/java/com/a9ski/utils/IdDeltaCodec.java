@@ -0,0 +1,236 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format of {@link IdDelta}
+ * <p>
+ * The encoded delta starts with a format version byte, followed by the removed, the added and the intersection IDs. Every section starts with the
+ * number of IDs and the number of bytes of the section, both as unsigned varints. The IDs are sorted; the first ID is written as zigzag varint
+ * and every next ID as unsigned varint of the difference to the previous one. Dense sequences of IDs therefore take a byte per ID.
+ * <p>
+ * {@link #read(ByteBuffer)} returns a view over the encoded bytes, which iterates the IDs without copying the buffer or boxing the IDs.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public final class IdDeltaCodec {
+
+	/**
+	 * The version of the format
+	 */
+	public static final byte VERSION = 1;
+
+	private IdDeltaCodec() {
+		super();
+	}
+
+	/**
+	 * Gets the number of bytes of the encoded delta
+	 *
+	 * @param delta
+	 *            the delta
+	 * @return the number of bytes of the encoded delta
+	 */
+	public static int getEncodedSize(final IdDelta delta) {
+		return new Layout(delta).size;
+	}
+
+	/**
+	 * Encodes the delta into new array
+	 *
+	 * @param delta
+	 *            the delta
+	 * @return the encoded delta
+	 */
+	public static byte[] encode(final IdDelta delta) {
+		final Layout layout = new Layout(delta);
+		final ByteBuffer buffer = ByteBuffer.allocate(layout.size);
+		layout.write(buffer);
+		return buffer.array();
+	}
+
+	/**
+	 * Encodes the delta into the buffer, starting at its position. The position is advanced past the encoded delta
+	 *
+	 * @param delta
+	 *            the delta
+	 * @param target
+	 *            the target buffer
+	 * @throws BufferOverflowException
+	 *             if the remaining space of the buffer is not enough (see {@link #getEncodedSize(IdDelta)}). The buffer is not modified in this case
+	 */
+	public static void encode(final IdDelta delta, final ByteBuffer target) {
+		final Layout layout = new Layout(delta);
+		if (target.remaining() < layout.size) {
+			throw new BufferOverflowException();
+		}
+		layout.write(target);
+	}
+
+	/**
+	 * Creates a view over the encoded delta, starting at the position of the buffer. The bytes are not copied, so the buffer content must not be
+	 * modified while the view is in use. The position of the buffer is advanced past the encoded delta
+	 *
+	 * @param source
+	 *            the buffer with the encoded delta
+	 * @return view over the encoded delta
+	 * @throws IllegalArgumentException
+	 *             if the buffer does not contain a valid encoded delta
+	 */
+	public static EncodedIdDelta read(final ByteBuffer source) {
+		final int start = source.position();
+		if (!source.hasRemaining() || source.get(start) != VERSION) {
+			throw new IllegalArgumentException("Unsupported format version at position " + start);
+		}
+		final EncodedIdDelta.Section removed = readSection(source, start + 1);
+		final EncodedIdDelta.Section added = readSection(source, removed.end);
+		final EncodedIdDelta.Section intersection = readSection(source, added.end);
+		source.position(intersection.end);
+		return new EncodedIdDelta(source.duplicate(), removed, added, intersection);
+	}
+
+	/**
+	 * Decodes the delta, starting at the position of the buffer. The position of the buffer is advanced past the encoded delta
+	 *
+	 * @param source
+	 *            the buffer with the encoded delta
+	 * @return the decoded delta
+	 * @throws IllegalArgumentException
+	 *             if the buffer does not contain a valid encoded delta
+	 */
+	public static IdDelta decode(final ByteBuffer source) {
+		return read(source).toIdDelta();
+	}
+
+	private static EncodedIdDelta.Section readSection(final ByteBuffer source, final int offset) {
+		final int[] pos = { offset };
+		final long count = readVarint(source, pos);
+		final long length = readVarint(source, pos);
+		if (count > Integer.MAX_VALUE || length > source.limit() - pos[0] || count > length) {
+			throw new IllegalArgumentException("Corrupted section at position " + offset);
+		}
+		return new EncodedIdDelta.Section((int) count, pos[0], pos[0] + (int) length);
+	}
+
+	private static long bodySize(final long[] ids) {
+		long size = 0;
+		for (int i = 0; i < ids.length; i++) {
+			size += varintSize(i == 0 ? zigzag(ids[0]) : ids[i] - ids[i - 1]);
+		}
+		return size;
+	}
+
+	private static long zigzag(final long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Reverses the zigzag encoding
+	 *
+	 * @param value
+	 *            the zigzag encoded value
+	 * @return the signed value
+	 */
+	static long unzigzag(final long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int varintSize(final long value) {
+		// 7 bits per byte, at least one byte
+		return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+	}
+
+	private static void writeVarint(final ByteBuffer target, final long value) {
+		long v = value;
+		while ((v & ~0x7FL) != 0) {
+			target.put((byte) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		target.put((byte) v);
+	}
+
+	/**
+	 * Reads unsigned varint with absolute access, so the position of the buffer is not changed
+	 *
+	 * @param source
+	 *            the buffer
+	 * @param pos
+	 *            single element array with the offset of the varint. It is advanced past the varint
+	 * @return the value of the varint
+	 * @throws IllegalArgumentException
+	 *             if the varint is truncated or longer than 10 bytes
+	 */
+	static long readVarint(final ByteBuffer source, final int[] pos) {
+		long value = 0;
+		int p = pos[0];
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			if (p >= source.limit()) {
+				throw new IllegalArgumentException("Truncated varint at position " + pos[0]);
+			}
+			final byte b = source.get(p++);
+			value |= (b & 0x7FL) << shift;
+			if (b >= 0) {
+				pos[0] = p;
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint at position " + pos[0]);
+	}
+
+	/**
+	 * The sections of an encoded delta with their body sizes, so every section is measured once
+	 */
+	private static final class Layout {
+		private final long[][] sections;
+		private final long[] bodySizes;
+		private final int size;
+
+		private Layout(final IdDelta delta) {
+			super();
+			sections = new long[][] { delta.removedIdArray(), delta.addedIdArray(), delta.intersectionIdArray() };
+			bodySizes = new long[sections.length];
+			long total = 1;
+			for (int s = 0; s < sections.length; s++) {
+				bodySizes[s] = bodySize(sections[s]);
+				total += varintSize(sections[s].length) + varintSize(bodySizes[s]) + bodySizes[s];
+			}
+			if (total > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("The encoded delta is too big");
+			}
+			size = (int) total;
+		}
+
+		private void write(final ByteBuffer target) {
+			target.put(VERSION);
+			for (int s = 0; s < sections.length; s++) {
+				final long[] ids = sections[s];
+				writeVarint(target, ids.length);
+				writeVarint(target, bodySizes[s]);
+				for (int i = 0; i < ids.length; i++) {
+					writeVarint(target, i == 0 ? zigzag(ids[0]) : ids[i] - ids[i - 1]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+/**
+ * Counts the IDs of a delta and forwards them to another sink
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+class IdDeltaCounter implements IdDeltaSink {
+	private final IdDeltaSink delegate;
+	long removedCount;
+	long addedCount;
+	long intersectionCount;
+
+	/**
+	 * Creates a counter
+	 *
+	 * @param delegate
+	 *            the sink receiving the IDs. Can be null
+	 */
+	IdDeltaCounter(final IdDeltaSink delegate) {
+		super();
+		this.delegate = (delegate != null ? delegate : new IdDeltaSink() {
+			// ignores all IDs
+		});
+	}
+
+	@Override
+	public void removed(final long id) {
+		removedCount++;
+		delegate.removed(id);
+	}
+
+	@Override
+	public void added(final long id) {
+		addedCount++;
+		delegate.added(id);
+	}
+
+	@Override
+	public void intersection(final long id) {
+		intersectionCount++;
+		delegate.intersection(id);
+	}
+}
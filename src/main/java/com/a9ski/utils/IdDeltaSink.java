@@ -0,0 +1,59 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+/**
+ * Receives the IDs of a delta one by one, in ascending order, as they are calculated
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public interface IdDeltaSink {
+
+	/**
+	 * Called for ID present in the old IDs but missing in the new IDs
+	 *
+	 * @param id
+	 *            the removed ID
+	 */
+	public default void removed(final long id) {
+		// ignored by default
+	}
+
+	/**
+	 * Called for ID present in the new IDs but missing in the old IDs
+	 *
+	 * @param id
+	 *            the added ID
+	 */
+	public default void added(final long id) {
+		// ignored by default
+	}
+
+	/**
+	 * Called for ID present in both old and new IDs
+	 *
+	 * @param id
+	 *            the common ID
+	 */
+	public default void intersection(final long id) {
+		// ignored by default
+	}
+}
@@ -0,0 +1,176 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.LongIdCollection;
+import com.a9ski.id.collections.LongIdSet;
+
+/**
+ * Membership check of identifiable objects against a fixed set of IDs
+ * <p>
+ * Small sets of IDs are checked linearly, bigger sets are stored in a {@link LongIdSet}. {@link LongIdSet} and {@link LongIdArray} are used directly
+ * without copying, other {@link LongIdCollection}s are copied without boxing. The IDs of the checked objects are never boxed.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+abstract class IdLookup {
+
+	/**
+	 * Maximal number of IDs that are checked linearly
+	 */
+	static final int LINEAR_THRESHOLD = 16;
+
+	private final boolean containsNull;
+
+	protected IdLookup(final boolean containsNull) {
+		super();
+		this.containsNull = containsNull;
+	}
+
+	/**
+	 * Creates a lookup over a collection of IDs. <tt>null</tt> IDs match <tt>null</tt> objects
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return lookup over the IDs
+	 */
+	static IdLookup of(final Collection<Long> ids) {
+		if (ids instanceof LongIdSet || ids instanceof LongIdArray) {
+			return new Primitive((LongIdCollection) ids, false);
+		} else if (ids == null || ids.isEmpty()) {
+			return of(new long[0]);
+		} else if (ids instanceof LongIdCollection) {
+			final long[] values = new long[ids.size()];
+			final int[] n = { 0 };
+			((LongIdCollection) ids).forEachId(id -> values[n[0]++] = id);
+			return create(values, n[0], false);
+		}
+		final long[] values = new long[ids.size()];
+		int n = 0;
+		boolean containsNull = false;
+		for (final Long id : ids) {
+			if (id != null) {
+				values[n++] = id.longValue();
+			} else {
+				containsNull = true;
+			}
+		}
+		return create(values, n, containsNull);
+	}
+
+	/**
+	 * Creates a lookup over an array of IDs
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return lookup over the IDs
+	 */
+	static IdLookup of(final long... ids) {
+		return (ids != null ? create(ids, ids.length, false) : create(new long[0], 0, false));
+	}
+
+	private static IdLookup create(final long[] ids, final int length, final boolean containsNull) {
+		if (length <= LINEAR_THRESHOLD) {
+			return new Linear(Arrays.copyOf(ids, length), containsNull);
+		} else {
+			final LongIdSet set = new LongIdSet(length);
+			for (int i = 0; i < length; i++) {
+				set.add(ids[i]);
+			}
+			return new Primitive(set, containsNull);
+		}
+	}
+
+	/**
+	 * Checks if the ID of the object is in the lookup
+	 *
+	 * @param obj
+	 *            the identifiable object. Can be null
+	 * @return true if the ID of the object is in the lookup, or the object is null and the lookup contains null ID
+	 */
+	final boolean contains(final Identifiable obj) {
+		return (obj != null ? contains(obj.getId()) : containsNull);
+	}
+
+	/**
+	 * Checks if the ID is in the lookup
+	 *
+	 * @param id
+	 *            the id to be checked
+	 * @return true if the ID is in the lookup
+	 */
+	abstract boolean contains(long id);
+
+	/**
+	 * Gets the name of the lookup strategy, reported to the {@link com.a9ski.id.metrics.OperationMonitor}
+	 *
+	 * @return the name of the lookup strategy
+	 */
+	abstract String getStrategy();
+
+	private static final class Linear extends IdLookup {
+		private final long[] ids;
+
+		private Linear(final long[] ids, final boolean containsNull) {
+			super(containsNull);
+			this.ids = ids;
+		}
+
+		@Override
+		boolean contains(final long id) {
+			for (final long i : ids) {
+				if (i == id) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		String getStrategy() {
+			return "linear";
+		}
+	}
+
+	private static final class Primitive extends IdLookup {
+		private final LongIdCollection ids;
+
+		private Primitive(final LongIdCollection ids, final boolean containsNull) {
+			super(containsNull);
+			this.ids = ids;
+		}
+
+		@Override
+		boolean contains(final long id) {
+			return ids.contains(id);
+		}
+
+		@Override
+		String getStrategy() {
+			return (ids instanceof LongIdArray ? "sorted-array" : "hash");
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.List;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.collections.LongHashing;
+
+/**
+ * Maps IDs to their position (rank) in an ordered list of IDs
+ * <p>
+ * The positions are precomputed once in an open addressing hash table of primitive longs, so a rank lookup costs O(1) instead of
+ * {@link List#indexOf(Object)}.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+final class IdRanks {
+	private static final long FREE = 0L;
+
+	private final long[] keys;
+	private final int[] ranks;
+	private final int mask;
+	private final int size;
+	private int freeRank = -1;
+	private int idCount;
+
+	/**
+	 * Creates empty ranks for an ordered list of IDs
+	 *
+	 * @param length
+	 *            the length of the ordered list
+	 */
+	IdRanks(final int length) {
+		super();
+		final int capacity = LongHashing.capacity(length);
+		keys = new long[capacity];
+		ranks = new int[capacity];
+		mask = capacity - 1;
+		size = length;
+	}
+
+	/**
+	 * Creates ranks from an ordered list of IDs. <tt>null</tt> IDs are skipped, but still occupy a position
+	 *
+	 * @param orderedIds
+	 *            the ordered IDs. Can be null
+	 * @return the ranks of the IDs
+	 */
+	static IdRanks of(final List<Long> orderedIds) {
+		final int length = (orderedIds != null ? orderedIds.size() : 0);
+		final IdRanks ranks = new IdRanks(length);
+		int rank = 0;
+		if (orderedIds != null) {
+			for (final Long id : orderedIds) {
+				if (id != null) {
+					ranks.putIfAbsent(id.longValue(), rank);
+				}
+				rank++;
+			}
+		}
+		return ranks;
+	}
+
+	/**
+	 * Creates ranks from an ordered array of IDs
+	 *
+	 * @param orderedIds
+	 *            the ordered IDs. Can be null
+	 * @return the ranks of the IDs
+	 */
+	static IdRanks of(final long[] orderedIds) {
+		final int length = (orderedIds != null ? orderedIds.length : 0);
+		final IdRanks ranks = new IdRanks(length);
+		for (int i = 0; i < length; i++) {
+			ranks.putIfAbsent(orderedIds[i], i);
+		}
+		return ranks;
+	}
+
+	/**
+	 * Sets the rank of the ID, unless the ID already has a rank
+	 *
+	 * @param id
+	 *            the ID
+	 * @param rank
+	 *            the rank of the ID
+	 * @return the existing rank of the ID, or -1 if the rank has been set
+	 */
+	int putIfAbsent(final long id, final int rank) {
+		return put(id, rank, false);
+	}
+
+	/**
+	 * Sets the rank of the ID, replacing the existing rank
+	 *
+	 * @param id
+	 *            the ID
+	 * @param rank
+	 *            the rank of the ID
+	 * @return the previous rank of the ID, or -1 if the ID had no rank
+	 */
+	int put(final long id, final int rank) {
+		return put(id, rank, true);
+	}
+
+	private int put(final long id, final int rank, final boolean replace) {
+		if (id == FREE) {
+			final int previous = freeRank;
+			if (previous < 0 || replace) {
+				freeRank = rank;
+			}
+			return previous;
+		}
+		int slot = LongHashing.hash(id) & mask;
+		while (keys[slot] != FREE) {
+			if (keys[slot] == id) {
+				final int previous = ranks[slot];
+				if (replace) {
+					ranks[slot] = rank;
+				}
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = id;
+		ranks[slot] = rank;
+		idCount++;
+		return -1;
+	}
+
+	/**
+	 * Gets the number of positions (the length of the ordered IDs)
+	 *
+	 * @return the number of positions
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the distinct IDs that have a rank, in no particular order
+	 *
+	 * @return new array with the distinct IDs
+	 */
+	long[] ids() {
+		final long[] ids = new long[idCount + (freeRank >= 0 ? 1 : 0)];
+		int n = 0;
+		for (final long key : keys) {
+			if (key != FREE) {
+				ids[n++] = key;
+			}
+		}
+		if (freeRank >= 0) {
+			ids[n] = FREE;
+		}
+		return ids;
+	}
+
+	/**
+	 * Gets the position of the ID in the ordered IDs. It is the first position, unless it has been replaced by {@link #put(long, int)}
+	 *
+	 * @param id
+	 *            the ID
+	 * @return the position of the ID, or -1 if the ID is not present
+	 */
+	int indexOf(final long id) {
+		if (id == FREE) {
+			return freeRank;
+		}
+		int slot = LongHashing.hash(id) & mask;
+		long current;
+		while ((current = keys[slot]) != FREE) {
+			if (current == id) {
+				return ranks[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the rank of an identifiable object. Null objects are treated as ID 0, unknown IDs have rank 0
+	 *
+	 * @param obj
+	 *            the identifiable object. Can be null
+	 * @return the rank of the object
+	 */
+	int rank(final Identifiable obj) {
+		return Math.max(0, indexOf(obj != null ? obj.getId() : 0L));
+	}
+}
@@ -21,15 +21,34 @@ package com.a9ski.utils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.a9ski.id.Auditable;
+import com.a9ski.id.Deletable;
 import com.a9ski.id.Identifiable;
+import com.a9ski.id.Versioned;
+import com.a9ski.id.metrics.OperationMonitor;
+import com.a9ski.id.metrics.OperationType;
 
 /**
  * Calculates delta between two collection of identifiable objects (the old ones and the new ones)
  * <p>
  * Usually this class is used to identified which object have been created, modified or deleted
+ * <p>
+ * Objects are paired by ID using a single hash index per side, so the delta is calculated in linear time. <tt>null</tt> elements are ignored. When
+ * several objects in the same collection share an ID, all of them are returned by {@link #getRemoved()} and {@link #getAdded()} (in collection order),
+ * while {@link #getIntersection()} pairs only the first object with that ID from each collection.
+ * <p>
+ * An {@link IdentifiableIndex} passed as old or new objects is used as the index of that side without copying. In that case the intersection pairs
+ * the objects selected by the index duplicate policy.
+ * <p>
+ * The intersection is further split into {@link #getModified()} and {@link #getUnchanged()} pairs without comparing the objects: pairs of
+ * {@link Versioned} objects are modified when their versions differ and all other pairs are reported as modified. The edit time stamps of
+ * {@link Auditable} objects are compared only when requested with {@link #IdentifiableDelta(List, List, boolean)}, because they are not reliable
+ * for objects edited without touching them or within the same millisecond. Pairs of {@link Deletable} objects whose deleted flag has changed are also reported by
+ * {@link #getNewlyDeleted()} and {@link #getRestored()}.
  *
  * @author Kiril Arabadzhiyski
  *
@@ -44,28 +63,109 @@ public class IdentifiableDelta<O extends Identifiable, N extends Identifiable> e
 	private final List<O> oldObjects;
 	private final List<N> newObjects;
 	private final List<Pair<O, N>> intersection = new ArrayList<>();
+	private final List<Pair<O, N>> modified = new ArrayList<>();
+	private final List<Pair<O, N>> unchanged = new ArrayList<>();
+	private final List<Pair<O, N>> newlyDeleted = new ArrayList<>();
+	private final List<Pair<O, N>> restored = new ArrayList<>();
+	private final boolean compareEdited;
 
 	/**
-	 * Calculates a new delta between old objects and new objects
+	 * Calculates a new delta between old objects and new objects. Pairs of {@link Auditable} objects, which are not {@link Versioned}, are always
+	 * reported as modified
 	 *
 	 * @param oldObjects
-	 *            collection of old identifiable objects
+	 *            collection of old identifiable objects. Can be an {@link IdentifiableIndex}
 	 * @param newObjects
-	 *            collection of new identifiable objects
+	 *            collection of new identifiable objects. Can be an {@link IdentifiableIndex}
 	 */
 	public IdentifiableDelta(final List<O> oldObjects, final List<N> newObjects) {
-		super(IdentifiableUtils.getIds(oldObjects), IdentifiableUtils.getIds(newObjects));
-		this.oldObjects = ExtCollectionUtils.copy(oldObjects);
-		this.newObjects = ExtCollectionUtils.copy(newObjects);
-
-		this.removed = IdentifiableUtils.getByIds(oldObjects, getRemovedIds());
-		this.added = IdentifiableUtils.getByIds(newObjects, getAddedIds());
-
-		getIntersectionIds().forEach(id -> {
-			final N newObject = IdentifiableUtils.getById(newObjects, id);
-			final O oldObject = IdentifiableUtils.getById(oldObjects, id);
-			this.intersection.add(Pair.of(oldObject, newObject));
-		});
+		this(oldObjects, newObjects, false);
+	}
+
+	/**
+	 * Calculates a new delta between old objects and new objects
+	 *
+	 * @param oldObjects
+	 *            collection of old identifiable objects. Can be an {@link IdentifiableIndex}
+	 * @param newObjects
+	 *            collection of new identifiable objects. Can be an {@link IdentifiableIndex}
+	 * @param compareEdited
+	 *            if true, pairs of {@link Auditable} objects, which are not {@link Versioned}, are modified only when their edit time stamps differ
+	 */
+	public IdentifiableDelta(final List<O> oldObjects, final List<N> newObjects, final boolean compareEdited) {
+		// the start time is taken before the indexes are built
+		this(OperationMonitor.start(), oldObjects, newObjects, IdentifiableIndex.of(oldObjects), IdentifiableIndex.of(newObjects), compareEdited);
+	}
+
+	private IdentifiableDelta(final long start, final List<O> oldObjects, final List<N> newObjects, final IdentifiableIndex<O> oldIndex,
+			final IdentifiableIndex<N> newIndex, final boolean compareEdited) {
+		super(LongIdDelta.sortedUnique(oldIndex.ids()), LongIdDelta.sortedUnique(newIndex.ids()), true);
+		this.compareEdited = compareEdited;
+		this.oldObjects = (oldObjects instanceof IdentifiableIndex ? oldObjects : ExtCollectionUtils.copy(oldObjects));
+		this.newObjects = (newObjects instanceof IdentifiableIndex ? newObjects : ExtCollectionUtils.copy(newObjects));
+
+		this.removed = missing(oldObjects, newIndex);
+		this.added = missing(newObjects, oldIndex);
+
+		getIntersectionIds().forEach(id -> this.intersection.add(Pair.of(oldIndex.getById(id), newIndex.getById(id))));
+		for (final Pair<O, N> pair : intersection) {
+			if (isModified(pair.getLeft(), pair.getRight())) {
+				modified.add(pair);
+			} else {
+				unchanged.add(pair);
+			}
+			if (pair.getLeft() instanceof Deletable && pair.getRight() instanceof Deletable) {
+				final boolean oldDeleted = ((Deletable) pair.getLeft()).isDeleted();
+				final boolean newDeleted = ((Deletable) pair.getRight()).isDeleted();
+				if (!oldDeleted && newDeleted) {
+					newlyDeleted.add(pair);
+				} else if (oldDeleted && !newDeleted) {
+					restored.add(pair);
+				}
+			}
+		}
+		OperationMonitor.completed(OperationType.IDENTIFIABLE_DELTA, start,
+				(oldObjects instanceof IdentifiableIndex || newObjects instanceof IdentifiableIndex ? "provided-index" : "index"),
+				oldIndex.size() + newIndex.size(), removed.size() + added.size() + intersection.size());
+	}
+
+	/**
+	 * Checks if the new object is a modification of the old one, using only the version or the edit time stamp
+	 *
+	 * @param oldObject
+	 *            the old object
+	 * @param newObject
+	 *            the new object with the same ID
+	 * @return true if the versions (or the compared edit time stamps) differ, or if the objects are neither versioned nor compared as auditable
+	 */
+	private boolean isModified(final Identifiable oldObject, final Identifiable newObject) {
+		if (oldObject instanceof Versioned && newObject instanceof Versioned) {
+			return ((Versioned) oldObject).getVersion() != ((Versioned) newObject).getVersion();
+		} else if (compareEdited && oldObject instanceof Auditable && newObject instanceof Auditable) {
+			return !Objects.equals(((Auditable) oldObject).getEdited(), ((Auditable) newObject).getEdited());
+		}
+		return true;
+	}
+
+	/**
+	 * Returns all objects whose ID is missing in the <tt>otherIndex</tt>
+	 *
+	 * @param objects
+	 *            the objects to be checked. Can be null
+	 * @param otherIndex
+	 *            the index of the other collection
+	 * @return all non-null objects whose ID is missing in the <tt>otherIndex</tt>, in collection order
+	 */
+	private static <T extends Identifiable> List<T> missing(final List<T> objects, final IdentifiableIndex<?> otherIndex) {
+		final List<T> missing = new ArrayList<>();
+		if (objects != null) {
+			for (final T o : objects) {
+				if (o != null && !otherIndex.containsId(o.getId())) {
+					missing.add(o);
+				}
+			}
+		}
+		return missing;
 	}
 
 	/**
@@ -97,6 +197,62 @@ public class IdentifiableDelta<O extends Identifiable, N extends Identifiable> e
 		return ExtCollectionUtils.unmodifiableList(intersection);
 	}
 
+	/**
+	 * Gets the pairs from the intersection whose version (or compared edit time stamp) has changed. Pairs of objects that are not {@link Versioned}
+	 * are always included, unless the edit time stamps of {@link Auditable} objects are compared
+	 * <p>
+	 * The first element of the pair is the element from <tt>oldObjects</tt>, the second element of the pair is element from <tt>newObjects</tt>
+	 *
+	 * @return the pairs from the intersection whose version (or edit time stamp) has changed
+	 */
+	public List<Pair<O, N>> getModified() {
+		return ExtCollectionUtils.unmodifiableList(modified);
+	}
+
+	/**
+	 * Gets the pairs from the intersection with the same version (or the same edit time stamp)
+	 * <p>
+	 * The first element of the pair is the element from <tt>oldObjects</tt>, the second element of the pair is element from <tt>newObjects</tt>
+	 *
+	 * @return the pairs from the intersection with the same version (or the same edit time stamp)
+	 */
+	public List<Pair<O, N>> getUnchanged() {
+		return ExtCollectionUtils.unmodifiableList(unchanged);
+	}
+
+	/**
+	 * Gets the pairs from the intersection that have been soft deleted (the old object is not deleted, but the new one is). Only pairs of
+	 * {@link Deletable} objects are checked
+	 * <p>
+	 * The first element of the pair is the element from <tt>oldObjects</tt>, the second element of the pair is element from <tt>newObjects</tt>
+	 *
+	 * @return the pairs from the intersection that have been soft deleted
+	 */
+	public List<Pair<O, N>> getNewlyDeleted() {
+		return ExtCollectionUtils.unmodifiableList(newlyDeleted);
+	}
+
+	/**
+	 * Gets the pairs from the intersection that have been restored (the old object is soft deleted, but the new one is not). Only pairs of
+	 * {@link Deletable} objects are checked
+	 * <p>
+	 * The first element of the pair is the element from <tt>oldObjects</tt>, the second element of the pair is element from <tt>newObjects</tt>
+	 *
+	 * @return the pairs from the intersection that have been restored
+	 */
+	public List<Pair<O, N>> getRestored() {
+		return ExtCollectionUtils.unmodifiableList(restored);
+	}
+
+	/**
+	 * Checks if the edit time stamps of {@link Auditable} objects are compared to detect modifications
+	 *
+	 * @return true if the edit time stamps of {@link Auditable} objects are compared
+	 */
+	public boolean isCompareEdited() {
+		return compareEdited;
+	}
+
 	/**
 	 * Returns the list of old objects
 	 * 
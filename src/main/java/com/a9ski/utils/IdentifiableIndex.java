@@ -0,0 +1,248 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.collections.LongIdCollection;
+
+/**
+ * Immutable list of identifiable objects indexed by ID
+ * <p>
+ * The list keeps the objects in their original order (including <tt>null</tt> elements and objects with duplicate IDs). The ID of every object is
+ * stored once in an open addressing hash table of primitive longs, so {@link #getById(long)} and {@link #containsId(long)} cost O(1) instead of a
+ * linear scan. The index is built once and can be shared between threads.
+ * <p>
+ * {@link IdentifiableUtils} and {@link IdentifiableDelta} detect an index passed instead of a collection and use it for lookups.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <O>
+ *            the type of indexed objects
+ */
+public class IdentifiableIndex<O extends Identifiable> extends AbstractList<O> implements RandomAccess {
+
+	private final Object[] objects;
+	private final IdRanks positions;
+	private final boolean duplicateIds;
+
+	/**
+	 * Creates an index of the objects. If several objects have the same ID, the first one is indexed
+	 *
+	 * @param objects
+	 *            the objects to be indexed. Can be null
+	 */
+	public IdentifiableIndex(final Collection<? extends O> objects) {
+		this(objects, DuplicatePolicy.FIRST);
+	}
+
+	/**
+	 * Creates an index of the objects. <tt>null</tt> objects are kept in the list, but are not indexed
+	 *
+	 * @param objects
+	 *            the objects to be indexed. Can be null
+	 * @param policy
+	 *            defines which object is indexed when several objects share an ID
+	 * @throws IllegalArgumentException
+	 *             if the policy is {@link DuplicatePolicy#FAIL} and several objects share an ID
+	 */
+	public IdentifiableIndex(final Collection<? extends O> objects, final DuplicatePolicy policy) {
+		super();
+		this.objects = (objects != null ? objects.toArray() : new Object[0]);
+		this.positions = new IdRanks(this.objects.length);
+		boolean duplicates = false;
+		for (int i = 0; i < this.objects.length; i++) {
+			final Identifiable o = (Identifiable) this.objects[i];
+			if (o != null) {
+				final long id = o.getId();
+				final int previous = (policy == DuplicatePolicy.LAST ? positions.put(id, i) : positions.putIfAbsent(id, i));
+				if (previous >= 0) {
+					if (policy == DuplicatePolicy.FAIL) {
+						throw new IllegalArgumentException(String.format("Duplicate ID %d at positions %d and %d", id, previous, i));
+					}
+					duplicates = true;
+				}
+			}
+		}
+		this.duplicateIds = duplicates;
+	}
+
+	/**
+	 * Returns the collection if it is already an index, otherwise creates an index of the collection
+	 *
+	 * @param objects
+	 *            the objects to be indexed. Can be null
+	 * @param <O>
+	 *            the type of indexed objects
+	 * @return index of the objects
+	 */
+	public static <O extends Identifiable> IdentifiableIndex<O> of(final Collection<O> objects) {
+		if (objects instanceof IdentifiableIndex) {
+			return (IdentifiableIndex<O>) objects;
+		}
+		return new IdentifiableIndex<>(objects);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public O get(final int index) {
+		if (index < 0 || index >= objects.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + objects.length);
+		}
+		return (O) objects[index];
+	}
+
+	@Override
+	public int size() {
+		return objects.length;
+	}
+
+	/**
+	 * Gets the indexed object with the given ID
+	 *
+	 * @param id
+	 *            the ID to search for
+	 * @return the indexed object with the given ID, or null if there is no such object
+	 */
+	@SuppressWarnings("unchecked")
+	public O getById(final long id) {
+		final int position = positions.indexOf(id);
+		return (position >= 0 ? (O) objects[position] : null);
+	}
+
+	/**
+	 * Checks if the index contains an object with the given ID
+	 *
+	 * @param id
+	 *            the ID to search for
+	 * @return true if the index contains an object with the given ID
+	 */
+	public boolean containsId(final long id) {
+		return positions.indexOf(id) >= 0;
+	}
+
+	/**
+	 * Returns all objects that have ID equal to any of the provided IDs, in their original order
+	 *
+	 * @param ids
+	 *            IDs to search for. Can be null
+	 * @return all objects that have ID equal to any of the provided IDs
+	 */
+	public List<O> getByIds(final long... ids) {
+		if (ids == null || ids.length == 0) {
+			return new ArrayList<>();
+		} else if (duplicateIds) {
+			final IdLookup lookup = IdLookup.of(ids);
+			return select(o -> o != null && lookup.contains((Identifiable) o));
+		}
+		final int[] found = new int[ids.length];
+		int n = 0;
+		for (final long id : ids) {
+			final int position = positions.indexOf(id);
+			if (position >= 0) {
+				found[n++] = position;
+			}
+		}
+		return objectsAt(found, n);
+	}
+
+	/**
+	 * Returns all objects that have ID equal to any of the provided IDs, in their original order. <tt>null</tt> elements are never returned
+	 *
+	 * @param ids
+	 *            IDs to search for. Null IDs are skipped
+	 * @return all objects that have ID equal to any of the provided IDs
+	 */
+	public List<O> getByIds(final Collection<Long> ids) {
+		if (ids == null || ids.isEmpty()) {
+			return new ArrayList<>();
+		} else if (ids instanceof LongIdCollection) {
+			return getByIds(((LongIdCollection) ids).toLongArray());
+		} else if (duplicateIds) {
+			final IdLookup lookup = IdLookup.of(ids);
+			return select(o -> o != null && lookup.contains((Identifiable) o));
+		}
+		final int[] found = new int[ids.size()];
+		int n = 0;
+		for (final Long id : ids) {
+			final int position = (id != null ? positions.indexOf(id.longValue()) : -1);
+			if (position >= 0) {
+				found[n++] = position;
+			}
+		}
+		return objectsAt(found, n);
+	}
+
+	/**
+	 * Gets the indexed objects (one per ID, selected by the duplicate policy) in their original order
+	 *
+	 * @return new list with the indexed objects
+	 */
+	@SuppressWarnings("unchecked")
+	public List<O> values() {
+		final List<O> values = new ArrayList<>();
+		for (int i = 0; i < objects.length; i++) {
+			final Identifiable o = (Identifiable) objects[i];
+			if (o != null && positions.indexOf(o.getId()) == i) {
+				values.add((O) o);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the distinct indexed IDs in no particular order
+	 *
+	 * @return new array with the distinct IDs
+	 */
+	long[] ids() {
+		return positions.ids();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<O> select(final Predicate<Object> filter) {
+		final List<O> selected = new ArrayList<>();
+		for (final Object o : objects) {
+			if (filter.test(o)) {
+				selected.add((O) o);
+			}
+		}
+		return selected;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<O> objectsAt(final int[] found, final int length) {
+		Arrays.sort(found, 0, length);
+		final List<O> selected = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			if (i == 0 || found[i] != found[i - 1]) {
+				selected.add((O) objects[found[i]]);
+			}
+		}
+		return selected;
+	}
+}
@@ -21,7 +21,9 @@ package com.a9ski.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
@@ -31,9 +33,14 @@ import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.ArrayUtils;
 
 import com.a9ski.id.Identifiable;
+import com.a9ski.id.collections.IdBitmap;
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.LongIdList;
+import com.a9ski.id.collections.LongIdSet;
+import com.a9ski.id.metrics.OperationMonitor;
+import com.a9ski.id.metrics.OperationType;
 
 /**
  * Utility classes with helper methods for Identifiable
@@ -91,6 +98,65 @@ public class IdentifiableUtils {
 		return getIdsList(ExtCollectionUtils.toList(entities));
 	}
 
+	/**
+	 * Returns a primitive set with IDs of the entities. Null entities are skipped
+	 *
+	 * @param entities
+	 *            a collection of identifiable objects. Can be null
+	 * @return primitive set with IDs corresponding to the identifiable objects
+	 */
+	public static final LongIdSet getIdSet(final Collection<? extends Identifiable> entities) {
+		final LongIdSet ids = new LongIdSet(CollectionUtils.size(entities));
+		if (entities != null) {
+			for (final Identifiable e : entities) {
+				if (e != null) {
+					ids.add(e.getId());
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns a sorted primitive array with the unique IDs of the entities. Null entities are skipped
+	 *
+	 * @param entities
+	 *            a collection of identifiable objects. Can be null
+	 * @return sorted primitive array with the unique IDs corresponding to the identifiable objects
+	 */
+	public static final LongIdArray getIdArray(final Collection<? extends Identifiable> entities) {
+		final LongIdList ids = new LongIdList(CollectionUtils.size(entities));
+		if (entities != null) {
+			for (final Identifiable e : entities) {
+				if (e != null) {
+					ids.add(e.getId());
+				}
+			}
+		}
+		return LongIdArray.of(ids);
+	}
+
+	/**
+	 * Returns a compressed bitmap with the IDs of the entities. Null entities are skipped. The bitmap is run optimized, so dense ID sequences take
+	 * a few bytes per thousand IDs
+	 *
+	 * @param entities
+	 *            a collection of identifiable objects. Can be null
+	 * @return compressed bitmap with the IDs corresponding to the identifiable objects
+	 */
+	public static final IdBitmap getIdBitmap(final Collection<? extends Identifiable> entities) {
+		final IdBitmap ids = new IdBitmap();
+		if (entities != null) {
+			for (final Identifiable e : entities) {
+				if (e != null) {
+					ids.add(e.getId());
+				}
+			}
+		}
+		ids.runOptimize();
+		return ids;
+	}
+
 	/**
 	 * Returns a collection with IDs of the entities
 	 *
@@ -128,13 +194,10 @@ public class IdentifiableUtils {
 	 * @return true if the <tt>entity</tt> id is equals to <tt>id</tt> or both are null
 	 */
 	public static boolean equalsId(final Identifiable entity, final Long id) {
-		final Long eid = getId(entity);
-		if (eid == null && id == null) {
-			return true;
-		} else if (eid == null || id == null) {
-			return false;
+		if (entity == null || id == null) {
+			return entity == null && id == null;
 		} else {
-			return eid.longValue() == id.longValue();
+			return entity.getId() == id.longValue();
 		}
 	}
 
@@ -153,6 +216,9 @@ public class IdentifiableUtils {
 
 	/**
 	 * Gets the first object from the collection with given id or returns null if no such object exits
+	 * <p>
+	 * If the collection is an {@link IdentifiableIndex}, the object is found in constant time (when several objects share the id, the index
+	 * duplicate policy selects the returned object)
 	 *
 	 * @param collection
 	 *            the collection of identifiable objects. Can be null
@@ -163,7 +229,20 @@ public class IdentifiableUtils {
 	 * @return the first object from the collection with given id, or null if no such object exits
 	 */
 	public static <O extends Identifiable> O getById(final Collection<O> collection, final Long id) {
-		return ExtCollectionUtils.get0(getByIds(collection, Arrays.asList(id)));
+		return (id != null ? getById(collection, id.longValue()) : null);
+	}
+
+	private static <O extends Identifiable> O getById(final Collection<O> collection, final long id) {
+		if (collection instanceof IdentifiableIndex) {
+			return ((IdentifiableIndex<O>) collection).getById(id);
+		} else if (collection != null) {
+			for (final O o : collection) {
+				if (o != null && o.getId() == id) {
+					return o;
+				}
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -178,10 +257,7 @@ public class IdentifiableUtils {
 	 * @return the first object from the collection with the same id as <tt>obj</tt> or returns null if no such object exits
 	 */
 	public static <O extends Identifiable> O getById(final Collection<O> collection, final Identifiable obj) {
-		if (obj != null) {
-			return getById(collection, obj.getId());
-		}
-		return null;
+		return (obj != null ? getById(collection, obj.getId()) : null);
 	}
 
 	/**
@@ -211,7 +287,7 @@ public class IdentifiableUtils {
 	 * @return true if collection of identifiable objects contains at least one object with given id
 	 */
 	public static <O extends Identifiable> boolean contains(final Collection<O> collection, final Identifiable obj) {
-		return containsId(collection, getId(obj));
+		return getById(collection, obj) != null;
 	}
 
 	/**
@@ -220,7 +296,7 @@ public class IdentifiableUtils {
 	 * @param collection
 	 *            collection of identifiable objects. Can be null.
 	 * @param ids
-	 *            IDs to search for. Can be null
+	 *            IDs to search for. Can be null. Null IDs are skipped
 	 * @param <O>
 	 *            Identifiable type
 	 * @return all objects from the collection that have id equals to any of the provided IDs
@@ -231,22 +307,35 @@ public class IdentifiableUtils {
 
 	/**
 	 * Returns all objects from the collection that have id equals to any of the provided IDs
+	 * <p>
+	 * The IDs are copied into a primitive lookup structure once, so the complexity is linear in the size of the collection plus the number of IDs.
+	 * {@link LongIdSet} and {@link LongIdArray} are used directly without copying. If the collection is an {@link IdentifiableIndex}, only the
+	 * provided IDs are looked up. <tt>null</tt> elements of the collection are never returned
 	 *
 	 * @param collection
 	 *            collection of identifiable objects. Can be null.
 	 * @param ids
-	 *            IDs to search for. Can be null
+	 *            IDs to search for. Can be null. Null IDs are skipped
 	 * @param <O>
 	 *            Identifiable type
 	 * @return all objects from the collection that have id equals to any of the provided IDs
 	 */
 	public static <O extends Identifiable> List<O> getByIds(final Collection<O> collection, final Collection<Long> ids) {
+		final long start = OperationMonitor.start();
 		final List<O> objects;
-		if (CollectionUtils.isNotEmpty(ids) && CollectionUtils.isNotEmpty(collection)) {
-			objects = collection.stream().filter(o -> ids.contains(getId(o))).collect(Collectors.toList());
+		final String strategy;
+		if (collection instanceof IdentifiableIndex) {
+			objects = ((IdentifiableIndex<O>) collection).getByIds(ids);
+			strategy = "index";
+		} else if (CollectionUtils.isNotEmpty(ids) && CollectionUtils.isNotEmpty(collection)) {
+			final IdLookup lookup = IdLookup.of(ids);
+			objects = collection.stream().filter(o -> o != null && lookup.contains(o)).collect(Collectors.toList());
+			strategy = lookup.getStrategy();
 		} else {
 			objects = new ArrayList<>();
+			strategy = "empty";
 		}
+		OperationMonitor.completed(OperationType.GET_BY_IDS, start, strategy, CollectionUtils.size(collection) + CollectionUtils.size(ids), objects.size());
 		return objects;
 	}
 
@@ -262,8 +351,11 @@ public class IdentifiableUtils {
 	 * @return the original collection, which has been altered
 	 */
 	public static <C extends Collection<? extends Identifiable>> C removeByIds(final C collection, final long... ids) {
-		final List<Long> idsList = ExtCollectionUtils.toList(ArrayUtils.toObject(ids));
-		return removeByIds(collection, idsList);
+		if (CollectionUtils.isNotEmpty(collection)) {
+			final long start = OperationMonitor.start();
+			removeByIds(collection, IdLookup.of(ids), (ids != null ? ids.length : 0), start);
+		}
+		return collection;
 	}
 
 	/**
@@ -279,12 +371,18 @@ public class IdentifiableUtils {
 	 */
 	public static <C extends Collection<? extends Identifiable>> C removeByIds(final C collection, final Collection<Long> ids) {
 		if (CollectionUtils.isNotEmpty(collection)) {
-			final Set<Long> idsSet = ExtCollectionUtils.toSet(ids);
-			collection.removeIf(e -> idsSet.contains(getId(e)));
+			final long start = OperationMonitor.start();
+			removeByIds(collection, IdLookup.of(ids), CollectionUtils.size(ids), start);
 		}
 		return collection;
 	}
 
+	private static void removeByIds(final Collection<? extends Identifiable> collection, final IdLookup lookup, final int idCount, final long start) {
+		final int size = collection.size();
+		collection.removeIf(lookup::contains);
+		OperationMonitor.completed(OperationType.REMOVE_BY_IDS, start, lookup.getStrategy(), size + idCount, size - collection.size());
+	}
+
 	/**
 	 * Check if two identifiable objects have same IDs
 	 *
@@ -329,6 +427,7 @@ public class IdentifiableUtils {
 	 * @return A map. The map key is the object id, the value is a list of objects having that id.
 	 */
 	public static <O extends Identifiable> SortedMap<Long, List<O>> mapByIds(final Collection<O> collection) {
+		final long start = OperationMonitor.start();
 		final SortedMap<Long, List<O>> map = new TreeMap<Long, List<O>>();
 		if (CollectionUtils.isNotEmpty(collection)) {
 			collection.stream().filter(o -> o != null).forEach(o -> {
@@ -339,32 +438,77 @@ public class IdentifiableUtils {
 				map.get(id).add(o);
 			});
 		}
+		OperationMonitor.completed(OperationType.MAP_BY_IDS, start, "tree", CollectionUtils.size(collection), map.size());
 		return map;
 	}
 
 	/**
 	 * Creates a comparator that orders the identifiable objects according to the order of IDs list
+	 * <p>
+	 * The position of every ID is precomputed once. Objects whose ID is not in the list (and null objects, unless ID 0 is in the list) are ordered as
+	 * the first ID in the list.
 	 *
 	 * @param orderedIds
 	 *            list of IDs defining the order
 	 * @return comparator that orders the identifiable objects according to the order of IDs list
 	 */
 	public static Comparator<Identifiable> createOrderedComparator(final List<Long> orderedIds) {
+		final IdRanks ranks = IdRanks.of(orderedIds);
 		return new Comparator<Identifiable>() {
 
 			@Override
 			public int compare(final Identifiable o1, final Identifiable o2) {
-				final long id1 = NumberUtils.defaultLong(getId(o1), 0L);
-				final long id2 = NumberUtils.defaultLong(getId(o2), 0L);
-				final int ind1 = Math.max(0, orderedIds.indexOf(id1));
-				final int ind2 = Math.max(0, orderedIds.indexOf(id2));
-				return ind1 - ind2;
+				return ranks.rank(o1) - ranks.rank(o2);
 			}
 		};
 	}
 
+	/**
+	 * Reorders the identifiable objects according to the order of IDs array without comparison sort.
+	 * <p>
+	 * The result is the same as a (stable) sort with {@link #createOrderedComparator(List)}, but it is computed in O(n + k) time, where n is the size
+	 * of the collection and k is the length of <tt>order</tt>
+	 *
+	 * @param collection
+	 *            collection of identifiable objects. Can be null
+	 * @param order
+	 *            array of IDs defining the order. Can be null
+	 * @param <O>
+	 *            the Identifiable type
+	 * @return new list containing the objects ordered according to the order of IDs array
+	 */
+	public static <O extends Identifiable> List<O> reorderByIds(final Collection<O> collection, final long[] order) {
+		if (CollectionUtils.isEmpty(collection)) {
+			return new ArrayList<>();
+		}
+		final long start = OperationMonitor.start();
+		final IdRanks ranks = IdRanks.of(order);
+		final int[] rankOf = new int[collection.size()];
+		final int[] slots = new int[Math.max(1, ranks.size()) + 1];
+		int i = 0;
+		for (final O o : collection) {
+			final int rank = ranks.rank(o);
+			rankOf[i++] = rank;
+			slots[rank + 1]++;
+		}
+		for (int r = 1; r < slots.length; r++) {
+			slots[r] += slots[r - 1];
+		}
+		final List<O> ordered = new ArrayList<>(Collections.nCopies(rankOf.length, null));
+		i = 0;
+		for (final O o : collection) {
+			ordered.set(slots[rankOf[i++]]++, o);
+		}
+		OperationMonitor.completed(OperationType.REORDER_BY_IDS, start, "counting", rankOf.length + (order != null ? order.length : 0), ordered.size());
+		return ordered;
+	}
+
 	/**
 	 * Check if the collections of identifiable objects have the same IDs.
+	 * <p>
+	 * Only the IDs of the first collection are copied (into a sorted primitive array). The check stops as soon as the second collection is too small
+	 * to contain all the IDs, or an ID of the second collection is missing in the first one. The sizes of the collections alone do not decide the
+	 * result, because a collection may contain several objects with the same ID.
 	 *
 	 * @param col1
 	 *            first collections of identifiable objects
@@ -373,7 +517,48 @@ public class IdentifiableUtils {
 	 * @return true if the two collections have the same IDs
 	 */
 	public static boolean sameIds(final Collection<? extends Identifiable> col1, final Collection<? extends Identifiable> col2) {
-		return getIds(col1).equals(getIds(col2));
+		if (col1 == col2) {
+			return true;
+		}
+		final int size1 = CollectionUtils.size(col1);
+		final int size2 = CollectionUtils.size(col2);
+		if (size1 == 0 || size2 == 0) {
+			return size1 == size2;
+		}
+		final long[] ids1 = new long[size1];
+		int n = 0;
+		boolean null1 = false;
+		for (final Identifiable e : col1) {
+			if (e != null) {
+				ids1[n++] = e.getId();
+			} else {
+				null1 = true;
+			}
+		}
+		final long[] unique1 = LongIdDelta.sortedUnique(n < size1 ? Arrays.copyOf(ids1, n) : ids1);
+		if (unique1.length + (null1 ? 1 : 0) > size2) {
+			return false;
+		}
+		final BitSet found = new BitSet(unique1.length);
+		int foundCount = 0;
+		boolean null2 = false;
+		for (final Identifiable e : col2) {
+			if (e == null) {
+				if (!null1) {
+					return false;
+				}
+				null2 = true;
+			} else {
+				final int index = Arrays.binarySearch(unique1, e.getId());
+				if (index < 0) {
+					return false;
+				} else if (!found.get(index)) {
+					found.set(index);
+					foundCount++;
+				}
+			}
+		}
+		return foundCount == unique1.length && null1 == null2;
 	}
 
 	/**
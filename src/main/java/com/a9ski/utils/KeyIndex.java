@@ -0,0 +1,183 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Unique index of entities by a normalized string key
+ * <p>
+ * The index is backed by a {@link ConcurrentHashMap}, so lookups cost O(1) and do not lock, and entities can be added, removed and re-keyed
+ * concurrently. Entities with <tt>null</tt> key are not indexed. Every key maps to a single entity; the duplicate policy decides what happens when
+ * the index is built from entities sharing a key.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <E>
+ *            the type of indexed entities
+ */
+public abstract class KeyIndex<E> {
+
+	private final ConcurrentHashMap<String, E> entities;
+	private final Function<? super E, String> keyFunction;
+	private final KeyNormalizer normalizer;
+
+	/**
+	 * Creates a new index
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 * @param keyFunction
+	 *            extracts the key of an entity
+	 * @param normalizer
+	 *            normalizes the keys
+	 * @param policy
+	 *            defines which entity is indexed when several entities share a key
+	 * @throws IllegalArgumentException
+	 *             if the policy is {@link DuplicatePolicy#FAIL} and several entities share a key
+	 */
+	protected KeyIndex(final Collection<? extends E> entities, final Function<? super E, String> keyFunction, final KeyNormalizer normalizer,
+			final DuplicatePolicy policy) {
+		super();
+		this.entities = new ConcurrentHashMap<>(entities != null ? Math.max(16, entities.size() * 4 / 3 + 1) : 16);
+		this.keyFunction = keyFunction;
+		this.normalizer = normalizer;
+		if (entities != null) {
+			for (final E e : entities) {
+				final String key = (e != null ? key(e) : null);
+				if (key != null) {
+					final E previous = (policy == DuplicatePolicy.LAST ? this.entities.put(key, e) : this.entities.putIfAbsent(key, e));
+					if (previous != null && policy == DuplicatePolicy.FAIL) {
+						throw new IllegalArgumentException("Duplicate key: " + key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the entity with the given key
+	 *
+	 * @param key
+	 *            the key. It is normalized before the lookup. Can be null
+	 * @return the entity with the given key, or null if there is no such entity
+	 */
+	public E get(final String key) {
+		final String normalized = normalizer.normalize(key);
+		return (normalized != null ? entities.get(normalized) : null);
+	}
+
+	/**
+	 * Checks if there is an entity with the given key
+	 *
+	 * @param key
+	 *            the key. It is normalized before the lookup. Can be null
+	 * @return true if there is an entity with the given key
+	 */
+	public boolean containsKey(final String key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Adds the entity to the index
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return true if the entity has been added, false if its key is null or it is already indexed
+	 * @throws IllegalArgumentException
+	 *             if another entity has the same key
+	 */
+	public boolean add(final E entity) {
+		final String key = key(entity);
+		if (key == null) {
+			return false;
+		}
+		final E previous = entities.putIfAbsent(key, entity);
+		if (previous != null && previous != entity) {
+			throw new IllegalArgumentException("Duplicate key: " + key);
+		}
+		return previous == null;
+	}
+
+	/**
+	 * Removes the entity from the index
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return true if the entity has been removed
+	 */
+	public boolean remove(final E entity) {
+		final String key = key(entity);
+		return key != null && entities.remove(key, entity);
+	}
+
+	/**
+	 * Gets the number of indexed entities
+	 *
+	 * @return the number of indexed entities
+	 */
+	public int size() {
+		return entities.size();
+	}
+
+	/**
+	 * Gets the normalizer of the keys
+	 *
+	 * @return the normalizer of the keys
+	 */
+	public KeyNormalizer getNormalizer() {
+		return normalizer;
+	}
+
+	/**
+	 * Changes the key of an entity and updates the index. The new key is reserved before the entity is changed, so a duplicate key leaves both the
+	 * entity and the index unchanged. Concurrent readers may briefly find the entity under both keys
+	 *
+	 * @param entity
+	 *            the entity
+	 * @param newKey
+	 *            the new key of the entity
+	 * @param setter
+	 *            sets the new key to the entity
+	 * @throws IllegalArgumentException
+	 *             if another entity has the new key
+	 */
+	protected void changeKey(final E entity, final String newKey, final Consumer<? super E> setter) {
+		final String oldKey = key(entity);
+		final String normalized = normalizer.normalize(newKey);
+		if (normalized != null && !normalized.equals(oldKey)) {
+			final E previous = entities.putIfAbsent(normalized, entity);
+			if (previous != null && previous != entity) {
+				throw new IllegalArgumentException("Duplicate key: " + normalized);
+			}
+		}
+		setter.accept(entity);
+		if (oldKey != null && !oldKey.equals(normalized)) {
+			entities.remove(oldKey, entity);
+		}
+	}
+
+	private String key(final E entity) {
+		return normalizer.normalize(keyFunction.apply(entity));
+	}
+}
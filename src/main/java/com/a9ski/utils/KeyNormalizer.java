@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalizes string keys (logins, names, titles) before they are indexed or looked up
+ * <p>
+ * The normalization optionally trims the key, applies a Unicode normalization form (e.g. NFKC, so full-width and composed characters match their
+ * plain equivalents) and folds the case.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class KeyNormalizer {
+
+	/**
+	 * Keys are compared as they are
+	 */
+	public static final KeyNormalizer EXACT = new KeyNormalizer(false, null, false);
+
+	/**
+	 * Keys are trimmed, normalized with NFKC and case folded
+	 */
+	public static final KeyNormalizer CASE_INSENSITIVE = new KeyNormalizer(true, Normalizer.Form.NFKC, true);
+
+	private final boolean caseFold;
+	private final Normalizer.Form form;
+	private final boolean trim;
+
+	/**
+	 * Creates a new normalizer
+	 *
+	 * @param caseFold
+	 *            if true, the keys are case folded
+	 * @param form
+	 *            the Unicode normalization form. Can be null, in which case the keys are not Unicode normalized
+	 * @param trim
+	 *            if true, the leading and trailing white spaces are removed
+	 */
+	public KeyNormalizer(final boolean caseFold, final Normalizer.Form form, final boolean trim) {
+		super();
+		this.caseFold = caseFold;
+		this.form = form;
+		this.trim = trim;
+	}
+
+	/**
+	 * Normalizes the key
+	 *
+	 * @param key
+	 *            the key. Can be null
+	 * @return the normalized key, or null if the key is null
+	 */
+	public String normalize(final String key) {
+		if (key == null) {
+			return null;
+		}
+		String normalized = (trim ? key.trim() : key);
+		if (form != null && !isAscii(normalized) && !Normalizer.isNormalized(normalized, form)) {
+			normalized = Normalizer.normalize(normalized, form);
+		}
+		if (caseFold) {
+			// upper case first, so characters with several lower case forms (e.g. final sigma) fold to the same key
+			normalized = normalized.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+		}
+		return normalized;
+	}
+
+	private static boolean isAscii(final String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
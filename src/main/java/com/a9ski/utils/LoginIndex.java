@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.Collection;
+
+import com.a9ski.id.LoginBased;
+import com.a9ski.id.MutableLoginBased;
+
+/**
+ * Unique index of entities by login. Logins are case insensitive by default (see {@link KeyNormalizer#CASE_INSENSITIVE})
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <E>
+ *            the type of indexed entities
+ */
+public class LoginIndex<E extends LoginBased> extends KeyIndex<E> {
+
+	/**
+	 * Creates a case insensitive index. Duplicate logins are rejected
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 * @throws IllegalArgumentException
+	 *             if several entities share a login
+	 */
+	public LoginIndex(final Collection<? extends E> entities) {
+		this(entities, KeyNormalizer.CASE_INSENSITIVE, DuplicatePolicy.FAIL);
+	}
+
+	/**
+	 * Creates a new index
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 * @param normalizer
+	 *            normalizes the logins
+	 * @param policy
+	 *            defines which entity is indexed when several entities share a login
+	 * @throws IllegalArgumentException
+	 *             if the policy is {@link DuplicatePolicy#FAIL} and several entities share a login
+	 */
+	public LoginIndex(final Collection<? extends E> entities, final KeyNormalizer normalizer, final DuplicatePolicy policy) {
+		super(entities, LoginBased::getLogin, normalizer, policy);
+	}
+
+	/**
+	 * Changes the login of a {@link MutableLoginBased} entity and updates the index
+	 *
+	 * @param entity
+	 *            the entity. It must implement {@link MutableLoginBased}
+	 * @param login
+	 *            the new login
+	 * @throws IllegalArgumentException
+	 *             if another entity has the same login, or the entity is not mutable
+	 */
+	public void setLogin(final E entity, final String login) {
+		if (!(entity instanceof MutableLoginBased)) {
+			throw new IllegalArgumentException("The entity is not mutable: " + entity);
+		}
+		changeKey(entity, login, e -> ((MutableLoginBased) e).setLogin(login));
+	}
+}
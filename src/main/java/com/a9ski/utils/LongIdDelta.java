@@ -0,0 +1,447 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.LongIdCollection;
+import com.a9ski.id.collections.SortedLongIdCollection;
+
+/**
+ * Calculates delta between two sets of primitive IDs (old and new ones) without boxing
+ * <p>
+ * Both inputs are copied, sorted and deduplicated once. The removed, added and intersection IDs are computed with a single linear merge of the sorted
+ * arrays. All results are sorted in ascending order. Big inputs can be calculated in parallel with {@link #parallel(long[], long[], ForkJoinPool)}.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class LongIdDelta {
+
+	/**
+	 * Minimal total number of IDs calculated in parallel
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private static final long[] EMPTY = new long[0];
+
+	final long[] removedIds;
+	final long[] addedIds;
+	final long[] intersectionIds;
+
+	/**
+	 * Calculates a new delta of two arrays of IDs. The arrays are not modified.
+	 *
+	 * @param oldIds
+	 *            array representing old IDs. Can be null
+	 * @param newIds
+	 *            array representing new IDs. Can be null
+	 */
+	public LongIdDelta(final long[] oldIds, final long[] newIds) {
+		this(sortedUnique(copy(oldIds)), sortedUnique(copy(newIds)), true);
+	}
+
+	/**
+	 * Calculates a new delta of two iterators of IDs. Both iterators are fully consumed.
+	 *
+	 * @param oldIds
+	 *            iterator over the old IDs. Can be null
+	 * @param newIds
+	 *            iterator over the new IDs. Can be null
+	 */
+	public LongIdDelta(final PrimitiveIterator.OfLong oldIds, final PrimitiveIterator.OfLong newIds) {
+		this(sortedUnique(toArray(oldIds)), sortedUnique(toArray(newIds)), true);
+	}
+
+	/**
+	 * Calculates a new delta of two sorted arrays without duplicates
+	 *
+	 * @param oldIds
+	 *            sorted array of old IDs without duplicates
+	 * @param newIds
+	 *            sorted array of new IDs without duplicates
+	 * @param sorted
+	 *            marker parameter distinguishing this constructor
+	 */
+	LongIdDelta(final long[] oldIds, final long[] newIds, final boolean sorted) {
+		this(merge(oldIds, 0, oldIds.length, newIds, 0, newIds.length));
+	}
+
+	private LongIdDelta(final LongIdDelta delta) {
+		this(delta.removedIds, delta.addedIds, delta.intersectionIds);
+	}
+
+	/**
+	 * Creates a delta from already calculated sorted arrays without duplicates. The arrays are not copied
+	 *
+	 * @param removedIds
+	 *            the removed IDs
+	 * @param addedIds
+	 *            the added IDs
+	 * @param intersectionIds
+	 *            the IDs present in both old and new IDs
+	 */
+	LongIdDelta(final long[] removedIds, final long[] addedIds, final long[] intersectionIds) {
+		super();
+		this.removedIds = removedIds;
+		this.addedIds = addedIds;
+		this.intersectionIds = intersectionIds;
+	}
+
+	/**
+	 * Calculates a new delta of two arrays of IDs in parallel on the common {@link ForkJoinPool}. The arrays are not modified.
+	 *
+	 * @param oldIds
+	 *            array representing old IDs. Can be null
+	 * @param newIds
+	 *            array representing new IDs. Can be null
+	 * @return the delta, identical to the one calculated by {@link #LongIdDelta(long[], long[])}
+	 * @see #parallel(long[], long[], ForkJoinPool)
+	 */
+	public static LongIdDelta parallel(final long[] oldIds, final long[] newIds) {
+		return parallel(oldIds, newIds, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Calculates a new delta of two arrays of IDs in parallel. The arrays are not modified.
+	 * <p>
+	 * Both arrays are sorted in parallel. Then they are split at shared pivot values into independent ranges, the delta of every range is calculated as
+	 * a separate task and the results are concatenated in order. Inputs with less than {@value #PARALLEL_THRESHOLD} IDs in total are calculated
+	 * sequentially.
+	 *
+	 * @param oldIds
+	 *            array representing old IDs. Can be null
+	 * @param newIds
+	 *            array representing new IDs. Can be null
+	 * @param pool
+	 *            the pool executing the tasks
+	 * @return the delta, identical to the one calculated by {@link #LongIdDelta(long[], long[])}
+	 */
+	public static LongIdDelta parallel(final long[] oldIds, final long[] newIds, final ForkJoinPool pool) {
+		final long[] o = copy(oldIds);
+		final long[] n = copy(newIds);
+		if (o.length + n.length < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+			return new LongIdDelta(o, n);
+		}
+		final ForkJoinTask<?> sortOld = pool.submit(() -> Arrays.parallelSort(o));
+		final ForkJoinTask<?> sortNew = pool.submit(() -> Arrays.parallelSort(n));
+		sortOld.join();
+		sortNew.join();
+		final long[] uniqueOld = LongIdArray.unique(o, o.length);
+		final long[] uniqueNew = LongIdArray.unique(n, n.length);
+		final int leafSize = Math.max(PARALLEL_THRESHOLD / 4, (uniqueOld.length + uniqueNew.length) / (pool.getParallelism() * 4));
+		final List<LongIdDelta> parts = pool.invoke(new RangeTask(uniqueOld, 0, uniqueOld.length, uniqueNew, 0, uniqueNew.length, leafSize));
+		return new LongIdDelta(concat(parts, d -> d.removedIds), concat(parts, d -> d.addedIds), concat(parts, d -> d.intersectionIds));
+	}
+
+	/**
+	 * Merges ranges of two sorted arrays without duplicates
+	 *
+	 * @return delta of the ranges
+	 */
+	private static LongIdDelta merge(final long[] oldIds, final int oldFrom, final int oldTo, final long[] newIds, final int newFrom, final int newTo) {
+		final long[] removed = new long[oldTo - oldFrom];
+		final long[] added = new long[newTo - newFrom];
+		final long[] intersection = new long[Math.min(removed.length, added.length)];
+		int r = 0;
+		int a = 0;
+		int c = 0;
+		int i = oldFrom;
+		int j = newFrom;
+		while (i < oldTo && j < newTo) {
+			final long o = oldIds[i];
+			final long n = newIds[j];
+			if (o < n) {
+				removed[r++] = o;
+				i++;
+			} else if (o > n) {
+				added[a++] = n;
+				j++;
+			} else {
+				intersection[c++] = o;
+				i++;
+				j++;
+			}
+		}
+		while (i < oldTo) {
+			removed[r++] = oldIds[i++];
+		}
+		while (j < newTo) {
+			added[a++] = newIds[j++];
+		}
+		return new LongIdDelta(trim(removed, r), trim(added, a), trim(intersection, c));
+	}
+
+	/**
+	 * Gets the IDs that have been removed (are present in <tt>oldIds</tt> but missing in the <tt>newIds</tt>)
+	 *
+	 * @return sorted copy of the IDs that have been removed
+	 */
+	public long[] getRemovedIds() {
+		return removedIds.clone();
+	}
+
+	/**
+	 * Gets the IDs that have been added (are present in <tt>newIds</tt> but missing in the <tt>oldIds</tt>)
+	 *
+	 * @return sorted copy of the IDs that have been added
+	 */
+	public long[] getAddedIds() {
+		return addedIds.clone();
+	}
+
+	/**
+	 * Gets the IDs that are present in <tt>newIds</tt> and in the <tt>oldIds</tt>
+	 *
+	 * @return sorted copy of the IDs present in both <tt>newIds</tt> and <tt>oldIds</tt>
+	 */
+	public long[] getIntersectionIds() {
+		return intersectionIds.clone();
+	}
+
+	/**
+	 * Gets the number of removed IDs
+	 *
+	 * @return the number of removed IDs
+	 */
+	public int getRemovedCount() {
+		return removedIds.length;
+	}
+
+	/**
+	 * Gets the number of added IDs
+	 *
+	 * @return the number of added IDs
+	 */
+	public int getAddedCount() {
+		return addedIds.length;
+	}
+
+	/**
+	 * Gets the number of IDs present in both old and new IDs
+	 *
+	 * @return the number of IDs present in both old and new IDs
+	 */
+	public int getIntersectionCount() {
+		return intersectionIds.length;
+	}
+
+	/**
+	 * Checks if there is a delta (any newly added ID, or any removed ID)
+	 *
+	 * @return true, if there is a delta (any newly added ID, or any removed ID)
+	 */
+	public boolean hasDelta() {
+		return removedIds.length > 0 || addedIds.length > 0;
+	}
+
+	/**
+	 * Sorts the array in place and moves the unique values to its beginning
+	 *
+	 * @param ids
+	 *            the array to be sorted. It is modified
+	 * @return the sorted unique values. Either <tt>ids</tt> or a trimmed copy of it
+	 */
+	static long[] sortedUnique(final long[] ids) {
+		return LongIdArray.sortedUnique(ids, ids.length);
+	}
+
+	/**
+	 * Converts collection of IDs to sorted array without duplicates. {@link LongIdCollection} are copied without boxing, {@link SortedLongIdCollection} is not
+	 * sorted again
+	 *
+	 * @param ids
+	 *            the IDs. Can be null
+	 * @return sorted array of the IDs without duplicates
+	 */
+	static long[] sortedUnique(final Collection<Long> ids) {
+		if (ids == null) {
+			return EMPTY;
+		} else if (ids instanceof SortedLongIdCollection) {
+			return ((SortedLongIdCollection) ids).toLongArray();
+		} else if (ids instanceof LongIdCollection) {
+			return sortedUnique(((LongIdCollection) ids).toLongArray());
+		}
+		final long[] array = new long[ids.size()];
+		int i = 0;
+		for (final Long id : ids) {
+			array[i++] = id.longValue();
+		}
+		return sortedUnique(array);
+	}
+
+	/**
+	 * Returns the IDs from <tt>a</tt> that are missing in <tt>b</tt>
+	 *
+	 * @param a
+	 *            sorted array without duplicates
+	 * @param b
+	 *            sorted array without duplicates
+	 * @return sorted array of the IDs from <tt>a</tt> that are missing in <tt>b</tt>
+	 */
+	static long[] subtract(final long[] a, final long[] b) {
+		final long[] result = new long[a.length];
+		int n = 0;
+		int j = 0;
+		for (final long id : a) {
+			while (j < b.length && b[j] < id) {
+				j++;
+			}
+			if (j == b.length || b[j] != id) {
+				result[n++] = id;
+			}
+		}
+		return trim(result, n);
+	}
+
+	/**
+	 * Returns the IDs present in both arrays
+	 *
+	 * @param a
+	 *            sorted array without duplicates
+	 * @param b
+	 *            sorted array without duplicates
+	 * @return sorted array of the IDs present in both arrays
+	 */
+	static long[] intersect(final long[] a, final long[] b) {
+		final long[] result = new long[Math.min(a.length, b.length)];
+		int n = 0;
+		int j = 0;
+		for (final long id : a) {
+			while (j < b.length && b[j] < id) {
+				j++;
+			}
+			if (j < b.length && b[j] == id) {
+				result[n++] = id;
+			}
+		}
+		return trim(result, n);
+	}
+
+	private static long[] concat(final List<LongIdDelta> parts, final Function<LongIdDelta, long[]> side) {
+		int length = 0;
+		for (final LongIdDelta part : parts) {
+			length += side.apply(part).length;
+		}
+		final long[] result = new long[length];
+		int offset = 0;
+		for (final LongIdDelta part : parts) {
+			final long[] ids = side.apply(part);
+			System.arraycopy(ids, 0, result, offset, ids.length);
+			offset += ids.length;
+		}
+		return trim(result, length);
+	}
+
+	private static long[] copy(final long[] ids) {
+		return (ids != null ? ids.clone() : EMPTY);
+	}
+
+	private static long[] toArray(final PrimitiveIterator.OfLong ids) {
+		if (ids == null) {
+			return EMPTY;
+		}
+		long[] array = new long[16];
+		int n = 0;
+		while (ids.hasNext()) {
+			if (n == array.length) {
+				array = Arrays.copyOf(array, n << 1);
+			}
+			array[n++] = ids.nextLong();
+		}
+		return trim(array, n);
+	}
+
+	private static long[] trim(final long[] array, final int length) {
+		if (length == array.length) {
+			return array;
+		} else if (length == 0) {
+			return EMPTY;
+		} else {
+			return Arrays.copyOf(array, length);
+		}
+	}
+
+	/**
+	 * Calculates the delta of ranges of two sorted arrays without duplicates. Ranges bigger than the leaf size are split at the middle value of the
+	 * bigger range, so both halves can be calculated independently
+	 */
+	private static final class RangeTask extends RecursiveTask<List<LongIdDelta>> {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] oldIds;
+		private final int oldFrom;
+		private final int oldTo;
+		private final long[] newIds;
+		private final int newFrom;
+		private final int newTo;
+		private final int leafSize;
+
+		private RangeTask(final long[] oldIds, final int oldFrom, final int oldTo, final long[] newIds, final int newFrom, final int newTo,
+				final int leafSize) {
+			super();
+			this.oldIds = oldIds;
+			this.oldFrom = oldFrom;
+			this.oldTo = oldTo;
+			this.newIds = newIds;
+			this.newFrom = newFrom;
+			this.newTo = newTo;
+			this.leafSize = leafSize;
+		}
+
+		@Override
+		protected List<LongIdDelta> compute() {
+			if ((oldTo - oldFrom) + (newTo - newFrom) <= leafSize) {
+				return Collections.singletonList(merge(oldIds, oldFrom, oldTo, newIds, newFrom, newTo));
+			}
+			final long pivot;
+			if (oldTo - oldFrom >= newTo - newFrom) {
+				pivot = oldIds[(oldFrom + oldTo) >>> 1];
+			} else {
+				pivot = newIds[(newFrom + newTo) >>> 1];
+			}
+			// both splits start with the first value not less than the pivot
+			final int oldSplit = lowerBound(oldIds, oldFrom, oldTo, pivot);
+			final int newSplit = lowerBound(newIds, newFrom, newTo, pivot);
+			final RangeTask left = new RangeTask(oldIds, oldFrom, oldSplit, newIds, newFrom, newSplit, leafSize);
+			final RangeTask right = new RangeTask(oldIds, oldSplit, oldTo, newIds, newSplit, newTo, leafSize);
+			left.fork();
+			final List<LongIdDelta> rightParts = right.compute();
+			final List<LongIdDelta> parts = new ArrayList<>(left.join());
+			parts.addAll(rightParts);
+			return parts;
+		}
+
+		private static int lowerBound(final long[] ids, final int from, final int to, final long value) {
+			final int index = Arrays.binarySearch(ids, from, to, value);
+			return (index >= 0 ? index : -index - 1);
+		}
+	}
+}
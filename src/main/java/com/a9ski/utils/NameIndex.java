@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.Collection;
+
+import com.a9ski.id.MutableNamed;
+import com.a9ski.id.Named;
+
+/**
+ * Unique index of entities by name. Names are case insensitive by default (see {@link KeyNormalizer#CASE_INSENSITIVE})
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <E>
+ *            the type of indexed entities
+ */
+public class NameIndex<E extends Named> extends KeyIndex<E> {
+
+	/**
+	 * Creates a case insensitive index. Duplicate names are rejected
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 * @throws IllegalArgumentException
+	 *             if several entities share a name
+	 */
+	public NameIndex(final Collection<? extends E> entities) {
+		this(entities, KeyNormalizer.CASE_INSENSITIVE, DuplicatePolicy.FAIL);
+	}
+
+	/**
+	 * Creates a new index
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 * @param normalizer
+	 *            normalizes the names
+	 * @param policy
+	 *            defines which entity is indexed when several entities share a name
+	 * @throws IllegalArgumentException
+	 *             if the policy is {@link DuplicatePolicy#FAIL} and several entities share a name
+	 */
+	public NameIndex(final Collection<? extends E> entities, final KeyNormalizer normalizer, final DuplicatePolicy policy) {
+		super(entities, Named::getName, normalizer, policy);
+	}
+
+	/**
+	 * Changes the name of a {@link MutableNamed} entity and updates the index
+	 *
+	 * @param entity
+	 *            the entity. It must implement {@link MutableNamed}
+	 * @param name
+	 *            the new name
+	 * @throws IllegalArgumentException
+	 *             if another entity has the same name, or the entity is not mutable
+	 */
+	public void setName(final E entity, final String name) {
+		if (!(entity instanceof MutableNamed)) {
+			throw new IllegalArgumentException("The entity is not mutable: " + entity);
+		}
+		changeKey(entity, name, e -> ((MutableNamed) e).setName(name));
+	}
+}
@@ -0,0 +1,275 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import com.a9ski.id.collections.SortedLongIdCollection;
+
+/**
+ * Calculates delta between two sorted collections of IDs (e.g. {@link com.a9ski.id.collections.OffHeapLongIdSet}) without materializing the
+ * results
+ * <p>
+ * The constructor counts the removed, added and common IDs with a single merge. The IDs themselves are streamed on demand by merging the sorted
+ * collections again, so the delta uses constant heap memory regardless of the size of the inputs.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class SortedIdDelta {
+
+	private final SortedLongIdCollection oldIds;
+	private final SortedLongIdCollection newIds;
+	private final long removedCount;
+	private final long addedCount;
+	private final long intersectionCount;
+
+	/**
+	 * Calculates a new delta of two sorted collections of IDs. The collections must not be changed or closed while the delta is used
+	 *
+	 * @param oldIds
+	 *            sorted collection of old IDs
+	 * @param newIds
+	 *            sorted collection of new IDs
+	 */
+	public SortedIdDelta(final SortedLongIdCollection oldIds, final SortedLongIdCollection newIds) {
+		super();
+		this.oldIds = oldIds;
+		this.newIds = newIds;
+		final IdDeltaCounter counter = new IdDeltaCounter(null);
+		forEach(counter);
+		removedCount = counter.removedCount;
+		addedCount = counter.addedCount;
+		intersectionCount = counter.intersectionCount;
+	}
+
+	/**
+	 * Merges two ascending iterators of unique IDs and reports every ID to the sink
+	 *
+	 * @param oldIds
+	 *            ascending iterator of old IDs
+	 * @param newIds
+	 *            ascending iterator of new IDs
+	 * @param sink
+	 *            the sink receiving the IDs
+	 */
+	static void merge(final PrimitiveIterator.OfLong oldIds, final PrimitiveIterator.OfLong newIds, final IdDeltaSink sink) {
+		boolean hasOld = oldIds.hasNext();
+		boolean hasNew = newIds.hasNext();
+		long o = (hasOld ? oldIds.nextLong() : 0L);
+		long n = (hasNew ? newIds.nextLong() : 0L);
+		while (hasOld && hasNew) {
+			if (o < n) {
+				sink.removed(o);
+				hasOld = oldIds.hasNext();
+				o = (hasOld ? oldIds.nextLong() : 0L);
+			} else if (o > n) {
+				sink.added(n);
+				hasNew = newIds.hasNext();
+				n = (hasNew ? newIds.nextLong() : 0L);
+			} else {
+				sink.intersection(o);
+				hasOld = oldIds.hasNext();
+				o = (hasOld ? oldIds.nextLong() : 0L);
+				hasNew = newIds.hasNext();
+				n = (hasNew ? newIds.nextLong() : 0L);
+			}
+		}
+		while (hasOld) {
+			sink.removed(o);
+			hasOld = oldIds.hasNext();
+			o = (hasOld ? oldIds.nextLong() : 0L);
+		}
+		while (hasNew) {
+			sink.added(n);
+			hasNew = newIds.hasNext();
+			n = (hasNew ? newIds.nextLong() : 0L);
+		}
+	}
+
+	/**
+	 * Reports every removed, added and common ID to the sink in a single merge
+	 *
+	 * @param sink
+	 *            the sink receiving the IDs
+	 */
+	public void forEach(final IdDeltaSink sink) {
+		merge(oldIds.iterator(), newIds.iterator(), sink);
+	}
+
+	/**
+	 * Gets the number of IDs present in the old IDs but missing in the new IDs
+	 *
+	 * @return the number of removed IDs
+	 */
+	public long getRemovedCount() {
+		return removedCount;
+	}
+
+	/**
+	 * Gets the number of IDs present in the new IDs but missing in the old IDs
+	 *
+	 * @return the number of added IDs
+	 */
+	public long getAddedCount() {
+		return addedCount;
+	}
+
+	/**
+	 * Gets the number of IDs present in both old and new IDs
+	 *
+	 * @return the number of common IDs
+	 */
+	public long getIntersectionCount() {
+		return intersectionCount;
+	}
+
+	/**
+	 * Checks if there is a delta (any newly added ID, or any removed ID)
+	 *
+	 * @return true, if there is a delta (any newly added ID, or any removed ID)
+	 */
+	public boolean hasDelta() {
+		return removedCount > 0 || addedCount > 0;
+	}
+
+	/**
+	 * Streams the IDs present in the old IDs but missing in the new IDs, in ascending order
+	 *
+	 * @return stream of removed IDs
+	 */
+	public LongStream removedIds() {
+		return stream(Kind.REMOVED, removedCount);
+	}
+
+	/**
+	 * Streams the IDs present in the new IDs but missing in the old IDs, in ascending order
+	 *
+	 * @return stream of added IDs
+	 */
+	public LongStream addedIds() {
+		return stream(Kind.ADDED, addedCount);
+	}
+
+	/**
+	 * Streams the IDs present in both old and new IDs, in ascending order
+	 *
+	 * @return stream of common IDs
+	 */
+	public LongStream intersectionIds() {
+		return stream(Kind.INTERSECTION, intersectionCount);
+	}
+
+	private LongStream stream(final Kind kind, final long count) {
+		final PrimitiveIterator.OfLong it = new MergeIterator(oldIds.iterator(), newIds.iterator(), kind);
+		final int characteristics = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+		return StreamSupport.longStream(Spliterators.spliterator(it, count, characteristics), false);
+	}
+
+	private enum Kind {
+		REMOVED, ADDED, INTERSECTION
+	}
+
+	/**
+	 * Lazily merges two ascending iterators and returns only the IDs of given kind
+	 */
+	private static final class MergeIterator implements PrimitiveIterator.OfLong {
+		private final PrimitiveIterator.OfLong oldIds;
+		private final PrimitiveIterator.OfLong newIds;
+		private final Kind kind;
+		private boolean hasOld;
+		private boolean hasNew;
+		private long o;
+		private long n;
+		private boolean hasNext;
+		private long next;
+
+		private MergeIterator(final PrimitiveIterator.OfLong oldIds, final PrimitiveIterator.OfLong newIds, final Kind kind) {
+			super();
+			this.oldIds = oldIds;
+			this.newIds = newIds;
+			this.kind = kind;
+			advanceOld();
+			advanceNew();
+			advance();
+		}
+
+		private void advanceOld() {
+			hasOld = oldIds.hasNext();
+			o = (hasOld ? oldIds.nextLong() : 0L);
+		}
+
+		private void advanceNew() {
+			hasNew = newIds.hasNext();
+			n = (hasNew ? newIds.nextLong() : 0L);
+		}
+
+		private void advance() {
+			hasNext = false;
+			while (!hasNext && canContinue()) {
+				if (hasOld && (!hasNew || o < n)) {
+					hasNext = (kind == Kind.REMOVED);
+					next = o;
+					advanceOld();
+				} else if (hasNew && (!hasOld || o > n)) {
+					hasNext = (kind == Kind.ADDED);
+					next = n;
+					advanceNew();
+				} else {
+					hasNext = (kind == Kind.INTERSECTION);
+					next = o;
+					advanceOld();
+					advanceNew();
+				}
+			}
+		}
+
+		private boolean canContinue() {
+			switch (kind) {
+			case REMOVED:
+				return hasOld;
+			case ADDED:
+				return hasNew;
+			default:
+				return hasOld && hasNew;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public long nextLong() {
+			if (!hasNext) {
+				throw new NoSuchElementException();
+			}
+			final long result = next;
+			advance();
+			return result;
+		}
+	}
+}
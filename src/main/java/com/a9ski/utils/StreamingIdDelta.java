@@ -0,0 +1,165 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+/**
+ * Calculates delta between two sources of IDs that are already sorted in ascending order (e.g. database cursors with <tt>ORDER BY id</tt>)
+ * <p>
+ * The sources are merged once and every removed, added and common ID is reported to an {@link IdDeltaSink} as soon as it is known. Only the
+ * counts are kept, so the delta uses constant memory regardless of the size of the sources. Repeated IDs are reported once. If a source is not
+ * sorted, an {@link IllegalArgumentException} is thrown as soon as the first out-of-order ID is read; the IDs reported until then are correct.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ */
+public class StreamingIdDelta {
+
+	private final long removedCount;
+	private final long addedCount;
+	private final long intersectionCount;
+
+	/**
+	 * Calculates a new delta of two ascending iterators of IDs and reports the IDs to the sink. Both iterators are fully consumed
+	 *
+	 * @param oldIds
+	 *            ascending iterator of old IDs. Can be null
+	 * @param newIds
+	 *            ascending iterator of new IDs. Can be null
+	 * @param sink
+	 *            the sink receiving the IDs. Can be null, in which case only the counts are calculated
+	 * @throws IllegalArgumentException
+	 *             if any of the iterators is not sorted in ascending order
+	 */
+	public StreamingIdDelta(final PrimitiveIterator.OfLong oldIds, final PrimitiveIterator.OfLong newIds, final IdDeltaSink sink) {
+		super();
+		final IdDeltaCounter counter = new IdDeltaCounter(sink);
+		SortedIdDelta.merge(new AscendingIterator(oldIds, "old"), new AscendingIterator(newIds, "new"), counter);
+		removedCount = counter.removedCount;
+		addedCount = counter.addedCount;
+		intersectionCount = counter.intersectionCount;
+	}
+
+	/**
+	 * Calculates a new delta of two ascending streams of IDs and reports the IDs to the sink. Both streams are fully consumed, but not closed
+	 *
+	 * @param oldIds
+	 *            ascending stream of old IDs. Can be null
+	 * @param newIds
+	 *            ascending stream of new IDs. Can be null
+	 * @param sink
+	 *            the sink receiving the IDs. Can be null, in which case only the counts are calculated
+	 * @throws IllegalArgumentException
+	 *             if any of the streams is not sorted in ascending order
+	 */
+	public StreamingIdDelta(final LongStream oldIds, final LongStream newIds, final IdDeltaSink sink) {
+		this(oldIds != null ? oldIds.iterator() : null, newIds != null ? newIds.iterator() : null, sink);
+	}
+
+	/**
+	 * Gets the number of IDs present in the old IDs but missing in the new IDs
+	 *
+	 * @return the number of removed IDs
+	 */
+	public long getRemovedCount() {
+		return removedCount;
+	}
+
+	/**
+	 * Gets the number of IDs present in the new IDs but missing in the old IDs
+	 *
+	 * @return the number of added IDs
+	 */
+	public long getAddedCount() {
+		return addedCount;
+	}
+
+	/**
+	 * Gets the number of IDs present in both old and new IDs
+	 *
+	 * @return the number of common IDs
+	 */
+	public long getIntersectionCount() {
+		return intersectionCount;
+	}
+
+	/**
+	 * Checks if there is a delta (any newly added ID, or any removed ID)
+	 *
+	 * @return true, if there is a delta (any newly added ID, or any removed ID)
+	 */
+	public boolean hasDelta() {
+		return removedCount > 0 || addedCount > 0;
+	}
+
+	/**
+	 * Skips repeated IDs and fails on IDs that are not in ascending order
+	 */
+	static final class AscendingIterator implements PrimitiveIterator.OfLong {
+		private final PrimitiveIterator.OfLong ids;
+		private final String name;
+		private boolean hasNext;
+		private long next;
+		private boolean started;
+		private long last;
+
+		AscendingIterator(final PrimitiveIterator.OfLong ids, final String name) {
+			super();
+			this.ids = ids;
+			this.name = name;
+			advance();
+		}
+
+		private void advance() {
+			hasNext = false;
+			while (ids != null && ids.hasNext()) {
+				final long id = ids.nextLong();
+				if (started && id < last) {
+					throw new IllegalArgumentException(String.format("The %s IDs are not sorted: %d follows %d", name, id, last));
+				}
+				if (!started || id != last) {
+					started = true;
+					last = id;
+					next = id;
+					hasNext = true;
+					return;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public long nextLong() {
+			if (!hasNext) {
+				throw new NoSuchElementException();
+			}
+			final long result = next;
+			advance();
+			return result;
+		}
+	}
+}
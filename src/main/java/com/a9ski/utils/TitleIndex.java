@@ -0,0 +1,343 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.Titled;
+
+/**
+ * Prefix index of entity titles, used for auto completion
+ * <p>
+ * The normalized titles are kept in a sorted array together with the IDs of the entities, so the entities with a given title prefix form a
+ * contiguous range found with a binary search. The title of every indexed ID is also kept in a hash map, so the position of an indexed entity is
+ * found with a binary search by title and ID. Looking up the first <tt>k</tt> IDs costs O(log n + k); adding and removing an entity costs O(n)
+ * because the arrays are shifted. The index is thread safe: lookups share a read lock and updates take a write lock.
+ *
+ * @author Kiril Arabadzhiyski
+ *
+ * @param <E>
+ *            the type of indexed entities
+ */
+public class TitleIndex<E extends Titled & Identifiable> {
+
+	private static final long[] EMPTY_IDS = new long[0];
+
+	// estimated sizes with compressed references
+	private static final int REFERENCE_SIZE = 4;
+	private static final int STRING_SIZE = 24;
+	private static final int ARRAY_HEADER_SIZE = 16;
+	private static final int MAP_NODE_SIZE = 32;
+	private static final int BOXED_LONG_SIZE = 16;
+
+	private final KeyNormalizer normalizer;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Long, String> titleById;
+
+	private String[] titles;
+	private long[] ids;
+	private int size;
+
+	/**
+	 * Creates a case insensitive index (see {@link KeyNormalizer#CASE_INSENSITIVE})
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 */
+	public TitleIndex(final Collection<? extends E> entities) {
+		this(entities, KeyNormalizer.CASE_INSENSITIVE);
+	}
+
+	/**
+	 * Creates a new index. Entities with <tt>null</tt> title are not indexed. If several entities have the same ID, only the last one is indexed
+	 *
+	 * @param entities
+	 *            the entities to be indexed. Can be null
+	 * @param normalizer
+	 *            normalizes the titles and the prefixes
+	 */
+	public TitleIndex(final Collection<? extends E> entities, final KeyNormalizer normalizer) {
+		super();
+		this.normalizer = normalizer;
+		final List<Entry> entries = new ArrayList<>(entities != null ? entities.size() : 0);
+		if (entities != null) {
+			final IdRanks ranks = new IdRanks(entities.size());
+			for (final E e : entities) {
+				final String title = (e != null ? normalizer.normalize(e.getTitle()) : null);
+				if (title != null) {
+					final int previous = ranks.put(e.getId(), entries.size());
+					if (previous >= 0) {
+						// mark the entry of the previous entity with the same ID as removed
+						entries.set(previous, null);
+					}
+					entries.add(new Entry(title, e.getId()));
+				}
+			}
+		}
+		entries.removeIf(e -> e == null);
+		entries.sort(Comparator.<Entry, String> comparing(e -> e.title).thenComparingLong(e -> e.id));
+		this.size = entries.size();
+		this.titles = new String[size];
+		this.ids = new long[size];
+		this.titleById = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+		for (int i = 0; i < size; i++) {
+			final Entry entry = entries.get(i);
+			titles[i] = entry.title;
+			ids[i] = entry.id;
+			titleById.put(entry.id, entry.title);
+		}
+	}
+
+	/**
+	 * Gets the IDs of the entities whose title starts with the prefix, ordered by title and ID
+	 *
+	 * @param prefix
+	 *            the title prefix. It is normalized before the lookup. Null and empty prefix match all titles
+	 * @param limit
+	 *            the maximum number of IDs returned
+	 * @return the first <tt>limit</tt> IDs of entities whose title starts with the prefix
+	 */
+	public long[] findIds(final String prefix, final int limit) {
+		if (limit <= 0) {
+			return EMPTY_IDS;
+		}
+		final String normalized = (prefix != null ? normalizer.normalize(prefix) : "");
+		lock.readLock().lock();
+		try {
+			final int from = lowerBound(normalized);
+			int to = from;
+			final int max = (int) Math.min(size, (long) from + limit);
+			while (to < max && titles[to].startsWith(normalized)) {
+				to++;
+			}
+			return (from < to ? Arrays.copyOfRange(ids, from, to) : EMPTY_IDS);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts the entities whose title starts with the prefix
+	 *
+	 * @param prefix
+	 *            the title prefix. It is normalized before the lookup. Null and empty prefix match all titles
+	 * @return the number of entities whose title starts with the prefix
+	 */
+	public int count(final String prefix) {
+		final String normalized = (prefix != null ? normalizer.normalize(prefix) : "");
+		lock.readLock().lock();
+		try {
+			final int from = lowerBound(normalized);
+			return prefixEnd(normalized, from) - from;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the entity to the index. If an entity with the same ID is already indexed, it is replaced
+	 *
+	 * @param entity
+	 *            the entity
+	 * @return true if the entity has been added, false if the entity or its title is null
+	 */
+	public boolean add(final E entity) {
+		final String title = (entity != null ? normalizer.normalize(entity.getTitle()) : null);
+		if (title == null) {
+			return false;
+		}
+		final long id = entity.getId();
+		lock.writeLock().lock();
+		try {
+			final String previous = titleById.put(id, title);
+			if (previous != null) {
+				removeAt(lowerBound(previous, id));
+			}
+			final int pos = lowerBound(title, id);
+			if (size == titles.length) {
+				final int capacity = Math.max(16, size + (size >> 1));
+				titles = Arrays.copyOf(titles, capacity);
+				ids = Arrays.copyOf(ids, capacity);
+			}
+			System.arraycopy(titles, pos, titles, pos + 1, size - pos);
+			System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+			titles[pos] = title;
+			ids[pos] = id;
+			size++;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the entity with the given ID from the index
+	 *
+	 * @param id
+	 *            the ID of the entity
+	 * @return true if the entity has been removed
+	 */
+	public boolean remove(final long id) {
+		lock.writeLock().lock();
+		try {
+			final String title = titleById.remove(id);
+			if (title == null) {
+				return false;
+			}
+			removeAt(lowerBound(title, id));
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of indexed entities
+	 *
+	 * @return the number of indexed entities
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the estimated memory used by the index in bytes, assuming compressed references and strings backed by <tt>char</tt> arrays. The
+	 * estimate includes the map from IDs to titles
+	 *
+	 * @return the estimated memory used by the index in bytes
+	 */
+	public long getSizeInBytes() {
+		lock.readLock().lock();
+		try {
+			return sizeInBytes();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the estimated memory used per indexed entity in bytes (see {@link #getSizeInBytes()})
+	 *
+	 * @return the estimated memory used per indexed entity in bytes, or 0 if the index is empty
+	 */
+	public double getSizeInBytesPerEntry() {
+		lock.readLock().lock();
+		try {
+			return (size > 0 ? (double) sizeInBytes() / size : 0);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private long sizeInBytes() {
+		long bytes = 2L * ARRAY_HEADER_SIZE + (long) titles.length * (REFERENCE_SIZE + Long.BYTES);
+		// the map shares the title strings, every entry has a node, a boxed ID and up to two table slots
+		bytes += (long) size * (MAP_NODE_SIZE + BOXED_LONG_SIZE + 2 * REFERENCE_SIZE);
+		for (int i = 0; i < size; i++) {
+			bytes += STRING_SIZE + align(ARRAY_HEADER_SIZE + titles[i].length() * (long) Character.BYTES);
+		}
+		return bytes;
+	}
+
+	private int lowerBound(final String title) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (titles[mid].compareTo(title) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the position of the entry with the given title and ID, or the position where it should be inserted
+	 */
+	private int lowerBound(final String title, final long id) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			final int cmp = titles[mid].compareTo(title);
+			if (cmp < 0 || (cmp == 0 && ids[mid] < id)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the end of the range of titles starting with the prefix. The range starts at <tt>from</tt>, the lower bound of the prefix
+	 */
+	private int prefixEnd(final String prefix, final int from) {
+		int low = from;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (titles[mid].startsWith(prefix)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void removeAt(final int pos) {
+		size--;
+		System.arraycopy(titles, pos + 1, titles, pos, size - pos);
+		System.arraycopy(ids, pos + 1, ids, pos, size - pos);
+		titles[size] = null;
+	}
+
+	private static long align(final long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	private static class Entry {
+		private final String title;
+		private final long id;
+
+		public Entry(final String title, final long id) {
+			super();
+			this.title = title;
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+import org.junit.Test;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.Versioned;
+
+public class IdCacheTest {
+
+	private static class Entity implements Identifiable, Versioned {
+
+		private static final long serialVersionUID = 3374711386237541452L;
+
+		private final long id;
+		private final long version;
+
+		public Entity(final long id, final long version) {
+			super();
+			this.id = id;
+			this.version = version;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public long getVersion() {
+			return version;
+		}
+	}
+
+	private Entity e(final long id) {
+		return new Entity(id, 0);
+	}
+
+	@Test
+	public void testGetPut() {
+		final IdCache<Entity> cache = new IdCache<>(100);
+		assertNull(cache.get(1));
+		final Entity e1 = e(1);
+		assertTrue(cache.put(e1));
+		assertTrue(cache.put(e(0)));
+		assertTrue(cache.get(1) == e1);
+		assertEquals(0, cache.get(0).getId());
+		assertEquals(2, cache.size());
+		assertTrue(cache.invalidate(1));
+		assertFalse(cache.invalidate(1));
+		assertNull(cache.get(1));
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+
+		final IdCacheStats stats = cache.getStats();
+		assertEquals(2, stats.getHitCount());
+		assertEquals(2, stats.getMissCount());
+		assertEquals(0.5, stats.getHitRate(), 0.0001);
+	}
+
+	@Test
+	public void testLoader() {
+		final IdCache<Entity> cache = new IdCache<>(100);
+		final AtomicInteger loads = new AtomicInteger();
+		assertEquals(5, cache.get(5, id -> {
+			loads.incrementAndGet();
+			return e(id);
+		}).getId());
+		assertEquals(5, cache.get(5, id -> {
+			loads.incrementAndGet();
+			return e(id);
+		}).getId());
+		assertNull(cache.get(6, id -> null));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testLoaderOutsideLock() {
+		final IdCache<Entity> cache = new IdCache<>(100, e -> 1, 1);
+		cache.put(e(1));
+		// the loader uses the same segment
+		final Entity loaded = cache.get(2, id -> {
+			assertEquals(1, cache.get(1).getId());
+			cache.put(e(3));
+			return e(id);
+		});
+		assertEquals(2, loaded.getId());
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void testConcurrentLoad() throws InterruptedException {
+		final IdCache<Entity> cache = new IdCache<>(100);
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final LongFunction<Entity> loader = id -> {
+			loads.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return e(id);
+		};
+		final List<Entity> results = Collections.synchronizedList(new ArrayList<>());
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> results.add(cache.get(7, loader))));
+		}
+		threads.get(0).start();
+		started.await();
+		for (int t = 1; t < threads.size(); t++) {
+			threads.get(t).start();
+		}
+		// other IDs are not blocked by the running load
+		cache.put(e(8));
+		assertEquals(8, cache.get(8).getId());
+		release.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, loads.get());
+		assertEquals(4, results.size());
+		for (final Entity e : results) {
+			assertEquals(7, e.getId());
+		}
+	}
+
+	@Test
+	public void testInvalidateWhileLoading() throws InterruptedException {
+		final IdCache<Entity> cache = new IdCache<>(100);
+		for (int mode = 0; mode < 2; mode++) {
+			final CountDownLatch started = new CountDownLatch(1);
+			final CountDownLatch release = new CountDownLatch(1);
+			final AtomicReference<Entity> result = new AtomicReference<>();
+			final Thread thread = new Thread(() -> result.set(cache.get(9, id -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (final InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				// loaded before the invalidation, so it is stale
+				return e(id);
+			})));
+			thread.start();
+			started.await();
+			if (mode == 0) {
+				assertFalse(cache.invalidate(9));
+			} else {
+				cache.invalidateAll();
+			}
+			release.countDown();
+			thread.join();
+			assertEquals(9, result.get().getId());
+			assertNull(cache.get(9));
+			assertEquals(0, cache.size());
+		}
+		// the next load is cached again
+		assertEquals(9, cache.get(9, this::e).getId());
+		assertEquals(9, cache.get(9).getId());
+	}
+
+	@Test
+	public void testLargeWeightedCache() {
+		// the frequency sketch grows with the entries, so a huge maximum weight does not allocate up front
+		final List<IdCache<Entity>> caches = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			caches.add(new IdCache<>(1L << 40, e -> 1000, 16));
+		}
+		for (final IdCache<Entity> cache : caches) {
+			for (long id = 0; id < 10_000; id++) {
+				cache.put(e(id));
+			}
+			assertEquals(10_000, cache.size());
+			assertEquals(10_000_000, cache.getWeight());
+		}
+	}
+
+	@Test
+	public void testLoaderFailure() {
+		final IdCache<Entity> cache = new IdCache<>(100);
+		try {
+			cache.get(1, id -> {
+				throw new IllegalStateException("load failed");
+			});
+			fail("The loader exception is expected");
+		} catch (final IllegalStateException ex) {
+			assertEquals("load failed", ex.getMessage());
+		}
+		// a failed load is not remembered
+		assertEquals(1, cache.get(1, this::e).getId());
+	}
+
+	@Test
+	public void testVersions() {
+		final IdCache<Entity> cache = new IdCache<>(100);
+		assertTrue(cache.put(new Entity(1, 5)));
+		assertFalse(cache.put(new Entity(1, 4)));
+		assertEquals(5, cache.get(1).getVersion());
+		assertTrue(cache.put(new Entity(1, 5)));
+		assertTrue(cache.put(new Entity(1, 6)));
+		assertEquals(6, cache.get(1).getVersion());
+		assertFalse(cache.invalidate(new Entity(1, 5)));
+		assertTrue(cache.invalidate(new Entity(1, 6)));
+		assertFalse(cache.invalidate((Identifiable) null));
+		assertEquals(1, cache.getStats().getRejectedCount());
+	}
+
+	@Test
+	public void testBounded() {
+		final IdCache<Entity> cache = new IdCache<>(1_000);
+		for (long id = 0; id < 100_000; id++) {
+			cache.put(e(id));
+			assertTrue(cache.size() <= 1_000);
+		}
+		assertEquals(1_000, cache.size());
+		assertEquals(99_000, cache.getStats().getEvictionCount());
+	}
+
+	@Test
+	public void testWeighted() {
+		final IdCache<Entity> cache = new IdCache<>(100, e -> (int) e.getId(), 1);
+		cache.put(e(60));
+		cache.put(e(30));
+		cache.put(e(20));
+		assertTrue(cache.getWeight() <= 100);
+		cache.put(e(500));
+		assertNull(cache.get(500));
+		assertTrue(cache.getWeight() <= 100);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeWeight() {
+		final IdCache<Entity> cache = new IdCache<>(100, e -> -1, 1);
+		cache.put(e(1));
+	}
+
+	@Test
+	public void testOversizedWeight() {
+		final IdCache<Entity> cache = new IdCache<>(100, e -> (int) e.getVersion(), 1);
+		assertTrue(cache.put(new Entity(1, 10)));
+		assertFalse(cache.put(new Entity(1, Integer.MAX_VALUE)));
+		assertNull(cache.get(1));
+		assertEquals(0, cache.getWeight());
+		assertTrue(cache.put(new Entity(2, 100)));
+		assertEquals(100, cache.getWeight());
+	}
+
+	@Test
+	public void testFrequentEntriesSurviveScan() {
+		final IdCache<Entity> cache = new IdCache<>(1_000, e -> 1, 1);
+		for (long id = 0; id < 500; id++) {
+			cache.put(e(id));
+		}
+		for (int round = 0; round < 5; round++) {
+			for (long id = 0; id < 500; id++) {
+				cache.get(id);
+			}
+		}
+		// a long scan of entities accessed only once
+		for (long id = 1_000_000; id < 1_100_000; id++) {
+			cache.put(e(id));
+		}
+		int hot = 0;
+		for (long id = 0; id < 500; id++) {
+			if (cache.get(id) != null) {
+				hot++;
+			}
+		}
+		assertTrue("Only " + hot + " frequent entries survived", hot > 450);
+	}
+
+	@Test
+	public void testConcurrentAccess() throws InterruptedException {
+		final IdCache<Entity> cache = new IdCache<>(10_000);
+		final List<Thread> threads = new ArrayList<>();
+		final List<Throwable> errors = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final long seed = t;
+			final Thread thread = new Thread(() -> {
+				final Random r = new Random(seed);
+				for (int i = 0; i < 100_000; i++) {
+					final long id = r.nextInt(50_000);
+					if (r.nextInt(4) == 0) {
+						cache.put(new Entity(id, r.nextInt(10)));
+					} else if (r.nextInt(100) == 0) {
+						cache.invalidate(id);
+					} else {
+						final Entity e = cache.get(id);
+						if (e != null && e.getId() != id) {
+							throw new IllegalStateException("Wrong entity " + e.getId() + " for " + id);
+						}
+					}
+				}
+			});
+			thread.setUncaughtExceptionHandler((th, ex) -> {
+				synchronized (errors) {
+					errors.add(ex);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertTrue(cache.size() <= 10_000);
+	}
+}
@@ -0,0 +1,88 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class CachedClockTest {
+
+	private static class ManualClock extends Clock {
+		private final AtomicLong millis = new AtomicLong();
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(final ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long millis() {
+			return millis.get();
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis());
+		}
+	}
+
+	@Test
+	public void testTicks() throws InterruptedException {
+		final ManualClock source = new ManualClock();
+		source.millis.set(1000);
+		try (final CachedClock clock = new CachedClock(source, 1)) {
+			assertEquals(1000, clock.millis());
+			source.millis.set(2000);
+			final long deadline = System.currentTimeMillis() + 5000;
+			while (clock.millis() != 2000 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(2000, clock.millis());
+			assertEquals(Instant.ofEpochMilli(2000), clock.instant());
+
+			// the cached clock never goes back
+			source.millis.set(1500);
+			Thread.sleep(20);
+			assertEquals(2000, clock.millis());
+
+			final Clock zoned = clock.withZone(ZoneId.of("Europe/Sofia"));
+			assertEquals(2000, zoned.millis());
+			assertTrue(clock.withZone(ZoneOffset.UTC) == clock);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTick() {
+		new CachedClock(0).close();
+	}
+}
@@ -0,0 +1,181 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class IdBitmapTest {
+
+	@Test
+	public void testAddContainsRemove() {
+		final IdBitmap b = IdBitmap.of(70_000, 3, -5, 0, 3, Long.MAX_VALUE, Long.MIN_VALUE);
+		assertEquals(6, b.size());
+		assertTrue(b.contains(0L));
+		assertTrue(b.contains(-5L));
+		assertTrue(b.contains(Long.valueOf(70_000)));
+		assertFalse(b.contains(4L));
+		assertFalse(b.contains((Object) null));
+		assertArrayEquals(new long[] { Long.MIN_VALUE, -5, 0, 3, 70_000, Long.MAX_VALUE }, b.toLongArray());
+		assertArrayEquals(new long[] { Long.MIN_VALUE, -5, 0, 3, 70_000, Long.MAX_VALUE }, b.longStream().toArray());
+		assertTrue(b.remove(70_000L));
+		assertFalse(b.remove(70_000L));
+		assertFalse(b.contains(70_000L));
+		assertEquals(5, b.size());
+		b.clear();
+		assertTrue(b.isEmpty());
+		assertEquals(0, b.getCardinality());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		final Random r = new Random(42);
+		final TreeSet<Long> expected = new TreeSet<>();
+		final IdBitmap actual = new IdBitmap();
+		for (int i = 0; i < 200_000; i++) {
+			// dense range, so containers are converted between array and bitmap
+			final long id = r.nextInt(150_000) - 10_000;
+			if (r.nextInt(3) == 0) {
+				assertEquals(expected.remove(id), actual.remove(id));
+			} else {
+				assertEquals(expected.add(id), actual.add(id));
+			}
+			if (i % 50_000 == 0) {
+				actual.runOptimize();
+			}
+		}
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), actual.toLongArray());
+		for (long id = -10_000; id < 140_000; id++) {
+			assertEquals(expected.contains(id), actual.contains(id));
+		}
+	}
+
+	@Test
+	public void testSetOperations() {
+		final Random r = new Random(7);
+		for (int round = 0; round < 20; round++) {
+			final IdBitmap a = randomBitmap(r);
+			final IdBitmap b = randomBitmap(r);
+			final TreeSet<Long> setA = new TreeSet<>(a);
+			final TreeSet<Long> setB = new TreeSet<>(b);
+
+			final TreeSet<Long> and = new TreeSet<>(setA);
+			and.retainAll(setB);
+			final TreeSet<Long> or = new TreeSet<>(setA);
+			or.addAll(setB);
+			final TreeSet<Long> andNot = new TreeSet<>(setA);
+			andNot.removeAll(setB);
+
+			assertEquals(and, IdBitmap.and(a, b));
+			assertEquals(or, IdBitmap.or(a, b));
+			assertEquals(andNot, IdBitmap.andNot(a, b));
+			assertEquals(IdBitmap.and(a, b), IdBitmap.and(b, a));
+			assertEquals(setA, a);
+			assertEquals(setB, b);
+		}
+	}
+
+	@Test
+	public void testRunOptimize() {
+		final IdBitmap b = new IdBitmap();
+		for (long id = 1; id <= 1_000_000; id++) {
+			b.add(id);
+		}
+		final IdBitmap copy = new IdBitmap(b);
+		assertTrue(b.getSizeInBytes() > 100_000);
+		assertTrue(b.runOptimize());
+		assertFalse(b.runOptimize());
+		assertTrue(b.getSizeInBytes() < 1_000);
+		assertEquals(1_000_000, b.getCardinality());
+		assertEquals(copy, b);
+		assertTrue(b.contains(500_000L));
+		assertFalse(b.contains(0L));
+
+		assertTrue(b.remove(500_000L));
+		assertTrue(b.add(500_000L));
+		assertFalse(b.add(500_000L));
+		assertEquals(copy, b);
+
+		final IdBitmap gaps = IdBitmap.andNot(b, IdBitmap.of(10, 20, 65_536, 999_999));
+		assertEquals(999_996, gaps.getCardinality());
+		assertFalse(gaps.contains(65_536L));
+		assertTrue(gaps.contains(65_537L));
+	}
+
+	@Test
+	public void testBulkOperations() {
+		final IdBitmap b = IdBitmap.of(Arrays.asList(1L, 2L, null, 3L, 4L));
+		assertEquals(4, b.size());
+		assertTrue(b.removeAll(Arrays.asList(1L, 5L)));
+		assertTrue(b.retainAll(LongIdArray.of(2, 3)));
+		assertArrayEquals(new long[] { 2, 3 }, b.toLongArray());
+		assertFalse(b.retainAll(IdBitmap.of(1, 2, 3)));
+		assertTrue(b.removeAll(IdBitmap.of(3)));
+		assertEquals(IdBitmap.of(2), b);
+		assertEquals(IdBitmap.of(LongIdSet.of(5, 1, 3)), IdBitmap.of(1, 3, 5));
+		assertEquals(0, IdBitmap.of((long[]) null).size());
+	}
+
+	private static IdBitmap randomBitmap(final Random r) {
+		final IdBitmap bitmap = new IdBitmap();
+		final int containers = 1 + r.nextInt(6);
+		for (int c = 0; c < containers; c++) {
+			final long high = (r.nextInt(8) - 2) * 65_536L;
+			switch (r.nextInt(3)) {
+			case 0:
+				// sparse
+				for (int i = 0; i < 100; i++) {
+					bitmap.add(high + r.nextInt(65_536));
+				}
+				break;
+			case 1:
+				// dense
+				for (int i = 0; i < 20_000; i++) {
+					bitmap.add(high + r.nextInt(65_536));
+				}
+				break;
+			default:
+				// runs
+				final int start = r.nextInt(30_000);
+				final int end = start + r.nextInt(30_000);
+				for (int i = start; i < end; i++) {
+					bitmap.add(high + i);
+				}
+				break;
+			}
+		}
+		if (r.nextBoolean()) {
+			bitmap.runOptimize();
+		}
+		return bitmap;
+	}
+}
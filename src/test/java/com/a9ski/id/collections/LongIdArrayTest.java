@@ -0,0 +1,57 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LongIdArrayTest {
+
+	@Test
+	public void testSortedUnique() {
+		final long[] ids = { 5, 1, 3, 1, 5 };
+		final LongIdArray a = LongIdArray.of(ids);
+		assertArrayEquals(new long[] { 1, 3, 5 }, a.toLongArray());
+		assertArrayEquals(new long[] { 5, 1, 3, 1, 5 }, ids);
+		assertEquals(Arrays.asList(1L, 3L, 5L), a);
+		assertTrue(a.contains(3L));
+		assertFalse(a.contains(4L));
+		assertEquals(2, a.indexOf(5L));
+		assertEquals(-1, a.indexOf(4L));
+	}
+
+	@Test
+	public void testOfCollection() {
+		assertEquals(Arrays.asList(1L, 2L), LongIdArray.of(Arrays.asList(2L, null, 1L, 2L)));
+		assertEquals(Arrays.asList(1L, 2L), LongIdArray.of(LongIdSet.of(2, 1)));
+		assertTrue(LongIdArray.of((long[]) null).isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable() {
+		LongIdArray.of(1).add(2L);
+	}
+}
@@ -0,0 +1,59 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LongIdListTest {
+
+	@Test
+	public void testList() {
+		final LongIdList l = new LongIdList(1);
+		for (long i = 5; i > 0; i--) {
+			l.add(i);
+		}
+		assertEquals(Arrays.asList(5L, 4L, 3L, 2L, 1L), l);
+		assertEquals(3L, l.getLong(2));
+		assertTrue(l.contains(1L));
+		assertFalse(l.contains(6L));
+		assertEquals(1, l.indexOf(4L));
+		l.sort();
+		assertArrayEquals(new long[] { 1, 2, 3, 4, 5 }, l.toLongArray());
+		assertEquals(1L, l.removeLong(0));
+		assertTrue(l.remove(Long.valueOf(5)));
+		l.add(0, 7L);
+		assertEquals(Arrays.asList(7L, 2L, 3L, 4L), l);
+		assertTrue(l.removeIf(id -> id % 2 == 0));
+		assertEquals(Arrays.asList(7L, 3L), l);
+		assertEquals(10L, l.longStream().sum());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		LongIdList.of(1, 2).getLong(2);
+	}
+}
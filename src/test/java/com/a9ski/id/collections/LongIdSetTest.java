@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LongIdSetTest {
+
+	@Test
+	public void testAddContainsRemove() {
+		final LongIdSet s = LongIdSet.of(3, 0, 1, 3);
+		assertEquals(3, s.size());
+		assertTrue(s.contains(0L));
+		assertTrue(s.contains(3L));
+		assertTrue(s.contains(Long.valueOf(1)));
+		assertFalse(s.contains(2L));
+		assertFalse(s.contains((Object) null));
+		assertTrue(s.remove(0L));
+		assertFalse(s.remove(0L));
+		assertFalse(s.contains(0L));
+		assertEquals(2, s.size());
+		long[] ids = s.toLongArray();
+		Arrays.sort(ids);
+		assertArrayEquals(new long[] { 1, 3 }, ids);
+	}
+
+	@Test
+	public void testRandomOperations() {
+		final Random r = new Random(42);
+		final Set<Long> expected = new HashSet<>();
+		final LongIdSet actual = new LongIdSet();
+		for (int i = 0; i < 100_000; i++) {
+			final long id = r.nextInt(5_000) - 100;
+			if (r.nextInt(3) == 0) {
+				assertEquals(expected.remove(id), actual.remove(id));
+			} else {
+				assertEquals(expected.add(id), actual.add(id));
+			}
+		}
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		for (long id = -100; id < 5_000; id++) {
+			assertEquals(expected.contains(id), actual.contains(id));
+		}
+	}
+
+	@Test
+	public void testBulkOperations() {
+		final LongIdSet s = LongIdSet.of(Arrays.asList(1L, 2L, null, 3L, 4L));
+		assertEquals(4, s.size());
+		assertTrue(s.removeAll(Arrays.asList(1L, 5L)));
+		assertTrue(s.retainAll(LongIdArray.of(2, 3)));
+		assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), s);
+		s.clear();
+		assertTrue(s.isEmpty());
+		assertFalse(s.iterator().hasNext());
+	}
+}
@@ -0,0 +1,76 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class OffHeapLongIdSetTest {
+
+	@Test
+	public void testSortedUnique() {
+		final Random r = new Random(7);
+		final long[] ids = LongStream.generate(() -> r.nextInt(20_000) - 1_000).limit(50_000).toArray();
+		try (final OffHeapLongIdSet s = new OffHeapLongIdSet(LongStream.of(ids).iterator(), 64)) {
+			final LongIdArray expected = LongIdArray.of(ids);
+			assertEquals(expected.size(), s.size());
+			assertArrayEquals(expected.toLongArray(), s.toLongArray());
+			for (long id = -1_001; id < 19_001; id++) {
+				assertEquals(expected.contains(id), s.contains(id));
+			}
+			assertEquals(expected.getLong(10), s.getLong(10));
+		}
+	}
+
+	@Test
+	public void testAlreadySortedAndEqualIds() {
+		try (final OffHeapLongIdSet sorted = new OffHeapLongIdSet(LongStream.range(0, 10_000).iterator(), 16);
+				final OffHeapLongIdSet equal = new OffHeapLongIdSet(LongStream.generate(() -> 5).limit(10_000).iterator(), 16)) {
+			assertArrayEquals(LongStream.range(0, 10_000).toArray(), sorted.toLongArray());
+			assertArrayEquals(new long[] { 5 }, equal.toLongArray());
+			assertEquals(16 * 8, equal.getOffHeapBytes());
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		try (final OffHeapLongIdSet s = OffHeapLongIdSet.of()) {
+			assertTrue(s.isEmpty());
+			assertFalse(s.contains(0L));
+			assertFalse(s.iterator().hasNext());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() {
+		final OffHeapLongIdSet s = OffHeapLongIdSet.of(1, 2, 3);
+		s.close();
+		assertTrue(s.isClosed());
+		s.close();
+		s.contains(1L);
+	}
+}
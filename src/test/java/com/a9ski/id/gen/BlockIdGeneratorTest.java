@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.a9ski.id.MutableIdentifiable;
+
+public class BlockIdGeneratorTest {
+
+	private static class Entity implements MutableIdentifiable {
+
+		private static final long serialVersionUID = -5402911658338466401L;
+
+		private long id;
+
+		public Entity(final long id) {
+			super();
+			this.id = id;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(final long id) {
+			this.id = id;
+		}
+	}
+
+	@Test
+	public void testSequentialIds() {
+		final InMemoryBlockSource source = new InMemoryBlockSource();
+		// run the prefetch synchronously, so the allocations are deterministic
+		final BlockIdGenerator generator = new BlockIdGenerator(source, 8, Runnable::run);
+		assertEquals(0, source.getAllocationCount());
+		for (long expected = 1; expected <= 6; expected++) {
+			assertEquals(expected, generator.nextId());
+		}
+		assertEquals(1, source.getAllocationCount());
+		assertEquals(7, generator.nextId());
+		// the next block has been prefetched when 2 IDs were left
+		assertEquals(2, source.getAllocationCount());
+		assertEquals(8, generator.nextId());
+		assertEquals(9, generator.nextId());
+		assertEquals(2, source.getAllocationCount());
+	}
+
+	@Test
+	public void testFailedPrefetch() {
+		final AtomicInteger calls = new AtomicInteger();
+		final InMemoryBlockSource delegate = new InMemoryBlockSource(100);
+		final BlockSource source = size -> {
+			if (calls.incrementAndGet() == 2) {
+				throw new IllegalStateException("Sequence unavailable");
+			}
+			return delegate.allocate(size);
+		};
+		final BlockIdGenerator generator = new BlockIdGenerator(source, 4, Runnable::run);
+		for (long expected = 100; expected < 108; expected++) {
+			assertEquals(expected, generator.nextId());
+		}
+	}
+
+	@Test
+	public void testDefaultPrefetchThread() {
+		final InMemoryBlockSource delegate = new InMemoryBlockSource();
+		final List<Thread> threads = new ArrayList<>();
+		final BlockSource source = size -> {
+			synchronized (threads) {
+				threads.add(Thread.currentThread());
+			}
+			return delegate.allocate(size);
+		};
+		final BlockIdGenerator first = new BlockIdGenerator(source, 4);
+		final BlockIdGenerator second = new BlockIdGenerator(source, 4);
+		// the 4th ID starts the prefetch, the 5th one switches to the prefetched block
+		for (int i = 0; i < 5; i++) {
+			first.nextId();
+			second.nextId();
+		}
+		synchronized (threads) {
+			// the first block of each generator is allocated by the caller, the next ones by the shared prefetch thread
+			assertEquals(4, threads.size());
+			assertTrue(threads.get(2) == threads.get(3));
+			for (final Thread thread : threads.subList(2, 4)) {
+				assertEquals("id-block-prefetch", thread.getName());
+				assertTrue(thread.isDaemon());
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentIds() throws InterruptedException {
+		final BlockIdGenerator generator = new BlockIdGenerator(new InMemoryBlockSource(), 100);
+		final ConcurrentHashMap<Long, Boolean> ids = new ConcurrentHashMap<>();
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final Thread thread = new Thread(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					ids.put(generator.nextId(), Boolean.TRUE);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(160_000, ids.size());
+		assertTrue(ids.keySet().stream().allMatch(id -> id > 0));
+	}
+
+	@Test
+	public void testAssignIds() {
+		final IdGenerator generator = new BlockIdGenerator(new InMemoryBlockSource(10), 16);
+		final Entity existing = new Entity(3);
+		final List<Entity> entities = Arrays.asList(new Entity(0), existing, null, new Entity(0));
+		assertEquals(2, generator.assignIds(entities));
+		assertEquals(10, entities.get(0).getId());
+		assertEquals(3, existing.getId());
+		assertEquals(11, entities.get(3).getId());
+		assertEquals(0, generator.assignIds(null));
+	}
+}
@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TimeOrderedIdGeneratorTest {
+
+	private static class ManualClock extends Clock {
+		private final AtomicLong millis = new AtomicLong();
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(final ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long millis() {
+			return millis.get();
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis());
+		}
+	}
+
+	@Test
+	public void testLayout() {
+		final ManualClock clock = new ManualClock();
+		final TimeOrderedIdLayout layout = TimeOrderedIdLayout.DEFAULT;
+		clock.millis.set(layout.getEpoch() + 12345);
+		final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7, layout, clock);
+		final long id1 = generator.nextId();
+		final long id2 = generator.nextId();
+		assertTrue(id1 > 0 && id2 > id1);
+		assertEquals(layout.getEpoch() + 12345, layout.getTimestamp(id1));
+		assertEquals(7, layout.getNodeId(id1));
+		assertEquals(0, layout.getSequence(id1));
+		assertEquals(1, layout.getSequence(id2));
+		assertTrue(layout.minIdAt(clock.millis()) <= id1);
+		assertTrue(layout.maxIdAt(clock.millis()) >= id2);
+		assertTrue(layout.maxIdAt(clock.millis() - 1) < id1);
+	}
+
+	@Test
+	public void testClockRegressionAndSequenceOverflow() {
+		final ManualClock clock = new ManualClock();
+		final TimeOrderedIdLayout layout = new TimeOrderedIdLayout(0, 40, 2, 2);
+		clock.millis.set(100);
+		final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1, layout, clock);
+		long previous = generator.nextId();
+		clock.millis.set(50);
+		for (int i = 0; i < 10; i++) {
+			final long id = generator.nextId();
+			assertTrue(id > previous);
+			previous = id;
+		}
+		// 4 IDs per millisecond, so 11 IDs borrowed 2 milliseconds
+		assertEquals(102, layout.getTimestamp(previous));
+		clock.millis.set(200);
+		assertEquals(200, layout.getTimestamp(generator.nextId()));
+	}
+
+	@Test
+	public void testNeverZero() {
+		final ManualClock clock = new ManualClock();
+		final TimeOrderedIdLayout layout = new TimeOrderedIdLayout(0, 40, 0, 4);
+		final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, layout, clock);
+		assertEquals(1, generator.nextId());
+		assertEquals(2, generator.nextId());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidNode() {
+		new TimeOrderedIdGenerator(1024);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLayout() {
+		new TimeOrderedIdLayout(0, 42, 10, 12);
+	}
+
+	@Test
+	public void testConcurrentIds() throws InterruptedException {
+		final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3);
+		final ConcurrentHashMap<Long, Boolean> ids = new ConcurrentHashMap<>();
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final Thread thread = new Thread(() -> {
+				long previous = 0;
+				for (int i = 0; i < 20_000; i++) {
+					final long id = generator.nextId();
+					if (id <= previous) {
+						throw new IllegalStateException(id + " is not bigger than " + previous);
+					}
+					previous = id;
+					ids.put(id, Boolean.TRUE);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(160_000, ids.size());
+	}
+}
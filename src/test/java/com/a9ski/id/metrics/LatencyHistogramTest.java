@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testRecord() {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentileNanos(50));
+		assertEquals(0, histogram.getMeanNanos(), 0);
+
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 10);
+		}
+		histogram.record(-5);
+		assertEquals(101, histogram.getCount());
+		assertEquals(50500, histogram.getTotalNanos());
+		assertEquals(1000, histogram.getMaxNanos());
+		assertEquals(50500.0 / 101, histogram.getMeanNanos(), 1e-9);
+
+		final long[] buckets = histogram.getBucketCounts();
+		assertEquals(LatencyHistogram.BUCKET_COUNT, buckets.length);
+		// the negative latency is recorded as 0
+		assertEquals(1, buckets[0]);
+		// 10 is in [8, 16)
+		assertEquals(1, buckets[4]);
+		// 520 .. 1000 are in [512, 1024)
+		assertEquals(49, buckets[10]);
+
+		// the median 500 is in [256, 512)
+		assertEquals(511, histogram.getPercentileNanos(50));
+		assertEquals(1000, histogram.getPercentileNanos(100));
+		assertEquals(0, histogram.getPercentileNanos(0));
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(100));
+	}
+}
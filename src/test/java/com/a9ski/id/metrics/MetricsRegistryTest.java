@@ -0,0 +1,158 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.id.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.collections.IdBitmap;
+import com.a9ski.utils.IdDelta;
+import com.a9ski.utils.IdentifiableDelta;
+import com.a9ski.utils.IdentifiableUtils;
+
+public class MetricsRegistryTest {
+
+	private static class Entity implements Identifiable {
+		private static final long serialVersionUID = 1L;
+
+		private final long id;
+
+		public Entity(final long id) {
+			super();
+			this.id = id;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+	}
+
+	private MetricsRegistry registry;
+
+	@Before
+	public void setUp() {
+		registry = new MetricsRegistry();
+		OperationMonitor.addListener(registry);
+	}
+
+	@After
+	public void tearDown() {
+		OperationMonitor.removeListener(registry);
+	}
+
+	private static List<Entity> entities(final long... ids) {
+		return LongStream.of(ids).mapToObj(Entity::new).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testDeltas() {
+		final IdDelta delta = new IdDelta(Arrays.asList(1L, 2L, 2L, 3L), Arrays.asList(3L, 4L));
+		assertEquals(1, registry.getCount(OperationType.ID_DELTA));
+		assertEquals(6, registry.getInputCount(OperationType.ID_DELTA));
+		assertEquals(5, registry.getOutputCount(OperationType.ID_DELTA));
+		assertEquals(Collections.singletonMap("sort", 1L), registry.getStrategyCounts(OperationType.ID_DELTA));
+		// the delta is calculated lazily, every result once
+		assertEquals(0, registry.getCount(OperationType.ID_DELTA_RESULT));
+		for (int i = 0; i < 2; i++) {
+			assertEquals(Arrays.asList(1L, 2L), delta.getRemovedIds());
+			assertEquals(Arrays.asList(4L), delta.getAddedIds());
+			assertEquals(Arrays.asList(3L), delta.getIntersectionIds());
+		}
+		assertEquals(3, registry.getCount(OperationType.ID_DELTA_RESULT));
+		assertEquals(15, registry.getInputCount(OperationType.ID_DELTA_RESULT));
+		assertEquals(4, registry.getOutputCount(OperationType.ID_DELTA_RESULT));
+		assertEquals(Long.valueOf(2), registry.getStrategyCounts(OperationType.ID_DELTA_RESULT).get("subtract"));
+		assertEquals(Long.valueOf(1), registry.getStrategyCounts(OperationType.ID_DELTA_RESULT).get("intersect"));
+
+		new IdDelta(IdBitmap.of(1, 2, 3), IdBitmap.of(3, 4)).getRemovedIdBitmap();
+		assertEquals(4, registry.getCount(OperationType.ID_DELTA_RESULT));
+		assertEquals(Long.valueOf(1), registry.getStrategyCounts(OperationType.ID_DELTA_RESULT).get("bitmap-and-not"));
+
+		new IdentifiableDelta<>(entities(1, 2, 3), entities(3, 4));
+		assertEquals(1, registry.getCount(OperationType.IDENTIFIABLE_DELTA));
+		assertEquals(5, registry.getInputCount(OperationType.IDENTIFIABLE_DELTA));
+		// two removed, one added and one intersection
+		assertEquals(4, registry.getOutputCount(OperationType.IDENTIFIABLE_DELTA));
+		assertEquals(Collections.singletonMap("index", 1L), registry.getStrategyCounts(OperationType.IDENTIFIABLE_DELTA));
+		// the delta of identifiable objects does not report the sorting of its IDs, but reports the intersection
+		assertEquals(1, registry.getCount(OperationType.ID_DELTA));
+		assertEquals(5, registry.getCount(OperationType.ID_DELTA_RESULT));
+	}
+
+	@Test
+	public void testBulkOperations() {
+		final List<Entity> entities = entities(1, 2, 3, 4);
+		IdentifiableUtils.getByIds(entities, Arrays.asList(2L, 5L));
+		assertEquals(6, registry.getInputCount(OperationType.GET_BY_IDS));
+		assertEquals(1, registry.getOutputCount(OperationType.GET_BY_IDS));
+		assertEquals(Collections.singletonMap("linear", 1L), registry.getStrategyCounts(OperationType.GET_BY_IDS));
+
+		final List<Long> manyIds = LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList());
+		IdentifiableUtils.removeByIds(new ArrayList<>(entities), manyIds);
+		IdentifiableUtils.removeByIds(new ArrayList<>(entities), 1L);
+		assertEquals(2, registry.getCount(OperationType.REMOVE_BY_IDS));
+		assertEquals(109, registry.getInputCount(OperationType.REMOVE_BY_IDS));
+		assertEquals(5, registry.getOutputCount(OperationType.REMOVE_BY_IDS));
+		assertEquals(2, registry.getStrategyCounts(OperationType.REMOVE_BY_IDS).size());
+
+		IdentifiableUtils.mapByIds(entities);
+		assertEquals(4, registry.getOutputCount(OperationType.MAP_BY_IDS));
+		IdentifiableUtils.reorderByIds(entities, new long[] { 4, 3 });
+		assertEquals(6, registry.getInputCount(OperationType.REORDER_BY_IDS));
+		assertEquals(4, registry.getOutputCount(OperationType.REORDER_BY_IDS));
+	}
+
+	@Test
+	public void testListeners() {
+		final List<OperationType> types = new ArrayList<>();
+		final OperationListener failing = (type, strategy, inputSize, outputSize, durationNanos) -> {
+			types.add(type);
+			throw new IllegalStateException("failing listener");
+		};
+		OperationMonitor.addListener(failing);
+		try {
+			assertTrue(OperationMonitor.isEnabled());
+			IdentifiableUtils.mapByIds(entities(1));
+			assertEquals(Collections.singletonList(OperationType.MAP_BY_IDS), types);
+			assertEquals(1, registry.getCount(OperationType.MAP_BY_IDS));
+		} finally {
+			assertTrue(OperationMonitor.removeListener(failing));
+		}
+		assertFalse(OperationMonitor.removeListener(failing));
+
+		// operations started without listeners are not reported
+		OperationMonitor.completed(OperationType.MAP_BY_IDS, 0L, "tree", 1, 1);
+		assertEquals(1, registry.getCount(OperationType.MAP_BY_IDS));
+	}
+}
@@ -0,0 +1,130 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.a9ski.id.MutableAuditable;
+import com.a9ski.id.clock.AuditClock;
+
+public class AuditableUtilsTest {
+
+	private static class Entity implements MutableAuditable {
+		private Long creator;
+		private Long editor;
+		private Date created;
+		private Date edited;
+
+		@Override
+		public Long getCreator() {
+			return creator;
+		}
+
+		@Override
+		public Long getEditor() {
+			return editor;
+		}
+
+		@Override
+		public Date getCreated() {
+			return created;
+		}
+
+		@Override
+		public Date getEdited() {
+			return edited;
+		}
+
+		@Override
+		public void setCreator(final Long creatorId) {
+			this.creator = creatorId;
+		}
+
+		@Override
+		public void setEditor(final Long editorId) {
+			this.editor = editorId;
+		}
+
+		@Override
+		public void setCreated(final Date created) {
+			this.created = created;
+		}
+
+		@Override
+		public void setEdited(final Date edited) {
+			this.edited = edited;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		AuditClock.setClock(null);
+	}
+
+	@Test
+	public void testTouchUsesAuditClock() {
+		AuditClock.setClock(Clock.fixed(Instant.ofEpochMilli(1000), ZoneOffset.UTC));
+		final Entity e = new Entity();
+		e.touch(1);
+		assertEquals(new Date(1000), e.getCreated());
+		assertEquals(new Date(1000), e.getEdited());
+
+		AuditClock.setClock(Clock.fixed(Instant.ofEpochMilli(2000), ZoneOffset.UTC));
+		e.touch(2);
+		assertEquals(Long.valueOf(1), e.getCreator());
+		assertEquals(Long.valueOf(2), e.getEditor());
+		assertEquals(new Date(1000), e.getCreated());
+		assertEquals(new Date(2000), e.getEdited());
+	}
+
+	@Test
+	public void testTouchAll() {
+		AuditClock.setClock(Clock.fixed(Instant.ofEpochMilli(5000), ZoneOffset.UTC));
+		final List<Entity> entities = Arrays.asList(new Entity(), null, new Entity());
+		final Date now = AuditableUtils.touchAll(entities, 7);
+		assertEquals(new Date(5000), now);
+		assertEquals(now, entities.get(0).getEdited());
+		assertEquals(now, entities.get(2).getEdited());
+		assertEquals(now, entities.get(2).getCreated());
+		assertEquals(Long.valueOf(7), entities.get(2).getEditor());
+		// no date instance is shared between objects, changing one does not affect the others
+		assertTrue(entities.get(0).getEdited() != now);
+		assertTrue(entities.get(0).getEdited() != entities.get(2).getEdited());
+		assertTrue(entities.get(2).getCreated() == entities.get(2).getEdited());
+		AuditableUtils.touchAll(null, 7);
+
+		final Date provided = new Date(6000);
+		AuditableUtils.touchAll(entities, 8, provided);
+		provided.setTime(0);
+		assertEquals(new Date(6000), entities.get(0).getEdited());
+		assertEquals(new Date(5000), entities.get(0).getCreated());
+	}
+}
@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.a9ski.id.Auditable;
+import com.a9ski.id.Deletable;
+import com.a9ski.id.Identifiable;
+
+public class ChangeFeedTest {
+
+	private static class Entity implements Identifiable, Auditable, Deletable {
+
+		private static final long serialVersionUID = -4630123373541409468L;
+
+		private final long id;
+		private final Date created;
+		private final Date edited;
+		private final boolean deleted;
+
+		public Entity(final long id, final Long created, final Long edited, final boolean deleted) {
+			super();
+			this.id = id;
+			this.created = (created != null ? new Date(created) : null);
+			this.edited = (edited != null ? new Date(edited) : null);
+			this.deleted = deleted;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public Long getCreator() {
+			return null;
+		}
+
+		@Override
+		public Long getEditor() {
+			return null;
+		}
+
+		@Override
+		public Date getCreated() {
+			return created;
+		}
+
+		@Override
+		public Date getEdited() {
+			return edited;
+		}
+
+		@Override
+		public boolean isDeleted() {
+			return deleted;
+		}
+	}
+
+	private static List<Long> ids(final List<Entity> entities) {
+		return entities.stream().map(Entity::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testPoll() {
+		final ChangeFeed<Entity> feed = new ChangeFeed<>();
+		final Entity e1 = new Entity(1, 100L, null, false);
+		final Entity e2 = new Entity(2, 100L, null, false);
+		final Entity e3 = new Entity(3, 50L, 90L, false);
+		final Entity noTime = new Entity(4, null, null, false);
+
+		ChangeFeed.Changes<Entity> changes = feed.poll(Arrays.asList(e2, e1, e3, noTime, null));
+		assertEquals(Arrays.asList(3L, 1L, 2L), ids(changes.getCreated()));
+		assertTrue(changes.getUpdated().isEmpty());
+		assertEquals(100, feed.getWatermarkTime());
+		assertEquals(2, feed.getWatermarkId());
+
+		assertTrue(feed.poll(Arrays.asList(e1, e2, e3)).isEmpty());
+
+		// same time stamp as the watermark, but bigger ID
+		final Entity e5 = new Entity(5, 100L, null, false);
+		final Entity e1Edited = new Entity(1, 100L, 200L, false);
+		final Entity e2Deleted = new Entity(2, 100L, 150L, true);
+		changes = feed.poll(Arrays.asList(e1Edited, e2Deleted, e3, e5));
+		assertEquals(Arrays.asList(5L), ids(changes.getCreated()));
+		assertEquals(Arrays.asList(1L), ids(changes.getUpdated()));
+		assertEquals(Arrays.asList(2L), ids(changes.getDeleted()));
+		assertEquals(200, feed.getWatermarkTime());
+		assertEquals(1, feed.getWatermarkId());
+
+		assertTrue(feed.poll(null).isEmpty());
+	}
+
+	@Test
+	public void testResume() {
+		final ChangeFeed<Entity> feed = new ChangeFeed<>(100, 2);
+		final ChangeFeed.Changes<Entity> changes = feed
+				.poll(Arrays.asList(new Entity(1, 100L, null, false), new Entity(2, 100L, null, false), new Entity(3, 100L, null, false)));
+		assertEquals(Arrays.asList(3L), ids(changes.getCreated()));
+	}
+}
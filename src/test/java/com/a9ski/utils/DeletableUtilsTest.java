@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.a9ski.id.Deletable;
+
+public class DeletableUtilsTest {
+
+	private static class Entity implements Deletable {
+		private final boolean deleted;
+
+		public Entity(final boolean deleted) {
+			super();
+			this.deleted = deleted;
+		}
+
+		@Override
+		public boolean isDeleted() {
+			return deleted;
+		}
+	}
+
+	@Test
+	public void testPartition() {
+		final Entity live1 = new Entity(false);
+		final Entity deleted1 = new Entity(true);
+		final Entity live2 = new Entity(false);
+		final Entity deleted2 = new Entity(true);
+		final List<Entity> entities = Arrays.asList(live1, deleted1, null, live2, deleted2);
+		final DeletablePartition<Entity> partition = DeletableUtils.partition(entities);
+		assertEquals(Arrays.asList(live1, live2), partition.getLive());
+		assertEquals(Arrays.asList(deleted1, deleted2), partition.getDeleted());
+		final BitSet expected = new BitSet();
+		expected.set(1);
+		expected.set(4);
+		assertEquals(expected, partition.getDeletedPositions());
+		assertEquals(expected, DeletableUtils.getDeletedPositions(entities));
+
+		partition.getDeletedPositions().clear();
+		assertEquals(expected, partition.getDeletedPositions());
+
+		final DeletablePartition<Entity> empty = DeletableUtils.partition(null);
+		assertTrue(empty.getLive().isEmpty());
+		assertTrue(empty.getDeleted().isEmpty());
+		assertTrue(empty.getDeletedPositions().isEmpty());
+		assertTrue(DeletableUtils.getDeletedPositions(null).isEmpty());
+	}
+}
@@ -0,0 +1,155 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.LongIdList;
+
+public class ExternalIdSorterTest {
+
+	private static long[] toArray(final PrimitiveIterator.OfLong it) {
+		final LongIdList list = new LongIdList();
+		it.forEachRemaining((long id) -> list.add(id));
+		return list.toLongArray();
+	}
+
+	private static long countFiles(final Path dir) throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	public void testInMemory() throws IOException {
+		try (final ExternalIdSorter sorter = new ExternalIdSorter(1 << 20, null)) {
+			sorter.addAll(LongStream.of(5, 3, 5, 1, 3).iterator());
+			assertArrayEquals(new long[] { 1, 3, 5 }, toArray(sorter.iterator()));
+			assertEquals(0, sorter.getRunCount());
+		}
+	}
+
+	@Test
+	public void testSpillAndMultiPassMerge() throws IOException {
+		final Path dir = Files.createTempDirectory("external-sort");
+		try {
+			final Random r = new Random(3);
+			final long[] ids = LongStream.generate(() -> r.nextInt(200_000) - 50_000).limit(300_000).toArray();
+			try (final ExternalIdSorter sorter = new ExternalIdSorter(0, dir)) {
+				sorter.addAll(LongStream.of(ids).iterator());
+				assertTrue(sorter.getRunCount() > ExternalIdSorter.MAX_FAN_IN);
+				assertArrayEquals(LongIdArray.of(ids).toLongArray(), toArray(sorter.iterator()));
+			}
+			assertEquals(0, countFiles(dir));
+		} finally {
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void testLargeBudget() throws IOException {
+		// the buffer grows with the IDs, a budget of 16 GB is not allocated up front
+		try (final ExternalIdSorter first = new ExternalIdSorter(1L << 34, null); final ExternalIdSorter second = new ExternalIdSorter(1L << 34, null)) {
+			first.addAll(LongStream.of(3, 1, 2).iterator());
+			assertArrayEquals(new long[] { 1, 2, 3 }, toArray(first.iterator()));
+			second.addAll(LongStream.range(0, 100_000).map(i -> 100_000 - i).iterator());
+			assertEquals(0, second.getRunCount());
+			assertArrayEquals(LongStream.rangeClosed(1, 100_000).toArray(), toArray(second.iterator()));
+		}
+	}
+
+	@Test
+	public void testFailedMergePass() throws IOException {
+		final Path dir = Files.createTempDirectory("external-sort");
+		try {
+			try (final ExternalIdSorter sorter = new ExternalIdSorter(0, dir)) {
+				// three merge groups, each run has the minimal buffer length
+				sorter.addAll(LongStream.range(0, 1024L * (2 * ExternalIdSorter.MAX_FAN_IN + 10)).iterator());
+				assertTrue(sorter.getRunCount() > 2 * ExternalIdSorter.MAX_FAN_IN);
+				// a run disappears, so the merge pass fails; the runs of the groups not merged yet must still be deleted
+				try (Stream<Path> files = Files.list(dir)) {
+					Files.delete(files.sorted().skip(ExternalIdSorter.MAX_FAN_IN + 1).findFirst().get());
+				}
+				try {
+					sorter.iterator();
+					fail("The merge must fail");
+				} catch (final IOException ex) {
+					// expected
+				}
+			}
+			assertEquals(0, countFiles(dir));
+		} finally {
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void testDelta() throws IOException {
+		final Random r = new Random(5);
+		final long[] oldIds = LongStream.generate(() -> r.nextInt(50_000)).limit(40_000).toArray();
+		final long[] newIds = LongStream.generate(() -> r.nextInt(50_000)).limit(40_000).toArray();
+		final LongIdList removed = new LongIdList();
+		final LongIdList added = new LongIdList();
+		final LongIdList intersection = new LongIdList();
+		final StreamingIdDelta d = ExternalIdSorter.delta(LongStream.of(oldIds).iterator(), LongStream.of(newIds).iterator(), new IdDeltaSink() {
+			@Override
+			public void removed(final long id) {
+				removed.add(id);
+			}
+
+			@Override
+			public void added(final long id) {
+				added.add(id);
+			}
+
+			@Override
+			public void intersection(final long id) {
+				intersection.add(id);
+			}
+		}, 64 * 1024, null);
+		final LongIdDelta expected = new LongIdDelta(oldIds, newIds);
+		assertArrayEquals(expected.getRemovedIds(), removed.toLongArray());
+		assertArrayEquals(expected.getAddedIds(), added.toLongArray());
+		assertArrayEquals(expected.getIntersectionIds(), intersection.toLongArray());
+		assertEquals(expected.getRemovedCount(), d.getRemovedCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddAfterSort() throws IOException {
+		try (final ExternalIdSorter sorter = new ExternalIdSorter(1024, null)) {
+			sorter.iterator();
+			sorter.add(1);
+		}
+	}
+}
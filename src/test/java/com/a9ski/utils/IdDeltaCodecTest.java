@@ -0,0 +1,240 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.a9ski.id.collections.IdBitmap;
+
+public class IdDeltaCodecTest {
+
+	private static long[] toArray(final PrimitiveIterator.OfLong it) {
+		final List<Long> ids = new ArrayList<>();
+		it.forEachRemaining((long id) -> ids.add(id));
+		return ids.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	private static void assertSameDelta(final IdDelta expected, final IdDelta actual) {
+		assertEquals(expected.getRemovedIds(), actual.getRemovedIds());
+		assertEquals(expected.getAddedIds(), actual.getAddedIds());
+		assertEquals(expected.getIntersectionIds(), actual.getIntersectionIds());
+		assertEquals(expected.hasDelta(), actual.hasDelta());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		final IdDelta delta = new IdDelta(Arrays.asList(Long.MIN_VALUE, -5L, 0L, 3L, 7L, Long.MAX_VALUE), Arrays.asList(-5L, 3L, 4L, Long.MAX_VALUE));
+		final byte[] bytes = IdDeltaCodec.encode(delta);
+		assertEquals(IdDeltaCodec.getEncodedSize(delta), bytes.length);
+		assertEquals(IdDeltaCodec.VERSION, bytes[0]);
+
+		final EncodedIdDelta encoded = IdDeltaCodec.read(ByteBuffer.wrap(bytes));
+		assertEquals(3, encoded.getRemovedCount());
+		assertEquals(1, encoded.getAddedCount());
+		assertEquals(3, encoded.getIntersectionCount());
+		assertTrue(encoded.hasDelta());
+		assertArrayEquals(new long[] { Long.MIN_VALUE, 0, 7 }, toArray(encoded.getRemovedIdIterator()));
+		assertArrayEquals(new long[] { 4 }, toArray(encoded.getAddedIdIterator()));
+		assertArrayEquals(new long[] { -5, 3, Long.MAX_VALUE }, toArray(encoded.getIntersectionIdIterator()));
+		assertSameDelta(delta, IdDeltaCodec.decode(ByteBuffer.wrap(bytes)));
+
+		final IdDelta empty = new IdDelta((List<Long>) null, null);
+		final EncodedIdDelta encodedEmpty = IdDeltaCodec.read(ByteBuffer.wrap(IdDeltaCodec.encode(empty)));
+		assertFalse(encodedEmpty.hasDelta());
+		assertEquals(0, encodedEmpty.getIntersectionCount());
+		assertSameDelta(empty, encodedEmpty.toIdDelta());
+	}
+
+	@Test
+	public void testRandom() {
+		final Random rnd = new Random(11);
+		for (int i = 0; i < 50; i++) {
+			final List<Long> oldIds = new ArrayList<>();
+			final List<Long> newIds = new ArrayList<>();
+			for (int j = rnd.nextInt(500); j > 0; j--) {
+				final long id = (i % 2 == 0 ? rnd.nextLong() : rnd.nextInt(1000) - 500);
+				if (rnd.nextBoolean()) {
+					oldIds.add(id);
+				}
+				if (rnd.nextBoolean()) {
+					newIds.add(id);
+				}
+			}
+			final IdDelta delta = new IdDelta(oldIds, newIds);
+			assertSameDelta(delta, IdDeltaCodec.decode(ByteBuffer.wrap(IdDeltaCodec.encode(delta))));
+			final IdDelta bitmapDelta = new IdDelta(IdBitmap.of(oldIds), IdBitmap.of(newIds));
+			assertSameDelta(delta, IdDeltaCodec.decode(ByteBuffer.wrap(IdDeltaCodec.encode(bitmapDelta))));
+		}
+	}
+
+	@Test
+	public void testDenseSize() {
+		final int size = 100000;
+		final List<Long> oldIds = new ArrayList<>();
+		final List<Long> newIds = new ArrayList<>();
+		for (long id = 1_000_000_000L; id < 1_000_000_000L + size; id++) {
+			oldIds.add(id);
+			newIds.add(id + size / 2);
+		}
+		final IdDelta delta = new IdDelta(oldIds, newIds);
+		final int ids = delta.getRemovedIds().size() + delta.getAddedIds().size() + delta.getIntersectionIds().size();
+		assertTrue(IdDeltaCodec.getEncodedSize(delta) < 2 * ids);
+	}
+
+	@Test
+	public void testClusteredSize() {
+		// clusters of 100 sequential IDs, separated by gaps of 10000
+		final Random rnd = new Random(5);
+		final List<Long> oldIds = new ArrayList<>();
+		final List<Long> newIds = new ArrayList<>();
+		for (int cluster = 0; cluster < 1000; cluster++) {
+			for (long id = cluster * 10_000L; id < cluster * 10_000L + 100; id++) {
+				(rnd.nextBoolean() ? oldIds : newIds).add(id);
+			}
+		}
+		final IdDelta delta = new IdDelta(oldIds, newIds);
+		final int ids = delta.getRemovedIds().size() + delta.getAddedIds().size() + delta.getIntersectionIds().size();
+		// a byte per ID within a cluster, 2 bytes for the gap between clusters, a quarter of the 8 bytes of a plain long
+		assertTrue(IdDeltaCodec.getEncodedSize(delta) < 2 * ids);
+	}
+
+	@Test
+	public void testBuffer() {
+		final IdDelta first = new IdDelta(Arrays.asList(1L, 2L), Arrays.asList(2L, 3L));
+		final IdDelta second = new IdDelta(Arrays.asList(10L), Arrays.asList(20L));
+		final ByteBuffer buffer = ByteBuffer.allocate(100);
+		buffer.put((byte) 42);
+		IdDeltaCodec.encode(first, buffer);
+		IdDeltaCodec.encode(second, buffer);
+		final int end = buffer.position();
+		assertEquals(1 + IdDeltaCodec.getEncodedSize(first) + IdDeltaCodec.getEncodedSize(second), end);
+
+		buffer.flip();
+		assertEquals(42, buffer.get());
+		final EncodedIdDelta encoded = IdDeltaCodec.read(buffer);
+		assertSameDelta(second, IdDeltaCodec.decode(buffer));
+		assertEquals(end, buffer.position());
+		// the view does not depend on the position of the buffer
+		buffer.clear();
+		assertSameDelta(first, encoded.toIdDelta());
+
+		final ByteBuffer small = ByteBuffer.allocate(IdDeltaCodec.getEncodedSize(first) - 1);
+		try {
+			IdDeltaCodec.encode(first, small);
+			fail("Encoding must fail");
+		} catch (final BufferOverflowException ex) {
+			assertEquals(0, small.position());
+		}
+	}
+
+	@Test
+	public void testIterator() {
+		final EncodedIdDelta encoded = IdDeltaCodec.read(ByteBuffer.wrap(IdDeltaCodec.encode(new IdDelta(Arrays.asList(1L), Arrays.asList(2L)))));
+		final PrimitiveIterator.OfLong it = encoded.getRemovedIdIterator();
+		assertEquals(1L, it.nextLong());
+		assertFalse(it.hasNext());
+		try {
+			it.nextLong();
+			fail("The iterator must be exhausted");
+		} catch (final NoSuchElementException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCorrupted() {
+		final byte[] bytes = IdDeltaCodec.encode(new IdDelta(Arrays.asList(1L, 300L), Arrays.asList(300L, 70000L)));
+		final List<byte[]> corrupted = new ArrayList<>();
+		corrupted.add(new byte[0]);
+		corrupted.add(new byte[] { 2, 0, 0, 0, 0, 0, 0 });
+		corrupted.add(Arrays.copyOf(bytes, bytes.length - 1));
+		corrupted.add(new byte[] { IdDeltaCodec.VERSION, 5, 1, 0, 0, 0, 0, 0 });
+		corrupted.add(new byte[] { IdDeltaCodec.VERSION, (byte) 0x80, (byte) 0x80 });
+		for (final byte[] b : corrupted) {
+			try {
+				IdDeltaCodec.read(ByteBuffer.wrap(b));
+				fail("Reading must fail for " + Arrays.toString(b));
+			} catch (final IllegalArgumentException ex) {
+				// expected
+			}
+		}
+		// a section whose IDs overflow its length
+		final byte[] overflow = { IdDeltaCodec.VERSION, 1, 1, (byte) 0x82, 0x01, 0, 0, 0, 0 };
+		try {
+			IdDeltaCodec.decode(ByteBuffer.wrap(overflow));
+			fail("Decoding must fail");
+		} catch (final IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCorruptedGaps() {
+		final List<byte[]> corrupted = new ArrayList<>();
+		// zero gap: 5, 5
+		corrupted.add(new byte[] { IdDeltaCodec.VERSION, 2, 2, 10, 0, 0, 0, 0, 0 });
+		// the gap overflows: Long.MAX_VALUE, Long.MAX_VALUE + 1
+		corrupted.add(new byte[] { IdDeltaCodec.VERSION, 2, 11, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01, 1, 0, 0, 0, 0 });
+		for (final byte[] b : corrupted) {
+			final EncodedIdDelta encoded = IdDeltaCodec.read(ByteBuffer.wrap(b));
+			final PrimitiveIterator.OfLong it = encoded.getRemovedIdIterator();
+			it.nextLong();
+			try {
+				it.nextLong();
+				fail("Iterating must fail for " + Arrays.toString(b));
+			} catch (final IllegalArgumentException ex) {
+				// expected
+			}
+			try {
+				encoded.toIdDelta();
+				fail("Decoding must fail for " + Arrays.toString(b));
+			} catch (final IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testSharedArrays() {
+		final IdDelta delta = new IdDelta(Arrays.asList(1L, 2L, 3L), Arrays.asList(2L, 4L));
+		assertTrue(delta.removedIdArray() == delta.removedIdArray());
+		assertTrue(delta.addedIdArray() == delta.addedIdArray());
+		assertTrue(delta.intersectionIdArray() == delta.intersectionIdArray());
+		final IdDelta bitmaps = new IdDelta(IdBitmap.of(new long[] { 1, 2 }), IdBitmap.of(new long[] { 2 }));
+		assertTrue(bitmaps.removedIdArray() == bitmaps.removedIdArray());
+		assertArrayEquals(new long[] { 1 }, bitmaps.removedIdArray());
+	}
+}
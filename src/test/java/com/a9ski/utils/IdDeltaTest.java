@@ -27,6 +27,10 @@ import java.util.Arrays;
 
 import org.junit.Test;
 
+import com.a9ski.id.collections.IdBitmap;
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.LongIdSet;
+
 public class IdDeltaTest {
 
 	@Test
@@ -73,4 +77,52 @@ public class IdDeltaTest {
 		assertTrue(d.getRemovedIds().isEmpty());
 		assertFalse(d.hasDelta());
 	}
+
+	@Test
+	public void testPrimitiveCollections() {
+		final IdDelta d = new IdDelta(LongIdArray.of(4, 3, 2, 1), LongIdSet.of(3, 4, 5, 6));
+		assertEquals(Arrays.asList(1L, 2L), d.getRemovedIds());
+		assertEquals(Arrays.asList(3L, 4L), d.getIntersectionIds());
+		assertEquals(Arrays.asList(5L, 6L), d.getAddedIds());
+	}
+
+	@Test
+	public void testLazyHasDelta() {
+		assertFalse(new IdDelta(Arrays.asList(3L, 1L, 2L, 1L), Arrays.asList(1L, 2L, 3L)).hasDelta());
+		assertTrue(new IdDelta(Arrays.asList(1L, 2L), Arrays.asList(1L, 3L)).hasDelta());
+		assertTrue(new IdDelta(Arrays.asList(1L, 2L), Arrays.asList(1L)).hasDelta());
+		final IdDelta d = new IdDelta(Arrays.asList(1L, 2L), Arrays.asList(2L, 3L));
+		assertEquals(Arrays.asList(2L), d.getIntersectionIds());
+		assertEquals(Arrays.asList(2L), d.getIntersectionIds());
+		assertEquals(Arrays.asList(3L), d.getAddedIds());
+		assertEquals(Arrays.asList(1L), d.getRemovedIds());
+	}
+
+	@Test
+	public void testBitmaps() {
+		final IdBitmap oldIds = new IdBitmap();
+		final IdBitmap newIds = new IdBitmap();
+		for (long id = 1; id <= 200_000; id++) {
+			oldIds.add(id);
+			newIds.add(id + 100_000);
+		}
+		oldIds.runOptimize();
+		final IdDelta d = new IdDelta(oldIds, newIds);
+		assertTrue(d.hasDelta());
+		assertEquals(100_000, d.getRemovedIdBitmap().getCardinality());
+		assertEquals(100_000, d.getAddedIdBitmap().getCardinality());
+		assertEquals(100_000, d.getIntersectionIdBitmap().getCardinality());
+		assertEquals(Long.valueOf(1), d.getRemovedIds().get(0));
+		assertEquals(Long.valueOf(200_001), d.getAddedIds().get(0));
+		assertEquals(Long.valueOf(100_001), d.getIntersectionIds().get(0));
+
+		final IdDelta same = new IdDelta(IdBitmap.of(1, 2, 3), IdBitmap.of(3, 2, 1));
+		assertFalse(same.hasDelta());
+		assertTrue(same.getRemovedIds().isEmpty());
+
+		final IdDelta lists = new IdDelta(Arrays.asList(1L, 2L), Arrays.asList(2L, 3L));
+		assertEquals(IdBitmap.of(1), lists.getRemovedIdBitmap());
+		assertEquals(IdBitmap.of(3), lists.getAddedIdBitmap());
+		assertEquals(IdBitmap.of(2), lists.getIntersectionIdBitmap());
+	}
 }
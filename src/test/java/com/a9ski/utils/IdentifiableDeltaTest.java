@@ -24,11 +24,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Test;
 
+import com.a9ski.id.Auditable;
+import com.a9ski.id.Deletable;
+import com.a9ski.id.Identifiable;
 import com.a9ski.id.MutableIdentifiable;
+import com.a9ski.id.Versioned;
 
 public class IdentifiableDeltaTest {
 
@@ -84,6 +90,93 @@ public class IdentifiableDeltaTest {
 		}
 	}
 
+	private static class VersionedEntity implements Identifiable, Versioned {
+
+		private static final long serialVersionUID = -1519367744937355870L;
+
+		private final long id;
+		private final long version;
+
+		public VersionedEntity(final long id, final long version) {
+			super();
+			this.id = id;
+			this.version = version;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public long getVersion() {
+			return version;
+		}
+	}
+
+	private static class AuditableEntity implements Identifiable, Auditable {
+
+		private static final long serialVersionUID = 6064377402465342441L;
+
+		private final long id;
+		private final Date edited;
+
+		public AuditableEntity(final long id, final Date edited) {
+			super();
+			this.id = id;
+			this.edited = edited;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public Long getCreator() {
+			return null;
+		}
+
+		@Override
+		public Long getEditor() {
+			return null;
+		}
+
+		@Override
+		public Date getCreated() {
+			return null;
+		}
+
+		@Override
+		public Date getEdited() {
+			return edited;
+		}
+	}
+
+	private static class DeletableEntity implements Identifiable, Deletable {
+
+		private static final long serialVersionUID = 1975409385367616377L;
+
+		private final long id;
+		private final boolean deleted;
+
+		public DeletableEntity(final long id, final boolean deleted) {
+			super();
+			this.id = id;
+			this.deleted = deleted;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public boolean isDeleted() {
+			return deleted;
+		}
+	}
+
 	private Entity e(final int id) {
 		return new Entity(id);
 	}
@@ -117,4 +210,78 @@ public class IdentifiableDeltaTest {
 		assertFalse(d.hasDelta());
 	}
 
+	@Test
+	public void testNullElements() {
+		final IdentifiableDelta<Entity, Entity> d = new IdentifiableDelta<>(Arrays.asList(e(1), null, e(2)), Arrays.asList(null, e(2), e(3)));
+		assertEquals(Arrays.asList(e(1)), d.getRemoved());
+		assertEquals(Arrays.asList(Pair.of(e(2), e(2))), d.getIntersection());
+		assertEquals(Arrays.asList(e(3)), d.getAdded());
+		assertEquals(Arrays.asList(e(1), null, e(2)), d.getOldObjects());
+	}
+
+	@Test
+	public void testDuplicateIds() {
+		final Entity first = e(2);
+		final Entity second = e(2);
+		final IdentifiableDelta<Entity, Entity> d = new IdentifiableDelta<>(Arrays.asList(e(1), first, e(1), second), Arrays.asList(second, e(3), e(3)));
+		assertEquals(Arrays.asList(e(1), e(1)), d.getRemoved());
+		assertEquals(1, d.getIntersection().size());
+		assertTrue(d.getIntersection().get(0).getLeft() == first);
+		assertTrue(d.getIntersection().get(0).getRight() == second);
+		assertEquals(Arrays.asList(e(3), e(3)), d.getAdded());
+	}
+
+	@Test
+	public void testModifiedVersioned() {
+		final IdentifiableDelta<VersionedEntity, VersionedEntity> d = new IdentifiableDelta<>(
+				Arrays.asList(new VersionedEntity(1, 1), new VersionedEntity(2, 1), new VersionedEntity(3, 1)),
+				Arrays.asList(new VersionedEntity(1, 1), new VersionedEntity(2, 2), new VersionedEntity(4, 1)));
+		assertEquals(2, d.getIntersection().size());
+		assertEquals(1, d.getModified().size());
+		assertEquals(2, d.getModified().get(0).getRight().getVersion());
+		assertEquals(1, d.getUnchanged().size());
+		assertEquals(1, d.getUnchanged().get(0).getLeft().getId());
+	}
+
+	@Test
+	public void testModifiedAuditable() {
+		final List<AuditableEntity> oldObjects = Arrays.asList(new AuditableEntity(1, new Date(1000)), new AuditableEntity(2, new Date(1000)),
+				new AuditableEntity(3, null));
+		final List<AuditableEntity> newObjects = Arrays.asList(new AuditableEntity(1, new Date(1000)), new AuditableEntity(2, new Date(2000)),
+				new AuditableEntity(3, null));
+		final IdentifiableDelta<AuditableEntity, AuditableEntity> d = new IdentifiableDelta<>(oldObjects, newObjects, true);
+		assertTrue(d.isCompareEdited());
+		assertEquals(1, d.getModified().size());
+		assertEquals(2, d.getModified().get(0).getLeft().getId());
+		assertEquals(2, d.getUnchanged().size());
+
+		// the edit time stamps are not compared by default
+		final IdentifiableDelta<AuditableEntity, AuditableEntity> byDefault = new IdentifiableDelta<>(oldObjects, newObjects);
+		assertFalse(byDefault.isCompareEdited());
+		assertEquals(byDefault.getIntersection(), byDefault.getModified());
+		assertTrue(byDefault.getUnchanged().isEmpty());
+	}
+
+	@Test
+	public void testModifiedPlain() {
+		final IdentifiableDelta<Entity, Entity> d = new IdentifiableDelta<>(Arrays.asList(e(1), e(2)), Arrays.asList(e(2), e(3)));
+		assertEquals(d.getIntersection(), d.getModified());
+		assertTrue(d.getUnchanged().isEmpty());
+	}
+
+	@Test
+	public void testSoftDelete() {
+		final IdentifiableDelta<DeletableEntity, DeletableEntity> d = new IdentifiableDelta<>(
+				Arrays.asList(new DeletableEntity(1, false), new DeletableEntity(2, true), new DeletableEntity(3, false), new DeletableEntity(4, true)),
+				Arrays.asList(new DeletableEntity(1, true), new DeletableEntity(2, false), new DeletableEntity(3, false), new DeletableEntity(4, true)));
+		assertEquals(1, d.getNewlyDeleted().size());
+		assertEquals(1, d.getNewlyDeleted().get(0).getLeft().getId());
+		assertTrue(d.getNewlyDeleted().get(0).getRight().isDeleted());
+		assertEquals(1, d.getRestored().size());
+		assertEquals(2, d.getRestored().get(0).getRight().getId());
+
+		final IdentifiableDelta<Entity, Entity> plain = new IdentifiableDelta<>(Arrays.asList(e(1)), Arrays.asList(e(1)));
+		assertTrue(plain.getNewlyDeleted().isEmpty());
+		assertTrue(plain.getRestored().isEmpty());
+	}
 }
@@ -0,0 +1,164 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.a9ski.id.MutableIdentifiable;
+import com.a9ski.id.collections.LongIdArray;
+
+public class IdentifiableIndexTest {
+
+	private static class Entity implements MutableIdentifiable {
+
+		/**
+		 *
+		 */
+		private static final long serialVersionUID = 4474276555744167122L;
+
+		private long id;
+
+		public Entity(final long id) {
+			super();
+			this.id = id;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(final long id) {
+			this.id = id;
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(id);
+		}
+	}
+
+	private Entity e(final int id) {
+		return new Entity(id);
+	}
+
+	@Test
+	public void testLookup() {
+		final Entity e0 = e(0);
+		final Entity e1 = e(1);
+		final Entity e2 = e(2);
+		final IdentifiableIndex<Entity> index = new IdentifiableIndex<>(Arrays.asList(e2, null, e0, e1));
+		assertEquals(4, index.size());
+		assertTrue(index.get(0) == e2);
+		assertNull(index.get(1));
+		assertTrue(index.getById(0) == e0);
+		assertTrue(index.getById(1) == e1);
+		assertNull(index.getById(3));
+		assertTrue(index.containsId(2));
+		assertFalse(index.containsId(-1));
+		assertEquals(Arrays.asList(e2, e0), index.getByIds(0, 2, 3, 0));
+		assertEquals(Arrays.asList(e2, e1), index.getByIds(Arrays.asList(1L, null, 2L)));
+		assertEquals(Arrays.asList(e2, e1), index.getByIds(LongIdArray.of(1, 2)));
+		assertTrue(index.getByIds().isEmpty());
+		assertEquals(Arrays.asList(e2, e0, e1), index.values());
+		assertTrue(new IdentifiableIndex<Entity>(null).isEmpty());
+	}
+
+	@Test
+	public void testDuplicatePolicy() {
+		final Entity first = e(1);
+		final Entity second = e(1);
+		final Entity other = e(2);
+		final List<Entity> objects = Arrays.asList(first, other, second);
+
+		final IdentifiableIndex<Entity> firstIndex = new IdentifiableIndex<>(objects);
+		assertTrue(firstIndex.getById(1) == first);
+		assertEquals(Arrays.asList(first, other), firstIndex.values());
+		assertEquals(Arrays.asList(first, second), firstIndex.getByIds(1));
+
+		final IdentifiableIndex<Entity> lastIndex = new IdentifiableIndex<>(objects, DuplicatePolicy.LAST);
+		assertTrue(lastIndex.getById(1) == second);
+		assertEquals(Arrays.asList(other, second), lastIndex.values());
+		assertEquals(objects, lastIndex);
+	}
+
+	@Test
+	public void testNullIds() {
+		final Entity first = e(1);
+		final Entity second = e(1);
+		final Entity other = e(2);
+		final IdentifiableIndex<Entity> unique = new IdentifiableIndex<>(Arrays.asList(first, null, other));
+		final IdentifiableIndex<Entity> duplicates = new IdentifiableIndex<>(Arrays.asList(first, null, other, second));
+		assertEquals(Arrays.asList(first), unique.getByIds(Arrays.asList(null, 1L)));
+		assertEquals(Arrays.asList(first, second), duplicates.getByIds(Arrays.asList(null, 1L)));
+		assertTrue(unique.getByIds(Arrays.asList((Long) null)).isEmpty());
+		assertTrue(duplicates.getByIds(Arrays.asList((Long) null)).isEmpty());
+		assertEquals(Arrays.asList(first, second), IdentifiableUtils.getByIds(Arrays.asList(first, null, other, second), null, 1L));
+		assertTrue(IdentifiableUtils.getByIds(Arrays.asList(first, null, other, second), (Long) null).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicatePolicyFail() {
+		new IdentifiableIndex<>(Arrays.asList(e(1), e(2), e(1)), DuplicatePolicy.FAIL);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable() {
+		new IdentifiableIndex<>(Arrays.asList(e(1))).add(e(2));
+	}
+
+	@Test
+	public void testIdentifiableUtils() {
+		final Entity e1 = e(1);
+		final Entity e2 = e(2);
+		final IdentifiableIndex<Entity> index = new IdentifiableIndex<>(Arrays.asList(e1, e2, e(1)), DuplicatePolicy.LAST);
+		assertTrue(IdentifiableIndex.of(index) == index);
+		assertTrue(IdentifiableUtils.getById(index, 2L) == e2);
+		assertTrue(IdentifiableUtils.getById(index, 1L) != e1);
+		assertNull(IdentifiableUtils.getById(index, (Long) null));
+		assertTrue(IdentifiableUtils.containsId(index, 1L));
+		assertFalse(IdentifiableUtils.containsId(index, 3L));
+		assertEquals(3, IdentifiableUtils.getByIds(index, 1L, 2L).size());
+	}
+
+	@Test
+	public void testIdentifiableDelta() {
+		final Entity oldFirst = e(1);
+		final Entity oldLast = e(1);
+		final IdentifiableIndex<Entity> oldIndex = new IdentifiableIndex<>(Arrays.asList(oldFirst, e(2), oldLast), DuplicatePolicy.LAST);
+		final IdentifiableIndex<Entity> newIndex = new IdentifiableIndex<>(Arrays.asList(e(3), e(1)));
+		final IdentifiableDelta<Entity, Entity> d = new IdentifiableDelta<>(oldIndex, newIndex);
+		assertEquals(Arrays.asList(2L), d.getRemovedIds());
+		assertEquals(Arrays.asList(3L), d.getAddedIds());
+		final Pair<Entity, Entity> pair = d.getIntersection().get(0);
+		assertTrue(pair.getLeft() == oldLast);
+		assertTrue(d.getOldObjects().equals(oldIndex));
+	}
+}
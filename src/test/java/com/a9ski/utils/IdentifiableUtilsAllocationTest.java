@@ -0,0 +1,154 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.a9ski.id.Identifiable;
+
+/**
+ * Checks the bytes allocated per operation by the hot paths, so allocation regressions fail the build. Every operation is warmed up first, so
+ * the measured code is compiled
+ */
+public class IdentifiableUtilsAllocationTest {
+
+	private static final int WARMUP = 20000;
+	private static final int OPERATIONS = 100000;
+	// the size of a boxed long without compressed references
+	private static final int LONG_SIZE = 24;
+
+	private static class Entity implements Identifiable {
+		private static final long serialVersionUID = 1L;
+
+		private final long id;
+
+		public Entity(final long id) {
+			super();
+			this.id = id;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+	}
+
+	private com.sun.management.ThreadMXBean threadBean;
+	private Object sink;
+
+	@Before
+	public void setUp() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue("Thread allocation counters are not supported",
+				bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private double allocatedBytesPerOperation(final int operations, final Runnable operation) {
+		for (int i = 0; i < Math.min(WARMUP, operations); i++) {
+			operation.run();
+		}
+		final long threadId = Thread.currentThread().getId();
+		final long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < operations; i++) {
+			operation.run();
+		}
+		return (double) (threadBean.getThreadAllocatedBytes(threadId) - before) / operations;
+	}
+
+	private void assertBudget(final String operation, final double budget, final double allocated) {
+		assertTrue(String.format("%s allocated %.2f bytes per operation, the budget is %.2f", operation, allocated, budget), allocated <= budget);
+	}
+
+	private static List<Entity> entities(final long from, final int count) {
+		final List<Entity> entities = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			entities.add(new Entity(from + i));
+		}
+		return entities;
+	}
+
+	private static List<Long> ids(final long from, final int count) {
+		final List<Long> ids = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ids.add(from + i);
+		}
+		return ids;
+	}
+
+	@Test
+	public void testScalarChecks() {
+		final Entity entity = new Entity(1000);
+		final Entity other = new Entity(1000);
+		final Long id = 1000L;
+		// less than a byte per operation, the counters themselves may allocate
+		assertBudget("equalsId", 1, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.equalsId(entity, id)));
+		assertBudget("notEqualsId", 1, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.notEqualsId(entity, id)));
+		assertBudget("sameIds", 1, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.sameIds(entity, other)));
+		assertBudget("getId", LONG_SIZE + 1, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.getId(entity)));
+	}
+
+	@Test
+	public void testLookups() {
+		final List<Entity> entities = entities(1000, 100);
+		final Entity entity = new Entity(1050);
+		final Long id = 1050L;
+		// at most an iterator, if it is not eliminated by the compiler
+		final int budget = 32;
+		assertBudget("getById", budget, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.getById(entities, id)));
+		assertBudget("getById(Identifiable)", budget, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.getById(entities, entity)));
+		assertBudget("containsId", budget, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.containsId(entities, id)));
+		assertBudget("contains", budget, allocatedBytesPerOperation(OPERATIONS, () -> sink = IdentifiableUtils.contains(entities, entity)));
+	}
+
+	@Test
+	public void testBulkOperations() {
+		final int size = 1000;
+		final List<Entity> oldEntities = entities(1000, size);
+		final List<Entity> newEntities = entities(1500, size);
+		final List<Long> oldIds = ids(1000, size);
+		final List<Long> newIds = ids(1500, size);
+		final List<Entity> sameEntities = new ArrayList<>(oldEntities);
+		// budgets per ID: a sorted long[] copy for sameIds, the result lists for the deltas
+		assertBudget("sameIds(Collection)", 16 * size,
+				allocatedBytesPerOperation(OPERATIONS / 10, () -> sink = IdentifiableUtils.sameIds(oldEntities, sameEntities)));
+		// the construction only sorts the IDs into two long[] copies
+		assertBudget("IdDelta construction", 20 * size, allocatedBytesPerOperation(OPERATIONS / 50, () -> sink = new IdDelta(oldIds, newIds)));
+		// the sorted copies (16 bytes), the subtract and intersect buffers of 3 * 8 bytes, the trimmed results of 1.5 * 8 bytes and 1.5 boxed IDs
+		// in the result lists (1.5 * (LONG_SIZE + 8) bytes)
+		assertBudget("IdDelta", (16 + 24 + 12 + 3 * (LONG_SIZE + 8) / 2) * size, allocatedBytesPerOperation(OPERATIONS / 50, () -> {
+			final IdDelta delta = new IdDelta(oldIds, newIds);
+			sink = delta.getRemovedIds();
+			sink = delta.getAddedIds();
+			sink = delta.getIntersectionIds();
+		}));
+		assertBudget("IdentifiableDelta", 256 * size,
+				allocatedBytesPerOperation(OPERATIONS / 50, () -> sink = new IdentifiableDelta<>(oldEntities, newEntities)));
+	}
+}
@@ -24,15 +24,22 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.junit.Test;
 
 import com.a9ski.id.Identifiable;
 import com.a9ski.id.MutableIdentifiable;
+import com.a9ski.id.collections.IdBitmap;
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.LongIdList;
+import com.a9ski.id.collections.LongIdSet;
 
 public class IdentifiableUtilsTest {
 
@@ -102,6 +109,25 @@ public class IdentifiableUtilsTest {
 		assertEquals(ExtCollectionUtils.toList(1L, 2L, 3L, 1L, null), IdentifiableUtils.getIdsList(e(1), e(2), e(3), e(1), null));
 	}
 
+	@Test
+	public void testGetIdSet() {
+		assertEquals(ExtCollectionUtils.toSet(1L, 2L, 3L), IdentifiableUtils.getIdSet(Arrays.asList(e(1), e(2), e(3), e(1), null)));
+		assertTrue(IdentifiableUtils.getIdSet(null).isEmpty());
+	}
+
+	@Test
+	public void testGetIdArray() {
+		assertEquals(Arrays.asList(1L, 2L, 3L), IdentifiableUtils.getIdArray(Arrays.asList(e(3), e(2), e(1), e(3), null)));
+		assertTrue(IdentifiableUtils.getIdArray(null).isEmpty());
+	}
+
+	@Test
+	public void testGetIdBitmap() {
+		final IdBitmap ids = IdentifiableUtils.getIdBitmap(Arrays.asList(e(3), e(2), e(1), e(3), null));
+		assertEquals(IdBitmap.of(1, 2, 3), ids);
+		assertTrue(IdentifiableUtils.getIdBitmap(null).isEmpty());
+	}
+
 	@Test
 	public void testGetId() {
 		assertEquals(Long.valueOf(1), IdentifiableUtils.getId(e(1)));
@@ -144,6 +170,28 @@ public class IdentifiableUtilsTest {
 		assertTrue(IdentifiableUtils.getByIds(null, (Long) null).isEmpty());
 	}
 
+	@Test
+	public void testGetByIdsHashed() {
+		final List<Long> ids = LongStream.range(0, 100).filter(i -> i % 2 == 0).boxed().collect(Collectors.toList());
+		final List<Entity> entities = LongStream.range(0, 10).mapToObj(i -> new Entity(i)).collect(Collectors.toList());
+		assertEquals(Arrays.asList(e(0), e(2), e(4), e(6), e(8)), IdentifiableUtils.getByIds(entities, ids));
+		assertEquals(Arrays.asList(e(1), e(3), e(5), e(7), e(9)), IdentifiableUtils.removeByIds(new ArrayList<>(entities), ids));
+		assertEquals(Arrays.asList(e(0), e(2), e(4), e(6), e(8)), IdentifiableUtils.getByIds(entities, LongIdSet.of(ids)));
+		assertEquals(Arrays.asList(e(1), e(3), e(5), e(7), e(9)), IdentifiableUtils.removeByIds(new ArrayList<>(entities), LongIdArray.of(ids)));
+		assertEquals(Arrays.asList(e(0), e(2), e(4), e(6), e(8)), IdentifiableUtils.getByIds(entities, LongIdList.of(ids)));
+		assertEquals(Arrays.asList(e(0), e(2)), IdentifiableUtils.getByIds(entities, LongIdList.of(0, 2)));
+	}
+
+	@Test
+	public void testGetByIdFirstMatch() {
+		final Entity first = e(1);
+		assertTrue(first == IdentifiableUtils.getById(Arrays.asList(null, e(2), first, e(1)), 1L));
+		assertNull(IdentifiableUtils.getById(Arrays.asList(e(1), null), (Long) null));
+		assertNull(IdentifiableUtils.getById(null, 1L));
+		assertFalse(IdentifiableUtils.containsId(Arrays.asList(e(1), null), null));
+		assertTrue(IdentifiableUtils.containsId(Arrays.asList(e(1), null), 1L));
+	}
+
 	@Test
 	public void testRemoveByIds() {
 		assertEquals(Arrays.asList(e(2), null), IdentifiableUtils.removeByIds(ExtCollectionUtils.toList(e(1), e(2), null), 1L));
@@ -165,6 +213,14 @@ public class IdentifiableUtilsTest {
 		assertFalse(IdentifiableUtils.sameIds(null, Arrays.asList(e(2), e(1))));
 
 		assertTrue(IdentifiableUtils.sameIds((Collection<Identifiable>) null, null));
+
+		assertTrue(IdentifiableUtils.sameIds(Arrays.asList(e(1), e(2), e(1)), Arrays.asList(e(2), e(1))));
+		assertTrue(IdentifiableUtils.sameIds(Arrays.asList(e(1), null), Arrays.asList(null, e(1), null)));
+		assertFalse(IdentifiableUtils.sameIds(Arrays.asList(e(1), null), Arrays.asList(e(1), e(1))));
+		assertFalse(IdentifiableUtils.sameIds(Arrays.asList(e(1)), Arrays.asList(e(1), null)));
+		assertFalse(IdentifiableUtils.sameIds(Arrays.asList(e(1), e(2), e(3)), Arrays.asList(e(1), e(2))));
+		assertFalse(IdentifiableUtils.sameIds(Arrays.asList(e(1), e(2)), Arrays.asList(e(1), e(1), e(1))));
+		assertTrue(IdentifiableUtils.sameIds(Arrays.asList(), null));
 	}
 
 	@Test
@@ -195,4 +251,17 @@ public class IdentifiableUtilsTest {
 		l.sort(IdentifiableUtils.createOrderedComparator(Arrays.asList(null, 1L, 2L)));
 		assertEquals(Arrays.asList(e(3), null, e(1), e(2), e(2)), l);
 	}
+
+	@Test
+	public void testReorderByIds() {
+		final List<Entity> l = Arrays.asList(e(2), e(1), e(2), e(3), null);
+		assertEquals(Arrays.asList(e(3), null, e(1), e(2), e(2)), IdentifiableUtils.reorderByIds(l, new long[] { 5, 1, 2, 1 }));
+		assertEquals(Arrays.asList(e(2), e(2), null, e(3), e(1)), IdentifiableUtils.reorderByIds(l, new long[] { 2, 3, 1 }));
+		assertEquals(l, IdentifiableUtils.reorderByIds(l, null));
+		assertTrue(IdentifiableUtils.reorderByIds(null, new long[] { 1 }).isEmpty());
+
+		final List<Entity> sorted = new ArrayList<>(l);
+		sorted.sort(IdentifiableUtils.createOrderedComparator(Arrays.asList(3L, 0L, 2L)));
+		assertEquals(sorted, IdentifiableUtils.reorderByIds(l, new long[] { 3, 0, 2 }));
+	}
 }
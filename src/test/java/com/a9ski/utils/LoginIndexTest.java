@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.a9ski.id.MutableLoginBased;
+
+public class LoginIndexTest {
+
+	private static class Entity implements MutableLoginBased {
+		private String login;
+
+		public Entity(final String login) {
+			super();
+			this.login = login;
+		}
+
+		@Override
+		public String getLogin() {
+			return login;
+		}
+
+		@Override
+		public void setLogin(final String login) {
+			this.login = login;
+		}
+	}
+
+	@Test
+	public void testGet() {
+		final Entity john = new Entity("John");
+		final Entity jane = new Entity(" JANE ");
+		final Entity fullWidth = new Entity("\uFF41\uFF42\uFF43");
+		final LoginIndex<Entity> index = new LoginIndex<>(Arrays.asList(john, null, jane, new Entity(null), fullWidth));
+		assertEquals(3, index.size());
+		assertSame(john, index.get("john"));
+		assertSame(john, index.get("JOHN"));
+		assertSame(jane, index.get("jane"));
+		assertSame(fullWidth, index.get("ABC"));
+		assertTrue(index.containsKey("abc"));
+		assertFalse(index.containsKey("joe"));
+		assertNull(index.get(null));
+
+		final LoginIndex<Entity> exact = new LoginIndex<>(Arrays.asList(john, jane), KeyNormalizer.EXACT, DuplicatePolicy.FAIL);
+		assertSame(john, exact.get("John"));
+		assertNull(exact.get("john"));
+		assertSame(jane, exact.get(" JANE "));
+
+		assertEquals(0, new LoginIndex<Entity>(null).size());
+	}
+
+	@Test
+	public void testDuplicates() {
+		final Entity first = new Entity("john");
+		final Entity last = new Entity("JOHN");
+		final List<Entity> entities = Arrays.asList(first, last);
+		try {
+			new LoginIndex<>(entities);
+			fail("Duplicate logins must be rejected");
+		} catch (final IllegalArgumentException ex) {
+			// expected
+		}
+		assertSame(first, new LoginIndex<>(entities, KeyNormalizer.CASE_INSENSITIVE, DuplicatePolicy.FIRST).get("john"));
+		assertSame(last, new LoginIndex<>(entities, KeyNormalizer.CASE_INSENSITIVE, DuplicatePolicy.LAST).get("john"));
+		assertEquals(2, new LoginIndex<>(entities, KeyNormalizer.EXACT, DuplicatePolicy.FAIL).size());
+	}
+
+	@Test
+	public void testAddRemove() {
+		final Entity john = new Entity("john");
+		final LoginIndex<Entity> index = new LoginIndex<>(null);
+		assertTrue(index.add(john));
+		assertFalse(index.add(john));
+		assertFalse(index.add(new Entity(null)));
+		try {
+			index.add(new Entity("John"));
+			fail("Duplicate logins must be rejected");
+		} catch (final IllegalArgumentException ex) {
+			// expected
+		}
+		assertFalse(index.remove(new Entity("john")));
+		assertTrue(index.remove(john));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void testSetLogin() {
+		final Entity john = new Entity("john");
+		final Entity jane = new Entity("jane");
+		final LoginIndex<Entity> index = new LoginIndex<>(Arrays.asList(john, jane));
+		index.setLogin(john, "Johnny");
+		assertEquals("Johnny", john.getLogin());
+		assertSame(john, index.get("johnny"));
+		assertNull(index.get("john"));
+		assertEquals(2, index.size());
+
+		index.setLogin(john, "JOHNNY");
+		assertSame(john, index.get("johnny"));
+		assertEquals(2, index.size());
+
+		try {
+			index.setLogin(john, "Jane");
+			fail("Duplicate logins must be rejected");
+		} catch (final IllegalArgumentException ex) {
+			// expected
+		}
+		assertEquals("JOHNNY", john.getLogin());
+		assertSame(jane, index.get("jane"));
+
+		index.setLogin(john, null);
+		assertNull(john.getLogin());
+		assertNull(index.get("johnny"));
+		assertEquals(1, index.size());
+	}
+}
@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class LongIdDeltaTest {
+
+	@Test
+	public void testDelta() {
+		final LongIdDelta d = new LongIdDelta(new long[] { 4, 1, 2, 3, 1 }, new long[] { 6, 5, 3, 4, 6 });
+		assertArrayEquals(new long[] { 1, 2 }, d.getRemovedIds());
+		assertArrayEquals(new long[] { 3, 4 }, d.getIntersectionIds());
+		assertArrayEquals(new long[] { 5, 6 }, d.getAddedIds());
+		assertEquals(2, d.getRemovedCount());
+		assertEquals(2, d.getAddedCount());
+		assertEquals(2, d.getIntersectionCount());
+		assertTrue(d.hasDelta());
+	}
+
+	@Test
+	public void testInputNotModified() {
+		final long[] oldIds = { 3, 1, 2 };
+		new LongIdDelta(oldIds, null);
+		assertArrayEquals(new long[] { 3, 1, 2 }, oldIds);
+	}
+
+	@Test
+	public void testIterators() {
+		final LongIdDelta d = new LongIdDelta(LongStream.rangeClosed(1, 100).iterator(), LongStream.rangeClosed(51, 150).iterator());
+		assertArrayEquals(LongStream.rangeClosed(1, 50).toArray(), d.getRemovedIds());
+		assertArrayEquals(LongStream.rangeClosed(51, 100).toArray(), d.getIntersectionIds());
+		assertArrayEquals(LongStream.rangeClosed(101, 150).toArray(), d.getAddedIds());
+	}
+
+	@Test
+	public void testNoDelta() {
+		final LongIdDelta d = new LongIdDelta(new long[] { 1, 2, 3 }, new long[] { 3, 2, 1 });
+		assertEquals(0, d.getRemovedIds().length);
+		assertArrayEquals(new long[] { 1, 2, 3 }, d.getIntersectionIds());
+		assertEquals(0, d.getAddedIds().length);
+		assertFalse(d.hasDelta());
+	}
+
+	@Test
+	public void testNull() {
+		final LongIdDelta d = new LongIdDelta((long[]) null, null);
+		assertEquals(0, d.getRemovedIds().length);
+		assertEquals(0, d.getIntersectionIds().length);
+		assertEquals(0, d.getAddedIds().length);
+		assertFalse(d.hasDelta());
+	}
+
+	@Test
+	public void testIdDeltaDelegation() {
+		final IdDelta d = new IdDelta(new LongIdDelta(new long[] { 1, 2 }, new long[] { 2, 3 }));
+		assertEquals(Arrays.asList(1L), d.getRemovedIds());
+		assertEquals(Arrays.asList(2L), d.getIntersectionIds());
+		assertEquals(Arrays.asList(3L), d.getAddedIds());
+	}
+
+	private static void assertSameDelta(final LongIdDelta expected, final LongIdDelta actual) {
+		assertArrayEquals(expected.getRemovedIds(), actual.getRemovedIds());
+		assertArrayEquals(expected.getAddedIds(), actual.getAddedIds());
+		assertArrayEquals(expected.getIntersectionIds(), actual.getIntersectionIds());
+	}
+
+	@Test
+	public void testParallel() {
+		final Random r = new Random(11);
+		final long[] oldIds = LongStream.generate(() -> r.nextInt(1_000_000)).limit(500_000).toArray();
+		final long[] newIds = LongStream.generate(() -> r.nextInt(1_000_000)).limit(400_000).toArray();
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertSameDelta(new LongIdDelta(oldIds, newIds), LongIdDelta.parallel(oldIds, newIds, pool));
+			final long[] low = LongStream.range(0, 200_000).toArray();
+			final long[] high = LongStream.range(200_000, 300_000).toArray();
+			assertSameDelta(new LongIdDelta(low, high), LongIdDelta.parallel(low, high, pool));
+			assertSameDelta(new LongIdDelta(high, null), LongIdDelta.parallel(high, null, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelSmallInput() {
+		assertSameDelta(new LongIdDelta(new long[] { 3, 1, 2 }, new long[] { 2, 4 }), LongIdDelta.parallel(new long[] { 3, 1, 2 }, new long[] { 2, 4 }));
+	}
+}
@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.a9ski.id.MutableNamed;
+
+public class NameIndexTest {
+
+	private static class Entity implements MutableNamed {
+		private String name;
+
+		public Entity(final String name) {
+			super();
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public void setName(final String name) {
+			this.name = name;
+		}
+	}
+
+	@Test
+	public void testSetName() {
+		// composed and decomposed forms of the same name
+		final Entity composed = new Entity("Jos\u00E9");
+		final Entity other = new Entity("Ana");
+		final NameIndex<Entity> index = new NameIndex<>(Arrays.asList(composed, other));
+		assertSame(composed, index.get("JOSE\u0301"));
+		index.setName(composed, "Joseph");
+		assertSame(composed, index.get("joseph"));
+		assertNull(index.get("jos\u00E9"));
+		assertEquals(2, index.size());
+	}
+}
@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import com.a9ski.id.collections.LongIdArray;
+import com.a9ski.id.collections.OffHeapLongIdSet;
+
+public class SortedIdDeltaTest {
+
+	@Test
+	public void testDelta() {
+		try (final OffHeapLongIdSet oldIds = new OffHeapLongIdSet(LongStream.rangeClosed(1, 100).iterator());
+				final OffHeapLongIdSet newIds = new OffHeapLongIdSet(LongStream.rangeClosed(51, 150).iterator())) {
+			final SortedIdDelta d = new SortedIdDelta(oldIds, newIds);
+			assertEquals(50, d.getRemovedCount());
+			assertEquals(50, d.getAddedCount());
+			assertEquals(50, d.getIntersectionCount());
+			assertTrue(d.hasDelta());
+			assertArrayEquals(LongStream.rangeClosed(1, 50).toArray(), d.removedIds().toArray());
+			assertArrayEquals(LongStream.rangeClosed(101, 150).toArray(), d.addedIds().toArray());
+			assertArrayEquals(LongStream.rangeClosed(51, 100).toArray(), d.intersectionIds().toArray());
+		}
+	}
+
+	@Test
+	public void testSameAsIdDelta() {
+		final LongIdArray oldIds = LongIdArray.of(1, 3, 5, 7, 9, 11);
+		final LongIdArray newIds = LongIdArray.of(0, 3, 4, 9, 12);
+		final SortedIdDelta d = new SortedIdDelta(oldIds, newIds);
+		final LongIdDelta expected = new LongIdDelta(oldIds.toLongArray(), newIds.toLongArray());
+		assertArrayEquals(expected.getRemovedIds(), d.removedIds().toArray());
+		assertArrayEquals(expected.getAddedIds(), d.addedIds().toArray());
+		assertArrayEquals(expected.getIntersectionIds(), d.intersectionIds().toArray());
+	}
+
+	@Test
+	public void testNoDelta() {
+		final SortedIdDelta d = new SortedIdDelta(LongIdArray.of(1, 2), LongIdArray.of(2, 1));
+		assertFalse(d.hasDelta());
+		assertEquals(0, d.removedIds().count());
+		assertEquals(2, d.intersectionIds().count());
+	}
+}
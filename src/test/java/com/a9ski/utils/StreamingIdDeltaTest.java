@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import com.a9ski.id.collections.LongIdList;
+
+public class StreamingIdDeltaTest {
+
+	private static class CollectingSink implements IdDeltaSink {
+		private final LongIdList removed = new LongIdList();
+		private final LongIdList added = new LongIdList();
+		private final LongIdList intersection = new LongIdList();
+
+		@Override
+		public void removed(final long id) {
+			removed.add(id);
+		}
+
+		@Override
+		public void added(final long id) {
+			added.add(id);
+		}
+
+		@Override
+		public void intersection(final long id) {
+			intersection.add(id);
+		}
+	}
+
+	@Test
+	public void testDelta() {
+		final CollectingSink sink = new CollectingSink();
+		final StreamingIdDelta d = new StreamingIdDelta(LongStream.of(1, 2, 2, 3, 4), LongStream.of(3, 4, 4, 5, 6), sink);
+		assertEquals(Arrays.asList(1L, 2L), sink.removed);
+		assertEquals(Arrays.asList(3L, 4L), sink.intersection);
+		assertEquals(Arrays.asList(5L, 6L), sink.added);
+		assertEquals(2, d.getRemovedCount());
+		assertEquals(2, d.getAddedCount());
+		assertEquals(2, d.getIntersectionCount());
+		assertTrue(d.hasDelta());
+	}
+
+	@Test
+	public void testCountsOnly() {
+		final StreamingIdDelta d = new StreamingIdDelta(LongStream.range(0, 1_000_000), LongStream.range(0, 1_000_000), null);
+		assertEquals(1_000_000, d.getIntersectionCount());
+		assertFalse(d.hasDelta());
+	}
+
+	@Test
+	public void testNull() {
+		final StreamingIdDelta d = new StreamingIdDelta((LongStream) null, LongStream.of(1), null);
+		assertEquals(1, d.getAddedCount());
+		assertEquals(0, d.getRemovedCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotSorted() {
+		new StreamingIdDelta(LongStream.of(1, 3, 2), LongStream.of(1, 2, 3), null);
+	}
+}
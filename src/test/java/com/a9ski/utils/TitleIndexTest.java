@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * id
+ * %%
+ * Copyright (C) 2017 Kiril Arabadzhiyski
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.a9ski.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.a9ski.id.Identifiable;
+import com.a9ski.id.Titled;
+
+public class TitleIndexTest {
+
+	private static class Entity implements Identifiable, Titled {
+		private static final long serialVersionUID = 1L;
+
+		private final long id;
+		private final String title;
+
+		public Entity(final long id, final String title) {
+			super();
+			this.id = id;
+			this.title = title;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public String getTitle() {
+			return title;
+		}
+	}
+
+	@Test
+	public void testFindIds() {
+		final TitleIndex<Entity> index = new TitleIndex<>(Arrays.asList(new Entity(5, "Apple"), new Entity(3, "apricot"), null,
+				new Entity(4, null), new Entity(2, "Banana"), new Entity(1, "APPLE pie"), new Entity(6, "apple")));
+		assertEquals(5, index.size());
+		assertArrayEquals(new long[] { 5, 6, 1, 3 }, index.findIds("ap", 10));
+		assertArrayEquals(new long[] { 5, 6 }, index.findIds("AP", 2));
+		assertArrayEquals(new long[] { 5, 6, 1 }, index.findIds("apple", 10));
+		assertArrayEquals(new long[] { 1 }, index.findIds("apple p", 10));
+		assertArrayEquals(new long[] { 2 }, index.findIds("b", 10));
+		assertArrayEquals(new long[0], index.findIds("c", 10));
+		assertArrayEquals(new long[0], index.findIds("ap", 0));
+		assertArrayEquals(new long[] { 5, 6, 1, 3, 2 }, index.findIds(null, 10));
+		assertEquals(4, index.count("a"));
+		assertEquals(0, index.count("z"));
+		assertEquals(5, index.count(""));
+	}
+
+	@Test
+	public void testGreatestCharacter() {
+		final TitleIndex<Entity> index = new TitleIndex<>(Arrays.asList(new Entity(1, "a\uFFFF"), new Entity(2, "a\uFFFFb"), new Entity(3, "ab"),
+				new Entity(4, "b"), new Entity(5, "\uFFFF")), KeyNormalizer.EXACT);
+		assertEquals(3, index.count("a"));
+		assertEquals(2, index.count("a\uFFFF"));
+		assertEquals(1, index.count("\uFFFF"));
+		assertEquals(5, index.count(""));
+		assertArrayEquals(new long[] { 3, 1, 2 }, index.findIds("a", 10));
+		assertTrue(index.remove(1));
+		assertEquals(1, index.count("a\uFFFF"));
+	}
+
+	@Test
+	public void testAddRemove() {
+		final TitleIndex<Entity> index = new TitleIndex<>(Arrays.asList(new Entity(1, "beta"), new Entity(1, "alpha")));
+		assertEquals(1, index.size());
+		assertArrayEquals(new long[] { 1 }, index.findIds("al", 10));
+		assertArrayEquals(new long[0], index.findIds("be", 10));
+
+		assertTrue(index.add(new Entity(3, "alpine")));
+		assertTrue(index.add(new Entity(2, "Alpine")));
+		assertFalse(index.add(new Entity(4, null)));
+		assertArrayEquals(new long[] { 1, 2, 3 }, index.findIds("al", 10));
+
+		assertTrue(index.add(new Entity(1, "gamma")));
+		assertArrayEquals(new long[] { 2, 3 }, index.findIds("al", 10));
+		assertArrayEquals(new long[] { 1 }, index.findIds("g", 10));
+
+		assertTrue(index.remove(2));
+		assertFalse(index.remove(2));
+		assertArrayEquals(new long[] { 3 }, index.findIds("al", 10));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testRandom() {
+		final Random rnd = new Random(7);
+		final List<Entity> entities = new ArrayList<>();
+		final TitleIndex<Entity> index = new TitleIndex<>(null);
+		for (int i = 1; i <= 2000; i++) {
+			final Entity e = new Entity(i, Integer.toString(rnd.nextInt(100000), 36));
+			entities.add(e);
+			index.add(e);
+		}
+		final TitleIndex<Entity> built = new TitleIndex<>(entities);
+		for (int i = 0; i < 100; i++) {
+			final String prefix = Integer.toString(rnd.nextInt(36 * 36), 36);
+			final long[] expected = entities.stream().filter(e -> e.getTitle().startsWith(prefix))
+					.sorted(Comparator.comparing(Entity::getTitle).thenComparingLong(Entity::getId))
+					.mapToLong(Entity::getId).limit(5).toArray();
+			assertArrayEquals(expected, index.findIds(prefix, 5));
+			assertArrayEquals(expected, built.findIds(prefix, 5));
+			assertEquals((int) entities.stream().filter(e -> e.getTitle().startsWith(prefix)).count(), built.count(prefix));
+		}
+		assertTrue(built.getSizeInBytes() > 0);
+		assertEquals((double) built.getSizeInBytes() / built.size(), built.getSizeInBytesPerEntry(), 1e-9);
+		assertEquals(0, new TitleIndex<Entity>(null).getSizeInBytesPerEntry(), 0);
+	}
+}